@@ -0,0 +1,489 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.github.woonsan.jdbc.jcr.impl.JcrJdbcConnection;
+
+/**
+ * Immutable connection configuration read from a JDBC URL and connection properties.
+ * <p>
+ * The property names are case-insensitive, normalized to upper cases. The parameters in the URL
+ * override the connection properties of the same names.
+ * <p>
+ * A configuration merging connection properties shares the properties of the configuration read from the URL,
+ * and keeps only the merged properties not in the URL by itself, so merging the credentials of a connection,
+ * which connection pools pass on every connection, just copies the parsed settings.
+ */
+public final class ConnectionConfig {
+
+    private final Map<String, String> properties;
+    private final Map<String, String> mergedProperties;
+    private final String location;
+    private final String username;
+    private final String password;
+    private final String workspace;
+    private final long validationCacheTime;
+    private final int readOnlySessions;
+    private final long readOnlySessionTimeout;
+    private final String repositoryConf;
+    private final String repositoryHome;
+    private final long repositoryIdleTimeout;
+    private final List<String> repositoryWarmUpItems;
+    private final int remoteBatchReadDepth;
+    private final int remoteItemInfoCacheSize;
+    private final int remoteItemCacheSize;
+    private final int remoteMaxConnections;
+    private final List<String> locations;
+    private final long loadBalanceRetryInterval;
+    private final List<String> repositoryKey;
+
+    ConnectionConfig(final Map<String, String> properties) throws SQLException {
+        this(Collections.unmodifiableMap(properties), Collections.<String, String> emptyMap());
+    }
+
+    private ConnectionConfig(final Map<String, String> properties, final Map<String, String> mergedProperties)
+            throws SQLException {
+        this.properties = properties;
+        this.mergedProperties = mergedProperties;
+
+        location = getNonNullProperty(Driver.CONNECTION_PROP_LOCATION).trim();
+        username = readUsername();
+        password = getNonNullProperty(Driver.CONNECTION_PROP_PASSWORD);
+
+        final String ws = getRawProperty(Driver.CONNECTION_PROP_WORKSPACE);
+        workspace = ws != null && !ws.isEmpty() ? ws : null;
+        validationCacheTime = getLongProperty(Driver.CONNECTION_PROP_VALIDATION_CACHE_TIME,
+                JcrJdbcConnection.DEFAULT_VALIDATION_CACHE_TIME);
+        readOnlySessions = (int) getLongProperty(Driver.CONNECTION_PROP_READ_ONLY_SESSIONS, 0L);
+        readOnlySessionTimeout = getLongProperty(Driver.CONNECTION_PROP_READ_ONLY_SESSION_TIMEOUT,
+                JcrJdbcConnection.DEFAULT_READ_ONLY_SESSION_TIMEOUT);
+
+        repositoryConf = getRawProperty(Driver.REPO_CONF_PROPERTY);
+        repositoryHome = getRawProperty(Driver.REPO_HOME_PROPERTY);
+        repositoryIdleTimeout = getLongProperty(Driver.REPO_IDLE_TIMEOUT_PROPERTY, Driver.DEFAULT_REPO_IDLE_TIMEOUT);
+        repositoryWarmUpItems = getListProperty(Driver.REPO_WARMUP_PROPERTY, '|');
+        remoteBatchReadDepth = (int) getLongProperty(Driver.REMOTE_BATCH_READ_DEPTH_PROPERTY, -1L);
+        remoteItemInfoCacheSize = (int) getLongProperty(Driver.REMOTE_ITEM_INFO_CACHE_SIZE_PROPERTY, -1L);
+        remoteItemCacheSize = (int) getLongProperty(Driver.REMOTE_ITEM_CACHE_SIZE_PROPERTY, -1L);
+        remoteMaxConnections = (int) getLongProperty(Driver.REMOTE_MAX_CONNECTIONS_PROPERTY, -1L);
+        locations = parseLocations(location);
+        loadBalanceRetryInterval = getLongProperty(Driver.LOAD_BALANCE_RETRY_INTERVAL_PROPERTY,
+                Driver.DEFAULT_LOAD_BALANCE_RETRY_INTERVAL);
+
+        if (location.isEmpty()) {
+            repositoryKey = Collections.unmodifiableList(Arrays.asList(location, repositoryConf, repositoryHome));
+        } else {
+            repositoryKey = Collections.unmodifiableList(Arrays.asList(location, null, null));
+        }
+    }
+
+    /**
+     * Copies the settings of the base configuration, except for the credentials read from the merged properties.
+     */
+    private ConnectionConfig(final ConnectionConfig base, final Map<String, String> mergedProperties) {
+        properties = base.properties;
+        this.mergedProperties = mergedProperties;
+
+        location = base.location;
+        username = readUsername();
+        password = getNonNullProperty(Driver.CONNECTION_PROP_PASSWORD);
+        workspace = base.workspace;
+        validationCacheTime = base.validationCacheTime;
+        readOnlySessions = base.readOnlySessions;
+        readOnlySessionTimeout = base.readOnlySessionTimeout;
+        repositoryConf = base.repositoryConf;
+        repositoryHome = base.repositoryHome;
+        repositoryIdleTimeout = base.repositoryIdleTimeout;
+        repositoryWarmUpItems = base.repositoryWarmUpItems;
+        remoteBatchReadDepth = base.remoteBatchReadDepth;
+        remoteItemInfoCacheSize = base.remoteItemInfoCacheSize;
+        remoteItemCacheSize = base.remoteItemCacheSize;
+        remoteMaxConnections = base.remoteMaxConnections;
+        locations = base.locations;
+        loadBalanceRetryInterval = base.loadBalanceRetryInterval;
+        repositoryKey = base.repositoryKey;
+    }
+
+    /**
+     * Returns a configuration merging the connection properties, which are overridden by this configuration.
+     * @param info connection properties
+     * @return a configuration merging the connection properties, or this if there is nothing to merge
+     * @throws SQLException if a merged property value is invalid
+     */
+    ConnectionConfig merge(final Properties info) throws SQLException {
+        if (info == null || info.isEmpty()) {
+            return this;
+        }
+
+        if (!mergedProperties.isEmpty()) {
+            return flatten().merge(info);
+        }
+
+        Map<String, String> merged = null;
+        boolean credentialsOnly = true;
+        String name;
+        String key;
+        String value;
+
+        for (Enumeration<?> propNames = info.propertyNames(); propNames.hasMoreElements();) {
+            name = (String) propNames.nextElement();
+            key = name.toUpperCase();
+
+            if (properties.containsKey(key)) {
+                continue;
+            }
+
+            value = info.getProperty(name);
+
+            if (value != null) {
+                if (merged == null) {
+                    merged = new LinkedHashMap<>(4);
+                }
+
+                merged.put(key, value);
+                credentialsOnly = credentialsOnly && isCredentialProperty(key);
+            }
+        }
+
+        if (merged == null) {
+            return this;
+        }
+
+        merged = Collections.unmodifiableMap(merged);
+        return credentialsOnly ? new ConnectionConfig(this, merged) : new ConnectionConfig(properties, merged);
+    }
+
+    /**
+     * Returns a configuration of the same properties except for the location.
+     * @param newLocation the new location
+     * @return a configuration of the same properties except for the location
+     * @throws SQLException if a property value is invalid
+     */
+    ConnectionConfig withLocation(final String newLocation) throws SQLException {
+        final Map<String, String> props = new HashMap<>(properties);
+        props.putAll(mergedProperties);
+        props.put(Driver.CONNECTION_PROP_LOCATION, newLocation);
+        return new ConnectionConfig(props);
+    }
+
+    /**
+     * Returns the repository location, or an empty string for a transient repository.
+     * @return the repository location, or an empty string for a transient repository
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns true if the configuration is for a transient repository (with an empty location).
+     * @return true if the configuration is for a transient repository
+     */
+    public boolean isTransient() {
+        return location.isEmpty();
+    }
+
+    /**
+     * Returns true if the location lists multiple locations by <code>loadbalance:loc1,loc2,...</code>,
+     * the first of which is the primary and the others are read replicas.
+     * @return true if the configuration is for load-balanced locations
+     */
+    public boolean isLoadBalanced() {
+        return location.regionMatches(true, 0, Driver.LOAD_BALANCE_LOCATION_PREFIX, 0,
+                Driver.LOAD_BALANCE_LOCATION_PREFIX.length());
+    }
+
+    /**
+     * Returns the load-balanced locations, the first of which is the primary, or the single location
+     * if not load-balanced.
+     * @return the locations, the first of which is the primary
+     */
+    public List<String> getLocations() {
+        return locations;
+    }
+
+    /**
+     * Returns the time in milliseconds for which a load-balanced location failing to connect is not tried
+     * for reads again, unless no other location is available.
+     * @return the time in milliseconds for which a failed location is not tried again
+     */
+    public long getLoadBalanceRetryInterval() {
+        return loadBalanceRetryInterval;
+    }
+
+    /**
+     * Returns true if the configuration is for a remote repository accessed by SPI2DAVex over HTTP(S).
+     * @return true if the configuration is for a remote repository
+     */
+    public boolean isRemote() {
+        final String lowerLocation = location.toLowerCase();
+        return lowerLocation.startsWith("http://") || lowerLocation.startsWith("https://");
+    }
+
+    /**
+     * Returns the depth of the node states read in a single request to a remote repository,
+     * or -1 if not provided to use the default of SPI2DAVex.
+     * @return the batch read depth, or -1 if not provided
+     */
+    public int getRemoteBatchReadDepth() {
+        return remoteBatchReadDepth;
+    }
+
+    /**
+     * Returns the size of the item info cache of SPI2DAVex, or -1 if not provided.
+     * @return the size of the item info cache, or -1 if not provided
+     */
+    public int getRemoteItemInfoCacheSize() {
+        return remoteItemInfoCacheSize;
+    }
+
+    /**
+     * Returns the size of the item cache of JCR2SPI, or -1 if not provided.
+     * @return the size of the item cache, or -1 if not provided
+     */
+    public int getRemoteItemCacheSize() {
+        return remoteItemCacheSize;
+    }
+
+    /**
+     * Returns the maximum number of HTTP connections to a remote repository, or -1 if not provided.
+     * @return the maximum number of HTTP connections, or -1 if not provided
+     */
+    public int getRemoteMaxConnections() {
+        return remoteMaxConnections;
+    }
+
+    /**
+     * Returns the username by either <code>username</code> or <code>user</code> property, or null if not provided.
+     * @return the username, or null if not provided
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Returns the password, or an empty string if not provided.
+     * @return the password, or an empty string if not provided
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Returns the workspace name, or null if not provided.
+     * @return the workspace name, or null if not provided
+     */
+    public String getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Returns the time in milliseconds for which a successful connection validation is reused.
+     * @return the time in milliseconds for which a successful connection validation is reused
+     */
+    public long getValidationCacheTime() {
+        return validationCacheTime;
+    }
+
+    /**
+     * Returns the maximum number of read-only sessions shared by the statements of a connection.
+     * @return the maximum number of read-only sessions, or zero if queries are run by the session of a connection
+     */
+    public int getReadOnlySessions() {
+        return readOnlySessions;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds for which a query waits for a read-only session to be returned.
+     * @return the maximum time in milliseconds to wait for a read-only session
+     */
+    public long getReadOnlySessionTimeout() {
+        return readOnlySessionTimeout;
+    }
+
+    /**
+     * Returns the configuration file path of a transient repository, or null if not provided.
+     * @return the configuration file path of a transient repository, or null if not provided
+     */
+    public String getRepositoryConf() {
+        return repositoryConf;
+    }
+
+    /**
+     * Returns the home directory path of a transient repository, or null if not provided.
+     * @return the home directory path of a transient repository, or null if not provided
+     */
+    public String getRepositoryHome() {
+        return repositoryHome;
+    }
+
+    /**
+     * Returns the time in milliseconds after which the cached repository having no open connection is evicted.
+     * @return the idle timeout in milliseconds, or zero or less if never evicted
+     */
+    public long getRepositoryIdleTimeout() {
+        return repositoryIdleTimeout;
+    }
+
+    /**
+     * Returns the warm-up items, either node paths (starting with <code>/</code>) or JCR-SQL2 queries,
+     * run in the background when the repository is first resolved.
+     * @return the warm-up items, or an empty list if not provided
+     */
+    public List<String> getRepositoryWarmUpItems() {
+        return repositoryWarmUpItems;
+    }
+
+    /**
+     * Returns the property value by the case-insensitive property name.
+     * @param name property name
+     * @return the property value, or null if not provided
+     */
+    public String getProperty(final String name) {
+        return getRawProperty(name.toUpperCase());
+    }
+
+    /**
+     * Returns the properties of the configuration with the property names in upper cases.
+     * @return the properties of the configuration
+     */
+    public Properties toProperties() {
+        final Properties props = new Properties();
+
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            props.setProperty(entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, String> entry : mergedProperties.entrySet()) {
+            props.setProperty(entry.getKey(), entry.getValue());
+        }
+
+        return props;
+    }
+
+    /**
+     * Returns the identity of the repository (location, configuration and home) to cache the repository by.
+     */
+    List<String> getRepositoryKey() {
+        return repositoryKey;
+    }
+
+    private List<String> parseLocations(final String loc) {
+        if (!isLoadBalanced()) {
+            return Collections.singletonList(loc);
+        }
+
+        final List<String> locs = new ArrayList<>();
+
+        for (String item : loc.substring(Driver.LOAD_BALANCE_LOCATION_PREFIX.length()).split(",")) {
+            if (!item.trim().isEmpty()) {
+                locs.add(item.trim());
+            }
+        }
+
+        return Collections.unmodifiableList(locs);
+    }
+
+    private ConnectionConfig flatten() throws SQLException {
+        final Map<String, String> props = new HashMap<>(properties);
+        props.putAll(mergedProperties);
+        return new ConnectionConfig(props);
+    }
+
+    private static boolean isCredentialProperty(final String name) {
+        return Driver.CONNECTION_PROP_USERNAME.equals(name) || Driver.CONNECTION_PROP_USER.equals(name)
+                || Driver.CONNECTION_PROP_PASSWORD.equals(name);
+    }
+
+    private String getRawProperty(final String name) {
+        final String value = properties.get(name);
+        return value != null ? value : mergedProperties.get(name);
+    }
+
+    private String readUsername() {
+        String user = getRawProperty(Driver.CONNECTION_PROP_USERNAME);
+
+        if (user == null) {
+            user = getRawProperty(Driver.CONNECTION_PROP_USER);
+        }
+
+        return user != null && !user.isEmpty() ? user : null;
+    }
+
+    private String getNonNullProperty(final String name) {
+        final String value = getRawProperty(name);
+        return value != null ? value : "";
+    }
+
+    private List<String> getListProperty(final String name, final char separator) {
+        final String value = getRawProperty(name);
+
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<String> items = new ArrayList<>();
+        int begin = 0;
+        int end;
+        String item;
+
+        while (begin <= value.length()) {
+            end = value.indexOf(separator, begin);
+
+            if (end == -1) {
+                end = value.length();
+            }
+
+            item = value.substring(begin, end).trim();
+
+            if (!item.isEmpty()) {
+                items.add(item);
+            }
+
+            begin = end + 1;
+        }
+
+        return Collections.unmodifiableList(items);
+    }
+
+    private long getLongProperty(final String name, final long defaultValue) throws SQLException {
+        final String value = getRawProperty(name);
+
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid " + name + ": " + value, e);
+        }
+    }
+
+}
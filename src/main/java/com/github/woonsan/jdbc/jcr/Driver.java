@@ -19,22 +19,46 @@
 package com.github.woonsan.jdbc.jcr;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.URLDecoder;
 import java.sql.Connection;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
-import java.util.Enumeration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import javax.jcr.Credentials;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
 import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
+import javax.jcr.RepositoryFactory;
 import javax.jcr.Session;
 import javax.jcr.SimpleCredentials;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.RowIterator;
 
 import org.apache.jackrabbit.commons.JcrUtils;
 import org.apache.jackrabbit.core.TransientRepository;
@@ -55,60 +79,216 @@ public class Driver implements java.sql.Driver {
 
     protected static final String CONNECTION_PROP_WORKSPACE = "WORKSPACE";
 
+    protected static final String CONNECTION_PROP_VALIDATION_CACHE_TIME = "VALIDATIONCACHETIME";
+
+    protected static final String CONNECTION_PROP_READ_ONLY_SESSIONS = "READONLYSESSIONS";
+
+    protected static final String CONNECTION_PROP_READ_ONLY_SESSION_TIMEOUT = "READONLYSESSIONTIMEOUT";
+
     protected static final String REPO_CONF_PROPERTY = "REPOSITORY.CONF";
 
     protected static final String REPO_HOME_PROPERTY = "REPOSITORY.HOME";
 
-    private volatile Map<Properties, Repository> repositoryMap = new ConcurrentHashMap<>();
+    protected static final String REPO_IDLE_TIMEOUT_PROPERTY = "REPOSITORY.IDLETIMEOUT";
 
-    @Override
-    public Connection connect(String url, Properties info) throws SQLException {
-        final Properties connProps = readConnectionProperties(url, info);
+    /**
+     * Warm-up items of a repository, separated by <code>|</code>, each of which is either a node path
+     * (starting with <code>/</code>) to read the node and its children or a JCR-SQL2 query to run.
+     */
+    protected static final String REPO_WARMUP_PROPERTY = "REPOSITORY.WARMUP";
+
+    protected static final String REMOTE_BATCH_READ_DEPTH_PROPERTY = "REMOTE.BATCHREADDEPTH";
+
+    protected static final String REMOTE_ITEM_INFO_CACHE_SIZE_PROPERTY = "REMOTE.ITEMINFOCACHESIZE";
+
+    protected static final String REMOTE_ITEM_CACHE_SIZE_PROPERTY = "REMOTE.ITEMCACHESIZE";
+
+    protected static final String REMOTE_MAX_CONNECTIONS_PROPERTY = "REMOTE.MAXCONNECTIONS";
+
+    /**
+     * Location prefix of the load-balanced locations separated by commas, the first of which is the primary
+     * and the others are read replicas.
+     * e.g, <code>jdbc:jcr:loadbalance:http://primary/server,http://replica/server</code>.
+     */
+    protected static final String LOAD_BALANCE_LOCATION_PREFIX = "loadbalance:";
+
+    protected static final String LOAD_BALANCE_RETRY_INTERVAL_PROPERTY = "LOADBALANCE.RETRYINTERVAL";
+
+    /**
+     * Default time in milliseconds for which a load-balanced location failing to connect is not tried again first.
+     */
+    protected static final long DEFAULT_LOAD_BALANCE_RETRY_INTERVAL = 30L * 1000L;
+
+    private static final String SPI2DAVEX_BATCH_READ_CONFIG_PARAM = "org.apache.jackrabbit.spi2davex.BatchReadConfig";
+
+    private static final String SPI2DAVEX_BATCH_READ_CONFIG_CLASS = "org.apache.jackrabbit.spi2davex.BatchReadConfig";
 
-        String username = connProps.getProperty(CONNECTION_PROP_USERNAME);
+    private static final String SPI2DAVEX_ITEM_INFO_CACHE_SIZE_PARAM =
+            "org.apache.jackrabbit.spi2davex.ItemInfoCacheSize";
 
-        if (username == null) {
-            username = connProps.getProperty(CONNECTION_PROP_USER);
+    private static final String SPI2DAVEX_MAX_CONNECTIONS_PARAM = "org.apache.jackrabbit.spi2davex.MaxConnections";
+
+    private static final String JCR2SPI_ITEM_CACHE_SIZE_PARAM = "org.apache.jackrabbit.jcr2spi.ItemCacheSize";
+
+    /**
+     * Default time in milliseconds after which a cached repository having no open connection is evicted.
+     */
+    protected static final long DEFAULT_REPO_IDLE_TIMEOUT = 10L * 60L * 1000L;
+
+    private static final int MAX_URL_CONFIG_CACHE_SIZE = 256;
+
+    private static ScheduledThreadPoolExecutor idleRepositorySweeper;
+
+    /**
+     * Cached repositories keyed by the repository identity (location, configuration and home),
+     * regardless of the credentials and workspace of the connections. Each repository is initialized
+     * by the first connecting thread while the others for the same key wait on the future.
+     */
+    private final ConcurrentMap<List<String>, Future<RepositoryEntry>> repositoryMap = new ConcurrentHashMap<>();
+
+    /**
+     * Immutable connection configurations parsed from the URLs, keyed by the URL strings, evicting the least
+     * recently used one. URLs carrying a password are never cached, not to keep the passwords in this driver.
+     */
+    private final Map<String, ConnectionConfig> urlConfigCache = new LinkedHashMap<String, ConnectionConfig>(16,
+            0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ConnectionConfig> eldest) {
+            return size() > MAX_URL_CONFIG_CACHE_SIZE;
         }
+    };
 
-        String password = connProps.getProperty(CONNECTION_PROP_PASSWORD);
+    private final Lock urlConfigCacheLock = new ReentrantLock();
 
-        if (password == null) {
-            password = "";
+    /**
+     * Load balancers keyed by the load-balanced locations, tracking the health of the locations.
+     */
+    private final ConcurrentMap<List<String>, LoadBalancer> loadBalancerMap = new ConcurrentHashMap<>();
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        final ConnectionConfig config = readConnectionConfig(url, info);
+
+        if (config.isLoadBalanced()) {
+            return connectLoadBalanced(config);
         }
 
-        String workspace = connProps.getProperty(CONNECTION_PROP_WORKSPACE);
+        return connect(config);
+    }
+
+    /**
+     * Connects to the single location of the configuration.
+     * @param config connection configuration of a single location
+     * @return a connection to the location
+     * @throws SQLException if it fails to connect
+     */
+    protected JcrJdbcConnection connect(final ConnectionConfig config) throws SQLException {
+        final Credentials credentials = getCredentials(config);
 
-        Credentials credentials = null;
+        RepositoryEntry entry = getRepositoryEntry(config);
 
-        if (username != null && !"".equals(username)) {
-            credentials = new SimpleCredentials(username, password.toCharArray());
+        while (!entry.acquire()) {
+            // evicted in the meantime.
+            entry = getRepositoryEntry(config);
         }
 
-        Repository repository = getRepository(connProps);
-        Session jcrSession = null;
+        final RepositoryEntry acquiredEntry = entry;
 
         try {
-            if (credentials == null) {
-                if (workspace == null || "".equals(workspace)) {
-                    jcrSession = repository.login();
-                } else {
-                    jcrSession = repository.login(workspace);
-                }
-            } else {
-                if (workspace == null || "".equals(workspace)) {
-                    jcrSession = repository.login(credentials);
-                } else {
-                    jcrSession = repository.login(credentials, workspace);
+            final Session jcrSession = login(entry.repository, credentials, config.getWorkspace());
+
+            final JcrJdbcConnection conn = new JcrJdbcConnection(jcrSession, credentials, new Runnable() {
+                @Override
+                public void run() {
+                    releaseRepositoryEntry(acquiredEntry);
                 }
+            });
+            conn.setValidationCacheTime(config.getValidationCacheTime());
+
+            if (config.getReadOnlySessions() > 0) {
+                conn.setReadOnlySessions(config.getReadOnlySessions());
+                conn.setReadOnlySessionTimeout(config.getReadOnlySessionTimeout());
             }
 
-            return new JcrJdbcConnection(jcrSession);
+            return conn;
         } catch (RepositoryException e) {
+            releaseRepositoryEntry(acquiredEntry);
             throw new SQLException("Cannot login to JCR Repository. " + e.toString(), e);
         }
     }
 
+    /**
+     * Connects to a read replica of the load-balanced locations, failing over to the next location if it fails
+     * to connect. A connection made writable by <code>Connection#setReadOnly(false)</code> opens another connection
+     * to the primary, to which the changes are saved.
+     */
+    private Connection connectLoadBalanced(final ConnectionConfig config) throws SQLException {
+        final LoadBalancer balancer = getLoadBalancer(config);
+        SQLException failure = null;
+        JcrJdbcConnection conn;
+
+        for (String location : balancer.getReadLocations()) {
+            try {
+                conn = connect(config.withLocation(location));
+            } catch (SQLException e) {
+                balancer.markFailed(location);
+
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.setNextException(e);
+                }
+
+                continue;
+            }
+
+            balancer.markSucceeded(location);
+
+            conn.setPrimaryConnector(new Callable<JcrJdbcConnection>() {
+                @Override
+                public JcrJdbcConnection call() throws SQLException {
+                    final String primaryLocation = balancer.getPrimaryLocation();
+
+                    try {
+                        final JcrJdbcConnection primaryConn = connect(config.withLocation(primaryLocation));
+                        balancer.markSucceeded(primaryLocation);
+                        return primaryConn;
+                    } catch (SQLException e) {
+                        balancer.markFailed(primaryLocation);
+                        throw e;
+                    }
+                }
+            });
+
+            return conn;
+        }
+
+        throw failure;
+    }
+
+    LoadBalancer getLoadBalancer(final ConnectionConfig config) throws SQLException {
+        final List<String> locations = config.getLocations();
+
+        if (locations.isEmpty()) {
+            throw new SQLException("No location to load-balance: " + config.getLocation());
+        }
+
+        LoadBalancer balancer = loadBalancerMap.get(locations);
+
+        if (balancer == null) {
+            balancer = new LoadBalancer(locations, config.getLoadBalanceRetryInterval());
+            final LoadBalancer existing = loadBalancerMap.putIfAbsent(locations, balancer);
+
+            if (existing != null) {
+                balancer = existing;
+            }
+        }
+
+        return balancer;
+    }
+
     @Override
     public boolean acceptsURL(String url) throws SQLException {
         return url != null && url.startsWith(JDBC_JCR_URL_PREFIX);
@@ -139,71 +319,93 @@ public class Driver implements java.sql.Driver {
         throw new SQLFeatureNotSupportedException();
     }
 
-    public synchronized void shutdownTransientRepositories() {
-        for (Repository repository : repositoryMap.values()) {
-            if (repository instanceof TransientRepository) {
-                ((TransientRepository) repository).shutdown();
+    public void shutdownTransientRepositories() {
+        RepositoryEntry entry;
+
+        for (Future<RepositoryEntry> future : repositoryMap.values()) {
+            entry = getInitializedEntry(future);
+
+            if (entry != null && entry.repository instanceof TransientRepository) {
+                entry.evict();
+                repositoryMap.remove(entry.key, future);
+                ((TransientRepository) entry.repository).shutdown();
             }
         }
     }
 
-    protected Repository getRepository(final Properties connProps) throws SQLException {
-        Map<Properties, Repository> repoMap = repositoryMap;
-        Repository repository = repoMap.get(connProps);
-
-        if (repository == null) {
-            synchronized (this) {
-                repoMap = repositoryMap;
-                repository = repoMap.get(connProps);
-
-                if (repository == null) {
-                    try {
-                        Repository repo = null;
-
-                        final String location = connProps.getProperty(CONNECTION_PROP_LOCATION);
-
-                        if (location == null || "".equals(location.trim())) {
-                            repo = getTransientRepository(connProps);
-                        } else {
-                            repo = JcrUtils.getRepository(location);
-                        }
+    /**
+     * Returns the statistics of the cached repositories.
+     * @return the statistics of the cached repositories
+     */
+    public List<RepositoryStats> getRepositoryStats() {
+        final List<RepositoryStats> statsList = new ArrayList<>();
+        RepositoryEntry entry;
 
-                        repoMap.put(connProps, repo);
-                        repositoryMap = repoMap;
+        for (Future<RepositoryEntry> future : repositoryMap.values()) {
+            entry = getInitializedEntry(future);
 
-                        repository = repo;
-                    } catch (RepositoryException e) {
-                        throw new SQLException("Cannot get JCR repository. " + e.toString(), e);
-                    }
-                }
+            if (entry != null) {
+                statsList.add(entry.getStats());
             }
         }
 
-        return repository;
+        return statsList;
+    }
+
+    protected Repository getRepository(final ConnectionConfig config) throws SQLException {
+        return getRepositoryEntry(config).repository;
     }
 
     protected Properties readConnectionProperties(final String url, final Properties info) throws SQLException {
+        return readConnectionConfig(url, info).toProperties();
+    }
+
+    /**
+     * Reads the connection configuration from the URL and the connection properties.
+     * The URL is parsed once and cached unless it carries a password, and the connection properties are merged
+     * into it on each call.
+     * @param url JDBC URL
+     * @param info connection properties, overridden by the parameters in the URL
+     * @return the connection configuration
+     * @throws SQLException if the URL is invalid
+     */
+    protected ConnectionConfig readConnectionConfig(final String url, final Properties info) throws SQLException {
         if (url == null || !url.startsWith(JDBC_JCR_URL_PREFIX)) {
             throw new SQLException(
                     "Invalid jdbc-jcr URL: '" + url + "'. Must start with '" + JDBC_JCR_URL_PREFIX + "'.");
         }
 
-        Properties props = new Properties();
+        ConnectionConfig urlConfig;
+        urlConfigCacheLock.lock();
 
-        String key;
-        String value;
+        try {
+            urlConfig = urlConfigCache.get(url);
+        } finally {
+            urlConfigCacheLock.unlock();
+        }
 
-        if (info != null) {
-            for (Enumeration<?> propNames = info.propertyNames(); propNames.hasMoreElements();) {
-                key = (String) propNames.nextElement();
-                value = info.getProperty(key);
+        if (urlConfig == null) {
+            urlConfig = parseURL(url);
 
-                if (value != null) {
-                    props.setProperty(key.toUpperCase(), value);
+            if (urlConfig.getProperty(CONNECTION_PROP_PASSWORD) == null) {
+                urlConfigCacheLock.lock();
+
+                try {
+                    urlConfigCache.put(url, urlConfig);
+                } finally {
+                    urlConfigCacheLock.unlock();
                 }
             }
         }
 
+        return urlConfig.merge(info);
+    }
+
+    private static ConnectionConfig parseURL(final String url) throws SQLException {
+        final Map<String, String> props = new HashMap<>();
+
+        String key;
+        String value;
         String delimiter = "&";
 
         int paramOffset = url.indexOf('?');
@@ -228,7 +430,7 @@ public class Driver implements java.sql.Driver {
                     try {
                         key = keyValuePair.substring(0, offset).trim();
                         value = URLDecoder.decode(keyValuePair.substring(offset + 1).trim(), "UTF-8");
-                        props.setProperty(key.toUpperCase(), value);
+                        props.put(key.toUpperCase(), value);
                     } catch (UnsupportedEncodingException e) {
                         e.printStackTrace();
                     }
@@ -244,14 +446,299 @@ public class Driver implements java.sql.Driver {
             location = url.substring(JDBC_JCR_URL_PREFIX.length());
         }
 
-        props.setProperty(CONNECTION_PROP_LOCATION, location);
+        props.put(CONNECTION_PROP_LOCATION, location);
 
-        return props;
+        return new ConnectionConfig(props);
     }
 
-    private Repository getTransientRepository(final Properties connProps) throws RepositoryException {
-        String repoConfProp = connProps.getProperty(REPO_CONF_PROPERTY.toUpperCase(), null);
-        String repoHomeProp = connProps.getProperty(REPO_HOME_PROPERTY.toUpperCase(), null);
+    private RepositoryEntry getRepositoryEntry(final ConnectionConfig config) throws SQLException {
+        final List<String> key = config.getRepositoryKey();
+        Future<RepositoryEntry> future = repositoryMap.get(key);
+
+        if (future == null) {
+            final FutureTask<RepositoryEntry> task = new FutureTask<>(new Callable<RepositoryEntry>() {
+                @Override
+                public RepositoryEntry call() throws Exception {
+                    return createRepositoryEntry(key, config);
+                }
+            });
+
+            future = repositoryMap.putIfAbsent(key, task);
+
+            if (future == null) {
+                future = task;
+                task.run();
+            }
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while getting JCR repository.", e);
+        } catch (ExecutionException e) {
+            // not to cache the failure, but to retry on the next connection.
+            repositoryMap.remove(key, future);
+
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+
+            throw new SQLException("Cannot get JCR repository. " + e.getCause().toString(), e.getCause());
+        }
+    }
+
+    private RepositoryEntry createRepositoryEntry(final List<String> key, final ConnectionConfig config)
+            throws SQLException {
+        try {
+            Repository repo = null;
+
+            if (config.isTransient()) {
+                repo = getTransientRepository(config);
+            } else if (config.isRemote()) {
+                repo = getRemoteRepository(config);
+            } else {
+                repo = JcrUtils.getRepository(config.getLocation());
+            }
+
+            final RepositoryEntry entry = new RepositoryEntry(key, repo, config.getRepositoryIdleTimeout(),
+                    config.getRepositoryWarmUpItems().size());
+
+            if (!config.getRepositoryWarmUpItems().isEmpty()) {
+                startWarmUp(entry, config);
+            }
+
+            return entry;
+        } catch (RepositoryException e) {
+            throw new SQLException("Cannot get JCR repository. " + e.toString(), e);
+        }
+    }
+
+    /**
+     * Starts warming up the repository in a background thread by reading the nodes at the paths
+     * and running the queries of the warm-up items, with the credentials and workspace of the configuration.
+     */
+    private static void startWarmUp(final RepositoryEntry entry, final ConnectionConfig config) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Session session = null;
+
+                try {
+                    session = login(entry.repository, getCredentials(config), config.getWorkspace());
+
+                    for (String item : config.getRepositoryWarmUpItems()) {
+                        if (entry.isEvicted()) {
+                            break;
+                        }
+
+                        try {
+                            warmUp(session, item);
+                            entry.warmUpItemCompleted();
+                        } catch (RepositoryException | RuntimeException e) {
+                            entry.warmUpItemFailed();
+                        }
+                    }
+                } catch (RepositoryException | RuntimeException e) {
+                    entry.warmUpFailed();
+                } finally {
+                    if (session != null) {
+                        session.logout();
+                    }
+
+                    // done only after the logout, which may stop a transient repository.
+                    entry.warmUpDone();
+                }
+            }
+        }, "jdbc-jcr-repository-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void warmUp(final Session session, final String item) throws RepositoryException {
+        if (item.startsWith("/")) {
+            final Node node = session.getNode(item);
+
+            for (NodeIterator nodeIt = node.getNodes(); nodeIt.hasNext();) {
+                nodeIt.nextNode();
+            }
+        } else {
+            final QueryManager queryManager = session.getWorkspace().getQueryManager();
+            final QueryResult result = queryManager.createQuery(item, Query.JCR_SQL2).execute();
+
+            for (RowIterator rowIt = result.getRows(); rowIt.hasNext();) {
+                rowIt.nextRow();
+            }
+        }
+    }
+
+    private void releaseRepositoryEntry(final RepositoryEntry entry) {
+        if (entry.release() && entry.idleTimeout > 0) {
+            getIdleRepositorySweeper().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    evictRepositoryEntryIfIdle(entry);
+                }
+            }, entry.idleTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void evictRepositoryEntryIfIdle(final RepositoryEntry entry) {
+        if (entry.evictIfIdle(System.currentTimeMillis())) {
+            final Future<RepositoryEntry> future = repositoryMap.get(entry.key);
+
+            if (future != null && getInitializedEntry(future) == entry) {
+                repositoryMap.remove(entry.key, future);
+            }
+
+            if (entry.repository instanceof TransientRepository) {
+                ((TransientRepository) entry.repository).shutdown();
+            }
+        }
+    }
+
+    /**
+     * Returns the repository entry of the future if initialized successfully, or null otherwise.
+     */
+    private static RepositoryEntry getInitializedEntry(final Future<RepositoryEntry> future) {
+        if (!future.isDone()) {
+            return null;
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getIdleRepositorySweeper() {
+        if (idleRepositorySweeper == null) {
+            idleRepositorySweeper = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "jdbc-jcr-idle-repository-sweeper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            idleRepositorySweeper.setKeepAliveTime(60L, TimeUnit.SECONDS);
+            idleRepositorySweeper.allowCoreThreadTimeOut(true);
+            idleRepositorySweeper.setRemoveOnCancelPolicy(true);
+        }
+
+        return idleRepositorySweeper;
+    }
+
+    private static Credentials getCredentials(final ConnectionConfig config) {
+        if (config.getUsername() == null) {
+            return null;
+        }
+
+        return new SimpleCredentials(config.getUsername(), config.getPassword().toCharArray());
+    }
+
+    private static Session login(final Repository repository, final Credentials credentials, final String workspace)
+            throws RepositoryException {
+        if (credentials == null) {
+            if (workspace == null) {
+                return repository.login();
+            } else {
+                return repository.login(workspace);
+            }
+        } else {
+            if (workspace == null) {
+                return repository.login(credentials);
+            } else {
+                return repository.login(credentials, workspace);
+            }
+        }
+    }
+
+    /**
+     * Returns the remote repository by the {@link RepositoryFactory}s with the SPI2DAVex and JCR2SPI parameters
+     * in the configuration. The parameters are not typed by the SPI2DAVex classes not to require them in compile time.
+     */
+    static Repository getRemoteRepository(final ConnectionConfig config) throws RepositoryException {
+        final Map<String, Object> params = getRemoteRepositoryParameters(config);
+        Repository repo;
+
+        for (RepositoryFactory factory : ServiceLoader.load(RepositoryFactory.class)) {
+            repo = factory.getRepository(params);
+
+            if (repo != null) {
+                return repo;
+            }
+        }
+
+        throw new RepositoryException("Unable to access a remote repository with the parameters: " + params);
+    }
+
+    static Map<String, Object> getRemoteRepositoryParameters(final ConnectionConfig config) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(JcrUtils.REPOSITORY_URI, config.getLocation());
+
+        if (config.getRemoteBatchReadDepth() >= 0) {
+            final Object batchReadConfig = createBatchReadConfig(config.getRemoteBatchReadDepth());
+
+            if (batchReadConfig != null) {
+                params.put(SPI2DAVEX_BATCH_READ_CONFIG_PARAM, batchReadConfig);
+            }
+        }
+
+        if (config.getRemoteItemInfoCacheSize() > 0) {
+            params.put(SPI2DAVEX_ITEM_INFO_CACHE_SIZE_PARAM, Integer.toString(config.getRemoteItemInfoCacheSize()));
+        }
+
+        if (config.getRemoteItemCacheSize() > 0) {
+            params.put(JCR2SPI_ITEM_CACHE_SIZE_PARAM, Integer.toString(config.getRemoteItemCacheSize()));
+        }
+
+        if (config.getRemoteMaxConnections() > 0) {
+            params.put(SPI2DAVEX_MAX_CONNECTIONS_PARAM, Integer.toString(config.getRemoteMaxConnections()));
+        }
+
+        return params;
+    }
+
+    /**
+     * Creates a SPI2DAVex <code>BatchReadConfig</code> reading the node states to the fixed depth for any path,
+     * or returns null if SPI2DAVex is not available.
+     */
+    private static Object createBatchReadConfig(final int depth) {
+        final Class<?> configClass;
+
+        try {
+            configClass = Class.forName(SPI2DAVEX_BATCH_READ_CONFIG_CLASS, true, Driver.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+
+        return Proxy.newProxyInstance(configClass.getClassLoader(), new Class<?>[] { configClass },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getDepth".equals(method.getName())) {
+                            return depth;
+                        } else if ("equals".equals(method.getName())) {
+                            return proxy == args[0];
+                        } else if ("hashCode".equals(method.getName())) {
+                            return System.identityHashCode(proxy);
+                        } else if ("toString".equals(method.getName())) {
+                            return "BatchReadConfig [depth=" + depth + "]";
+                        }
+
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private Repository getTransientRepository(final ConnectionConfig config) throws RepositoryException {
+        String repoConfProp = config.getRepositoryConf();
+        String repoHomeProp = config.getRepositoryHome();
 
         if (repoConfProp == null || repoHomeProp == null) {
             throw new RepositoryException(
@@ -262,4 +749,101 @@ public class Driver implements java.sql.Driver {
         return new TransientRepository(repoConfProp, repoHomeProp);
     }
 
+    /**
+     * Cached repository, counting the open connections to evict the repository after idle for a while.
+     */
+    private static class RepositoryEntry {
+
+        private final List<String> key;
+        private final Repository repository;
+        private final long idleTimeout;
+        private final long createdTime;
+        private int openConnections;
+        private long totalConnections;
+        private long idleSince;
+        private boolean evicted;
+        private final int warmUpItems;
+        private int warmUpCompletedItems;
+        private int warmUpFailedItems;
+        private boolean warmUpDone;
+
+        RepositoryEntry(final List<String> key, final Repository repository, final long idleTimeout,
+                final int warmUpItems) {
+            this.key = key;
+            this.repository = repository;
+            this.idleTimeout = idleTimeout;
+            this.warmUpItems = warmUpItems;
+            warmUpDone = warmUpItems == 0;
+            createdTime = System.currentTimeMillis();
+            idleSince = createdTime;
+        }
+
+        synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+
+            ++openConnections;
+            ++totalConnections;
+            idleSince = 0L;
+            return true;
+        }
+
+        /**
+         * Releases a connection, and returns true if no connection is open any more.
+         */
+        synchronized boolean release() {
+            if (openConnections > 0 && --openConnections == 0) {
+                idleSince = System.currentTimeMillis();
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Evicts this entry if idle for the idle timeout, and returns true if evicted by this call.
+         */
+        synchronized boolean evictIfIdle(final long now) {
+            if (!evicted && openConnections == 0 && idleSince > 0L && now - idleSince >= idleTimeout) {
+                evicted = true;
+                return true;
+            }
+
+            return false;
+        }
+
+        synchronized void evict() {
+            evicted = true;
+        }
+
+        synchronized boolean isEvicted() {
+            return evicted;
+        }
+
+        synchronized void warmUpItemCompleted() {
+            ++warmUpCompletedItems;
+        }
+
+        synchronized void warmUpItemFailed() {
+            ++warmUpFailedItems;
+        }
+
+        /**
+         * Marks all the remaining warm-up items as failed.
+         */
+        synchronized void warmUpFailed() {
+            warmUpFailedItems = warmUpItems - warmUpCompletedItems;
+        }
+
+        synchronized void warmUpDone() {
+            warmUpDone = true;
+        }
+
+        synchronized RepositoryStats getStats() {
+            return new RepositoryStats(key.get(0), key.get(1), key.get(2), openConnections, totalConnections,
+                    createdTime, idleSince, warmUpItems, warmUpCompletedItems, warmUpFailedItems, warmUpDone);
+        }
+    }
+
 }
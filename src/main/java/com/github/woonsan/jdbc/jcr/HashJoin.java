@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr;
+
+import java.io.File;
+
+/**
+ * Client-side (driver-side) hash join definition executed by {@link JcrStatement#executeHashJoin(HashJoin)}.
+ * <p>
+ * The right side is used as the build side of the hash join and the left side is streamed as the probe side,
+ * so the smaller side should be put on the right. When the build side exceeds {@link #getMaxInMemoryRows()},
+ * both sides are spilled into partition files in the spill directory and joined partition by partition.
+ * In that case, the order of the joined rows is not preserved.
+ * <p>
+ * The join column of each side must be either a column of the side query or a meta-column
+ * such as <code>jcr:path</code>, <code>jcr:name</code> or <code>jcr:uuid</code>.
+ * Rows are joined when the string representations of the join column values are equal (inner join).
+ */
+public class HashJoin {
+
+    public static final int DEFAULT_MAX_IN_MEMORY_ROWS = 10000;
+
+    private final String leftSelectorName;
+    private final String leftStatement;
+    private final String leftJoinColumn;
+    private String leftWorkspace;
+
+    private final String rightSelectorName;
+    private final String rightStatement;
+    private final String rightJoinColumn;
+    private String rightWorkspace;
+
+    private int maxInMemoryRows = DEFAULT_MAX_IN_MEMORY_ROWS;
+    private File spillDirectory;
+
+    public HashJoin(final String leftSelectorName, final String leftStatement, final String leftJoinColumn,
+            final String rightSelectorName, final String rightStatement, final String rightJoinColumn) {
+        if (leftSelectorName == null || leftStatement == null || leftJoinColumn == null) {
+            throw new IllegalArgumentException("Left selector name, statement and join column must be provided.");
+        }
+
+        if (rightSelectorName == null || rightStatement == null || rightJoinColumn == null) {
+            throw new IllegalArgumentException("Right selector name, statement and join column must be provided.");
+        }
+
+        if (leftSelectorName.equals(rightSelectorName)) {
+            throw new IllegalArgumentException("Selector names must be different: " + leftSelectorName);
+        }
+
+        this.leftSelectorName = leftSelectorName;
+        this.leftStatement = leftStatement;
+        this.leftJoinColumn = leftJoinColumn;
+        this.rightSelectorName = rightSelectorName;
+        this.rightStatement = rightStatement;
+        this.rightJoinColumn = rightJoinColumn;
+    }
+
+    public String getLeftSelectorName() {
+        return leftSelectorName;
+    }
+
+    public String getLeftStatement() {
+        return leftStatement;
+    }
+
+    public String getLeftJoinColumn() {
+        return leftJoinColumn;
+    }
+
+    /**
+     * Returns the workspace name to run the left side query against.
+     * If null, the workspace of the connection is used.
+     * @return the workspace name to run the left side query against
+     */
+    public String getLeftWorkspace() {
+        return leftWorkspace;
+    }
+
+    public void setLeftWorkspace(String leftWorkspace) {
+        this.leftWorkspace = leftWorkspace;
+    }
+
+    public String getRightSelectorName() {
+        return rightSelectorName;
+    }
+
+    public String getRightStatement() {
+        return rightStatement;
+    }
+
+    public String getRightJoinColumn() {
+        return rightJoinColumn;
+    }
+
+    /**
+     * Returns the workspace name to run the right side query against.
+     * If null, the workspace of the connection is used.
+     * @return the workspace name to run the right side query against
+     */
+    public String getRightWorkspace() {
+        return rightWorkspace;
+    }
+
+    public void setRightWorkspace(String rightWorkspace) {
+        this.rightWorkspace = rightWorkspace;
+    }
+
+    /**
+     * Returns the maximum number of build side (right side) rows kept in memory before spilling to disk.
+     * @return the maximum number of build side rows kept in memory
+     */
+    public int getMaxInMemoryRows() {
+        return maxInMemoryRows;
+    }
+
+    public void setMaxInMemoryRows(int maxInMemoryRows) {
+        if (maxInMemoryRows < 0) {
+            throw new IllegalArgumentException("Invalid negative value.");
+        }
+
+        this.maxInMemoryRows = maxInMemoryRows;
+    }
+
+    /**
+     * Returns the directory where the spill files are created in.
+     * If null, the default temporary-file directory is used.
+     * @return the directory where the spill files are created in
+     */
+    public File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public void setSpillDirectory(File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.sql.Array;
+import java.sql.SQLException;
+
+/**
+ * JCR multi-value Property based {@link Array} interface.
+ * <p>
+ * The values are converted lazily, only the elements requested, so a slice of a huge multi-value property
+ * can be read without converting all the values. The buffer views share the converted values without copying.
+ */
+public interface JcrArray extends Array {
+
+    /**
+     * Returns the number of the values of the multi-value property.
+     * @return the number of the values of the multi-value property
+     * @throws SQLException if the array has been freed or the values cannot be read
+     */
+    public int getLength() throws SQLException;
+
+    /**
+     * Returns a read-only {@link LongBuffer} view of the <code>count</code> values starting at <code>index</code>
+     * of a <code>LONG</code> type multi-value property, or the epoch milliseconds of a <code>DATE</code> type one,
+     * without copying the values.
+     * @param index the one-based index of the first value of the view
+     * @param count the number of values of the view
+     * @return a read-only {@link LongBuffer} view of the values
+     * @throws SQLException if the property is neither of <code>LONG</code> nor <code>DATE</code> type,
+     *         or the index and count are out of bounds
+     */
+    public LongBuffer getLongBuffer(long index, int count) throws SQLException;
+
+    /**
+     * Returns a read-only {@link DoubleBuffer} view of the <code>count</code> values starting at <code>index</code>
+     * of a <code>DOUBLE</code> type multi-value property, without copying the values.
+     * @param index the one-based index of the first value of the view
+     * @param count the number of values of the view
+     * @return a read-only {@link DoubleBuffer} view of the values
+     * @throws SQLException if the property is not of <code>DOUBLE</code> type or the index and count are out of bounds
+     */
+    public DoubleBuffer getDoubleBuffer(long index, int count) throws SQLException;
+
+}
@@ -19,7 +19,10 @@
 package com.github.woonsan.jdbc.jcr;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
 
+import javax.jcr.Node;
 import javax.jcr.Session;
 
 /**
@@ -27,10 +30,130 @@ import javax.jcr.Session;
  */
 public interface JcrConnection extends Connection {
 
+    /**
+     * Client info property name to impersonate a user by {@link Connection#setClientInfo(String, String)},
+     * equivalent to {@link #impersonate(String)}.
+     */
+    public static final String CLIENT_INFO_USER = "jcr.user";
+
     /**
      * Returns the underlying JCR session used in this connection.
      * @return the underlying JCR session used in this connection
      */
     public Session getSession();
 
+    /**
+     * Returns a JCR session for the given workspace.
+     * If the workspace is different from the workspace of {@link #getSession()}, a new JCR session is logged in
+     * to the workspace with the credentials of this connection. The session is reused until this connection is closed.
+     * @param workspaceName workspace name. If null, the session of this connection is returned.
+     * @return a JCR session for the given workspace
+     * @throws SQLException if this connection was closed or it fails to log in to the workspace
+     */
+    public Session getSession(String workspaceName) throws SQLException;
+
+    /**
+     * Resolves the nodes by the identifiers (e.g, read from the <code>jcr:uuid</code> column in an identifier-only
+     * scan, see {@link JcrStatement#setIdentifierOnlyScan(boolean)}) in batches, by a bounded pool of worker
+     * threads if there are more identifiers than a batch.
+     * Each worker looks up the nodes of its batch through its own JCR session logged in with the credentials
+     * of this connection, and the found nodes are then loaded by the session of this connection, so the returned
+     * nodes always belong to the session of this connection. The worker threads and sessions are released when
+     * this connection is closed.
+     * @param identifiers node identifiers
+     * @return the nodes of the session of this connection in the same order of the identifiers, having null for
+     * a node not found
+     * @throws SQLException if this connection was closed or it fails to resolve the nodes
+     */
+    public List<Node> getNodesByIdentifier(List<String> identifiers) throws SQLException;
+
+    /**
+     * Sets the maximum number of worker threads to resolve nodes in {@link #getNodesByIdentifier(List)}.
+     * @param maxWorkers the maximum number of worker threads. If one, nodes are resolved in the calling thread.
+     * @throws SQLException if this connection was closed or <code>maxWorkers</code> is less than one
+     */
+    public void setNodeResolverMaxWorkers(int maxWorkers) throws SQLException;
+
+    /**
+     * Returns the maximum number of worker threads to resolve nodes in {@link #getNodesByIdentifier(List)}.
+     * @return the maximum number of worker threads to resolve nodes
+     * @throws SQLException if this connection was closed
+     */
+    public int getNodeResolverMaxWorkers() throws SQLException;
+
+    /**
+     * Sets the maximum number of read-only sessions shared by the statements of this connection.
+     * If greater than zero, each query borrows a read-only session, logged in with the credentials of this
+     * connection to the same workspace, and returns it when the result set is closed, so a single connection
+     * can serve concurrent read-only queries from multiple threads by a small number of sessions.
+     * A query waits until a session is returned if all the read-only sessions are in use, up to
+     * {@link #getReadOnlySessionTimeout()}. The read-only sessions are shared by all the connections with the same
+     * credentials, workspace and maximum number of read-only sessions to the same repository.
+     * The nodes read from those result sets belong to the read-only sessions, so are meant to be read only.
+     * @param readOnlySessions the maximum number of read-only sessions, or zero to run queries by the session
+     *        of this connection
+     * @throws SQLException if this connection was closed or <code>readOnlySessions</code> is negative
+     */
+    public void setReadOnlySessions(int readOnlySessions) throws SQLException;
+
+    /**
+     * Returns the maximum number of read-only sessions shared by the statements of this connection.
+     * @return the maximum number of read-only sessions, or zero if queries are run by the session of this connection
+     * @throws SQLException if this connection was closed
+     */
+    public int getReadOnlySessions() throws SQLException;
+
+    /**
+     * Sets the maximum time in milliseconds for which a query waits for a read-only session to be returned
+     * if all the read-only sessions are in use. As a read-only session is returned only when the result set is
+     * closed, a query fails after the timeout instead of waiting forever, for instance, for the result sets
+     * still open in the same thread.
+     * @param readOnlySessionTimeout the maximum time in milliseconds to wait for a read-only session
+     * @throws SQLException if this connection was closed
+     */
+    public void setReadOnlySessionTimeout(long readOnlySessionTimeout) throws SQLException;
+
+    /**
+     * Returns the maximum time in milliseconds for which a query waits for a read-only session to be returned.
+     * @return the maximum time in milliseconds to wait for a read-only session
+     * @throws SQLException if this connection was closed
+     */
+    public long getReadOnlySessionTimeout() throws SQLException;
+
+    /**
+     * Switches this connection to a session impersonating the user by
+     * {@link Session#impersonate(javax.jcr.Credentials)} from the session this connection logged in with, so that
+     * the following queries are run with the permissions of the user without logging in again. The impersonated
+     * sessions are cached per user, and the least recently used ones without open result sets are logged out when
+     * too many users are impersonated. While impersonating a user, queries are run by
+     * the impersonated session only, neither by read-only sessions nor by node resolver workers, and sessions
+     * for other workspaces are not available.
+     * @param userId the user ID to impersonate, or null to switch back to the session this connection logged in with
+     * @throws SQLException if this connection was closed or the user cannot be impersonated
+     */
+    public void impersonate(String userId) throws SQLException;
+
+    /**
+     * Returns the user ID impersonated by {@link #impersonate(String)}.
+     * @return the user ID impersonated, or null if not impersonating a user
+     * @throws SQLException if this connection was closed
+     */
+    public String getImpersonatedUserId() throws SQLException;
+
+    /**
+     * Sets the time in milliseconds for which a validation result in {@link #isValid(int)} is reused
+     * without validating the session again.
+     * @param validationCacheTime the time in milliseconds to reuse a validation result, or zero or less
+     *        to validate the session every time
+     * @throws SQLException if this connection was closed
+     */
+    public void setValidationCacheTime(long validationCacheTime) throws SQLException;
+
+    /**
+     * Returns the time in milliseconds for which a validation result in {@link #isValid(int)} is reused.
+     * @return the time in milliseconds for which a validation result is reused
+     * @throws SQLException if this connection was closed
+     */
+    public long getValidationCacheTime() throws SQLException;
+
 }
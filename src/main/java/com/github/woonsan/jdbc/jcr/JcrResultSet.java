@@ -36,4 +36,13 @@ public interface JcrResultSet extends ResultSet {
      */
     public Row getCurrentRow() throws SQLException;
 
+    /**
+     * Returns the cursor token to resume a keyset paginated query after the last row read so far,
+     * which can be passed to {@link JcrStatement#executeQueryAfter(String, String)} to fetch the next page.
+     * @return the cursor token to resume after the last row read so far, or null if no row has been read
+     * @throws SQLException if the result set is not from a keyset paginated query,
+     *         or the last row read has no sort key value
+     */
+    public String getCursorToken() throws SQLException;
+
 }
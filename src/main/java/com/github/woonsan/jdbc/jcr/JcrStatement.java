@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JCR Query based {@link Statement} interface.
+ */
+public interface JcrStatement extends Statement {
+
+    /**
+     * Executes the given client-side hash join and returns the joined result.
+     * <p>
+     * Each side of the join is executed as a separate JCR query, possibly against a different workspace,
+     * and the rows are joined in the driver instead of the repository.
+     * The result set contains the columns of both sides, qualified by the selector names of the join.
+     * @param hashJoin hash join definition
+     * @return the joined result set
+     * @throws SQLException if either side query fails or the join cannot be executed
+     */
+    public JcrResultSet executeHashJoin(HashJoin hashJoin) throws SQLException;
+
+    /**
+     * Executes the given JCR-SQL2 query for a page starting after the cursor token (keyset pagination).
+     * <p>
+     * The query must be ordered by a single property (e.g, <code>ORDER BY e.[empno]</code>), preferably
+     * an indexed one. Instead of skipping the rows of the previous pages, the query is rewritten to seek from
+     * the sort key in the cursor token, so each page is fetched in about the same time.
+     * The page size is limited by {@link #getMaxRows()}.
+     * Use {@link JcrResultSet#getCursorToken()} after reading the page to get the token for the next page.
+     * @param sql JCR-SQL2 query statement ordered by a single property
+     * @param cursorToken cursor token from the previous page, or null for the first page
+     * @return the result set of the page
+     * @throws SQLException if the query is not ordered by a single property or the cursor token is invalid
+     */
+    public JcrResultSet executeQueryAfter(String sql, String cursorToken) throws SQLException;
+
+    /**
+     * Sets whether the queries are executed as identifier-only scans.
+     * <p>
+     * In an identifier-only scan, the result set provides only the meta-columns (<code>jcr:path</code>,
+     * <code>jcr:name</code>, <code>jcr:uuid</code> and <code>jcr:score</code>), and never reads the property values
+     * of the rows. This is useful to scan the identifiers first, and load only the selected nodes later by
+     * {@link JcrConnection#getNodesByIdentifier(java.util.List)}.
+     * @param identifierOnlyScan true to execute the queries as identifier-only scans
+     * @throws SQLException if this statement was closed
+     */
+    public void setIdentifierOnlyScan(boolean identifierOnlyScan) throws SQLException;
+
+    /**
+     * Returns true if the queries are executed as identifier-only scans.
+     * @return true if the queries are executed as identifier-only scans
+     * @throws SQLException if this statement was closed
+     */
+    public boolean isIdentifierOnlyScan() throws SQLException;
+
+    /**
+     * Sets whether reading a property not projected by the query raises an error.
+     * <p>
+     * By default, a property which is not in the <code>SELECT</code> list can still be read by a selector qualified
+     * column label (e.g, <code>e.empno</code>), loading the node. In strict projection, only the columns in the
+     * <code>SELECT</code> list and the meta-columns can be read, which keeps the per-row work on wide nodes
+     * bounded by the query.
+     * @param strictProjection true to raise an error on reading a property not projected by the query
+     * @throws SQLException if this statement was closed
+     */
+    public void setStrictProjection(boolean strictProjection) throws SQLException;
+
+    /**
+     * Returns true if reading a property not projected by the query raises an error.
+     * @return true if reading a property not projected by the query raises an error
+     * @throws SQLException if this statement was closed
+     */
+    public boolean isStrictProjection() throws SQLException;
+
+}
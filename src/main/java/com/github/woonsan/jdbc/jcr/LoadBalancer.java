@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load balancer of the locations of a <code>loadbalance:</code> URL, the first of which is the primary
+ * and the others are read replicas.
+ * <p>
+ * Read-only connections are spread over the healthy replicas in round-robin. A location failing to connect is
+ * marked unhealthy for the retry interval, during which it is tried only after the other locations failed.
+ * If no replica is available, read-only connections fail over to the primary.
+ */
+class LoadBalancer {
+
+    private final List<String> locations;
+    private final long retryInterval;
+    private final AtomicInteger counter = new AtomicInteger();
+    private final AtomicLongArray unhealthyUntil;
+    private final AtomicLongArray failures;
+
+    LoadBalancer(final List<String> locations, final long retryInterval) {
+        if (locations.isEmpty()) {
+            throw new IllegalArgumentException("No location to load-balance.");
+        }
+
+        this.locations = Collections.unmodifiableList(new ArrayList<>(locations));
+        this.retryInterval = retryInterval;
+        unhealthyUntil = new AtomicLongArray(locations.size());
+        failures = new AtomicLongArray(locations.size());
+    }
+
+    String getPrimaryLocation() {
+        return locations.get(0);
+    }
+
+    List<String> getLocations() {
+        return locations;
+    }
+
+    /**
+     * Returns the locations to try in order for a read-only connection: the healthy replicas starting from
+     * the next one in round-robin, the primary, and then the unhealthy replicas as the last resort.
+     * @return the locations to try in order for a read-only connection
+     */
+    List<String> getReadLocations() {
+        final int replicaCount = locations.size() - 1;
+        final List<String> readLocations = new ArrayList<>(locations.size());
+        final List<String> unhealthyReplicas = new ArrayList<>();
+
+        if (replicaCount > 0) {
+            final int offset = (counter.getAndIncrement() & Integer.MAX_VALUE) % replicaCount;
+            int index;
+
+            for (int i = 0; i < replicaCount; i++) {
+                index = 1 + (offset + i) % replicaCount;
+
+                if (isHealthy(index)) {
+                    readLocations.add(locations.get(index));
+                } else {
+                    unhealthyReplicas.add(locations.get(index));
+                }
+            }
+        }
+
+        readLocations.add(getPrimaryLocation());
+        readLocations.addAll(unhealthyReplicas);
+        return readLocations;
+    }
+
+    boolean isHealthy(final String location) {
+        final int index = locations.indexOf(location);
+        return index == -1 || isHealthy(index);
+    }
+
+    long getFailures(final String location) {
+        final int index = locations.indexOf(location);
+        return index != -1 ? failures.get(index) : 0L;
+    }
+
+    void markSucceeded(final String location) {
+        final int index = locations.indexOf(location);
+
+        if (index != -1) {
+            unhealthyUntil.set(index, 0L);
+        }
+    }
+
+    void markFailed(final String location) {
+        final int index = locations.indexOf(location);
+
+        if (index != -1) {
+            failures.incrementAndGet(index);
+            unhealthyUntil.set(index, System.currentTimeMillis() + retryInterval);
+        }
+    }
+
+    private boolean isHealthy(final int index) {
+        final long until = unhealthyUntil.get(index);
+        return until == 0L || until <= System.currentTimeMillis();
+    }
+
+}
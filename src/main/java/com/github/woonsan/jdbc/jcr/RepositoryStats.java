@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr;
+
+/**
+ * Snapshot of the statistics of a JCR repository cached by {@link Driver}.
+ */
+public class RepositoryStats {
+
+    private final String location;
+    private final String configuration;
+    private final String home;
+    private final int openConnections;
+    private final long totalConnections;
+    private final long createdTime;
+    private final long idleSince;
+    private final int warmUpItems;
+    private final int warmUpCompletedItems;
+    private final int warmUpFailedItems;
+    private final boolean warmUpDone;
+
+    public RepositoryStats(final String location, final String configuration, final String home,
+            final int openConnections, final long totalConnections, final long createdTime, final long idleSince) {
+        this(location, configuration, home, openConnections, totalConnections, createdTime, idleSince, 0, 0, 0,
+                true);
+    }
+
+    public RepositoryStats(final String location, final String configuration, final String home,
+            final int openConnections, final long totalConnections, final long createdTime, final long idleSince,
+            final int warmUpItems, final int warmUpCompletedItems, final int warmUpFailedItems,
+            final boolean warmUpDone) {
+        this.location = location;
+        this.configuration = configuration;
+        this.home = home;
+        this.openConnections = openConnections;
+        this.totalConnections = totalConnections;
+        this.createdTime = createdTime;
+        this.idleSince = idleSince;
+        this.warmUpItems = warmUpItems;
+        this.warmUpCompletedItems = warmUpCompletedItems;
+        this.warmUpFailedItems = warmUpFailedItems;
+        this.warmUpDone = warmUpDone;
+    }
+
+    /**
+     * Returns the location of the repository, or an empty string for a transient repository.
+     * @return the location of the repository, or an empty string for a transient repository
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns the configuration file path of a transient repository, or null if not a transient repository.
+     * @return the configuration file path of a transient repository, or null if not a transient repository
+     */
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Returns the home directory path of a transient repository, or null if not a transient repository.
+     * @return the home directory path of a transient repository, or null if not a transient repository
+     */
+    public String getHome() {
+        return home;
+    }
+
+    /**
+     * Returns the number of the open connections to the repository.
+     * @return the number of the open connections to the repository
+     */
+    public int getOpenConnections() {
+        return openConnections;
+    }
+
+    /**
+     * Returns the number of the connections made to the repository since cached.
+     * @return the number of the connections made to the repository since cached
+     */
+    public long getTotalConnections() {
+        return totalConnections;
+    }
+
+    /**
+     * Returns the time in milliseconds when the repository was cached.
+     * @return the time in milliseconds when the repository was cached
+     */
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    /**
+     * Returns the time in milliseconds since when the repository has had no open connection,
+     * or zero if there is any open connection.
+     * @return the time in milliseconds since when the repository has had no open connection, or zero if in use
+     */
+    public long getIdleSince() {
+        return idleSince;
+    }
+
+    /**
+     * Returns the number of the warm-up items configured by <code>repository.warmup</code>.
+     * @return the number of the warm-up items
+     */
+    public int getWarmUpItems() {
+        return warmUpItems;
+    }
+
+    /**
+     * Returns the number of the warm-up items run successfully so far.
+     * @return the number of the warm-up items run successfully so far
+     */
+    public int getWarmUpCompletedItems() {
+        return warmUpCompletedItems;
+    }
+
+    /**
+     * Returns the number of the warm-up items failed so far.
+     * @return the number of the warm-up items failed so far
+     */
+    public int getWarmUpFailedItems() {
+        return warmUpFailedItems;
+    }
+
+    /**
+     * Returns true if the warm-up has finished and released its session, or there is no warm-up item.
+     * @return true if the warm-up has finished
+     */
+    public boolean isWarmUpDone() {
+        return warmUpDone;
+    }
+
+    @Override
+    public String toString() {
+        return "RepositoryStats [location=" + location + ", configuration=" + configuration + ", home=" + home
+                + ", openConnections=" + openConnections + ", totalConnections=" + totalConnections
+                + ", createdTime=" + createdTime + ", idleSince=" + idleSince + ", warmUpItems=" + warmUpItems
+                + ", warmUpCompletedItems=" + warmUpCompletedItems + ", warmUpFailedItems=" + warmUpFailedItems
+                + ", warmUpDone=" + warmUpDone + "]";
+    }
+
+}
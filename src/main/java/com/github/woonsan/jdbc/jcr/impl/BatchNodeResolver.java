@@ -0,0 +1,272 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.jcr.Credentials;
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+/**
+ * Resolves nodes by identifiers in batches, by a bounded pool of worker threads.
+ * <p>
+ * As a JCR session is not meant to be used by multiple threads concurrently, each worker borrows its own session,
+ * logged in with the same credentials to the same workspace, from a pool of at most <code>maxWorkers</code>
+ * sessions, which are logged out on {@link #close()}. A worker session is used by one worker at a time and never
+ * leaves this resolver: workers only look up the nodes of their batch, which loads the node states into the
+ * cache shared by the sessions of the repository, and report which identifiers exist. The nodes returned by
+ * {@link #resolve(Session, List)} are always loaded afterwards by the given session in the calling thread, so
+ * they belong to the given session. If the identifiers fit in a single batch or <code>maxWorkers</code> is one,
+ * the nodes are resolved by the given session in the calling thread only.
+ * <p>
+ * The shared state is guarded by a {@link Lock} instead of monitors, and no repository call is made while holding it,
+ * not to pin the carrier threads of virtual threads.
+ */
+class BatchNodeResolver implements Closeable {
+
+    static final int DEFAULT_MAX_WORKERS = 4;
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Repository repository;
+    private final Credentials credentials;
+    private final String workspaceName;
+    private final int maxWorkers;
+    private final int batchSize;
+
+    private final Lock lock = new ReentrantLock();
+    private ThreadPoolExecutor executor;
+    private final BlockingQueue<Session> idleSessions = new LinkedBlockingQueue<>();
+    private final List<Session> workerSessions = new ArrayList<>();
+
+    BatchNodeResolver(final Repository repository, final Credentials credentials, final String workspaceName,
+            final int maxWorkers, final int batchSize) {
+        this.repository = repository;
+        this.credentials = credentials;
+        this.workspaceName = workspaceName;
+        this.maxWorkers = Math.max(1, maxWorkers);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * Resolves the nodes by the identifiers.
+     * @param session session owning the resolved nodes, used only in the calling thread
+     * @param identifiers node identifiers
+     * @return the nodes of the given session in the same order of the identifiers, having null for a node
+     * not found
+     * @throws RepositoryException if the nodes cannot be resolved
+     */
+    List<Node> resolve(final Session session, final List<String> identifiers) throws RepositoryException {
+        final String [] ids = identifiers.toArray(new String[identifiers.size()]);
+        final Node [] nodes = new Node[ids.length];
+
+        if (maxWorkers == 1 || ids.length <= batchSize) {
+            resolveBatch(session, ids, nodes, 0, ids.length);
+            return Arrays.asList(nodes);
+        }
+
+        final boolean [] found = new boolean[ids.length];
+
+        final List<Future<Void>> futures = new ArrayList<>();
+
+        for (int offset = 0; offset < ids.length; offset += batchSize) {
+            final int begin = offset;
+            final int end = Math.min(offset + batchSize, ids.length);
+
+            futures.add(getExecutor().submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    final Session workerSession = borrowSession();
+
+                    try {
+                        lookUpBatch(workerSession, ids, found, begin, end);
+                    } finally {
+                        idleSessions.offer(workerSession);
+                    }
+
+                    return null;
+                }
+            }));
+        }
+
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while resolving nodes.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RepositoryException) {
+                throw (RepositoryException) e.getCause();
+            }
+
+            throw new RepositoryException(e.getCause().toString(), e.getCause());
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        // the node states are cached by now, so loading the found nodes in the given session is cheap.
+        for (int i = 0; i < ids.length; i++) {
+            if (found[i]) {
+                try {
+                    nodes[i] = session.getNodeByIdentifier(ids[i]);
+                } catch (ItemNotFoundException e) {
+                    nodes[i] = null;
+                }
+            }
+        }
+
+        return Arrays.asList(nodes);
+    }
+
+    @Override
+    public void close() {
+        final ThreadPoolExecutor closingExecutor;
+        final List<Session> closingSessions;
+
+        lock.lock();
+
+        try {
+            closingExecutor = executor;
+            executor = null;
+            closingSessions = new ArrayList<>(workerSessions);
+            workerSessions.clear();
+            idleSessions.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        if (closingExecutor != null) {
+            closingExecutor.shutdownNow();
+        }
+
+        for (Session session : closingSessions) {
+            if (session.isLive()) {
+                session.logout();
+            }
+        }
+    }
+
+    private static void resolveBatch(final Session session, final String [] ids, final Node [] nodes,
+            final int begin, final int end) throws RepositoryException {
+        for (int i = begin; i < end; i++) {
+            if (ids[i] == null) {
+                continue;
+            }
+
+            try {
+                nodes[i] = session.getNodeByIdentifier(ids[i]);
+            } catch (ItemNotFoundException e) {
+                nodes[i] = null;
+            }
+        }
+    }
+
+    private static void lookUpBatch(final Session session, final String [] ids, final boolean [] found,
+            final int begin, final int end) throws RepositoryException {
+        for (int i = begin; i < end; i++) {
+            if (ids[i] == null) {
+                continue;
+            }
+
+            try {
+                session.getNodeByIdentifier(ids[i]);
+                found[i] = true;
+            } catch (ItemNotFoundException e) {
+                found[i] = false;
+            }
+        }
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        lock.lock();
+
+        try {
+            if (executor == null) {
+                executor = new ThreadPoolExecutor(maxWorkers, maxWorkers, 60L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                            @Override
+                            public Thread newThread(Runnable runnable) {
+                                final Thread thread = new Thread(runnable,
+                                        "jdbc-jcr-node-resolver-" + THREAD_COUNTER.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+                executor.allowCoreThreadTimeOut(true);
+            }
+
+            return executor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Session borrowSession() throws RepositoryException {
+        Session session = idleSessions.poll();
+
+        while (session != null && !session.isLive()) {
+            session = idleSessions.poll();
+        }
+
+        if (session == null) {
+            // at most maxWorkers sessions are created as at most maxWorkers tasks run at a time.
+            session = credentials == null ? repository.login(workspaceName)
+                    : repository.login(credentials, workspaceName);
+
+            lock.lock();
+
+            try {
+                workerSessions.add(session);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return session;
+    }
+
+}
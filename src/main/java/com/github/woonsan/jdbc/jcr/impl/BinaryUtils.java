@@ -20,6 +20,8 @@ package com.github.woonsan.jdbc.jcr.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.jcr.Binary;
 import javax.jcr.RepositoryException;
@@ -48,10 +50,15 @@ class BinaryUtils {
         return new BinaryInputStream(binary);
     }
 
+    /**
+     * Binary input stream disposing the binary on close. Marking and resetting are guarded by a {@link Lock}
+     * instead of a monitor as resetting may read the repository, not to pin the carrier threads of virtual threads.
+     */
     private static class BinaryInputStream extends InputStream {
 
         private final Binary binary;
         private final InputStream input;
+        private final Lock lock = new ReentrantLock();
 
         public BinaryInputStream(final Binary binary) throws RepositoryException {
             this.binary = binary;
@@ -93,13 +100,25 @@ class BinaryUtils {
         }
 
         @Override
-        public synchronized void mark(int readlimit) {
-            input.mark(readlimit);
+        public void mark(int readlimit) {
+            lock.lock();
+
+            try {
+                input.mark(readlimit);
+            } finally {
+                lock.unlock();
+            }
         }
 
         @Override
-        public synchronized void reset() throws IOException {
-            input.reset();
+        public void reset() throws IOException {
+            lock.lock();
+
+            try {
+                input.reset();
+            } finally {
+                lock.unlock();
+            }
         }
 
         @Override
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jcr.query.qom.Column;
+
+import com.github.woonsan.jdbc.jcr.Constants;
+
+/**
+ * Projection of a query result, analyzing which selector and property each result column is read from.
+ * <p>
+ * The columns of a JCR-SQL2 query are mapped by the {@link Column}s of the query object model, so aliased columns
+ * (e.g, <code>e.[salary] AS pay</code>) are mapped to the selected properties. Other columns are mapped by their
+ * names, either qualified by a selector name (e.g, <code>e.jcr:primaryType</code> on <code>SELECT *</code>)
+ * or not, against the first selector.
+ */
+class ColumnProjection {
+
+    private final String [] selectorNames;
+    private final String [] columnNames;
+    private final Map<String, String []> columnSources;
+
+    /**
+     * Constructs the projection of a query result.
+     * @param selectorNames selector names of the query result, or null if unknown
+     * @param columnNames column names of the query result
+     * @param columns columns of the query object model if available, to find the properties of aliased columns
+     */
+    ColumnProjection(final String [] selectorNames, final String [] columnNames, final Column [] columns) {
+        this.selectorNames = selectorNames != null && selectorNames.length > 0 ? selectorNames
+                : new String [] { null };
+        this.columnNames = columnNames;
+        columnSources = new HashMap<>();
+
+        if (columns != null) {
+            for (Column column : columns) {
+                if (column.getPropertyName() != null) {
+                    columnSources.put(column.getColumnName(),
+                            new String [] { column.getSelectorName(), column.getPropertyName() });
+                }
+            }
+        }
+
+        int offset;
+
+        for (String columnName : columnNames) {
+            if (!columnSources.containsKey(columnName)) {
+                offset = columnName.indexOf('.');
+
+                if (offset > 0 && getSelectorIndex(columnName.substring(0, offset)) != -1) {
+                    columnSources.put(columnName,
+                            new String [] { columnName.substring(0, offset), columnName.substring(offset + 1) });
+                } else {
+                    columnSources.put(columnName, new String [] { this.selectorNames[0], columnName });
+                }
+            }
+        }
+    }
+
+    String [] getSelectorNames() {
+        return selectorNames;
+    }
+
+    String [] getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Returns the selector name and the property name which the result column is read from,
+     * or null if the column is not projected by the query.
+     * @param columnName column name
+     * @return the selector name and the property name in a two-element array, or null if not projected
+     */
+    String [] getSource(final String columnName) {
+        return columnSources.get(columnName);
+    }
+
+    /**
+     * Returns true if the column label denotes a column projected by the query, or a meta-column
+     * (e.g, <code>jcr:path</code> or <code>e.jcr:path</code>) which is always available.
+     * @param columnLabel column label
+     * @return true if the column label denotes a projected column or a meta-column
+     */
+    boolean isProjected(final String columnLabel) {
+        if (columnSources.containsKey(columnLabel) || Constants.META_COLUMNS.contains(columnLabel)) {
+            return true;
+        }
+
+        final int offset = columnLabel.indexOf('.');
+
+        return offset > 0 && getSelectorIndex(columnLabel.substring(0, offset)) != -1
+                && Constants.META_COLUMNS.contains(columnLabel.substring(offset + 1));
+    }
+
+    /**
+     * Returns the name of a result column which projects the property of the selector, or null if not projected.
+     * @param selectorName selector name
+     * @param propertyName property name
+     * @return the name of a result column which projects the property of the selector, or null if not projected
+     */
+    String getColumnName(final String selectorName, final String propertyName) {
+        final int selectorIndex = Math.max(0, getSelectorIndex(selectorName));
+        String [] source;
+
+        for (String columnName : columnNames) {
+            source = columnSources.get(columnName);
+
+            if (propertyName.equals(source[1]) && Math.max(0, getSelectorIndex(source[0])) == selectorIndex) {
+                return columnName;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the index of the selector name, or -1 if not found.
+     * @param selectorName selector name
+     * @return the index of the selector name, or -1 if not found
+     */
+    int getSelectorIndex(final String selectorName) {
+        for (int i = 0; i < selectorNames.length; i++) {
+            if (selectorNames[i] != null && selectorNames[i].equals(selectorName)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * header
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.util.TimeZone;
+
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+
+/**
+ * Date utilities converting JCR date values into epoch milliseconds without allocating {@link java.util.Calendar}s.
+ */
+class DateUtils {
+
+    private static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+    private DateUtils() {
+    }
+
+    /**
+     * Returns the epoch milliseconds of the date value. The ISO8601 string form of a <code>DATE</code> or
+     * <code>STRING</code> value is parsed directly, falling back to {@link Value#getDate()} otherwise.
+     * @param value date value
+     * @return the epoch milliseconds of the date value
+     * @throws RepositoryException if the value cannot be converted to a date
+     */
+    static long toEpochMillis(final Value value) throws RepositoryException {
+        if (value.getType() == PropertyType.DATE || value.getType() == PropertyType.STRING) {
+            try {
+                return parseISO8601(value.getString());
+            } catch (IllegalArgumentException e) {
+                // not in the format of the fast path. e.g, a date before the Gregorian calendar.
+            }
+        }
+
+        return value.getDate().getTimeInMillis();
+    }
+
+    /**
+     * Parses the ISO8601 date string of the format used by JCR, <code>±YYYY-MM-DDThh:mm:ss.sssTZD</code>
+     * where <code>TZD</code> is either <code>Z</code> or <code>±hh:mm</code>, into epoch milliseconds.
+     * Dates before the year 1583 are rejected as JCR dates use the Julian calendar before the Gregorian cutover.
+     * @param str ISO8601 date string
+     * @return the epoch milliseconds of the date string
+     * @throws IllegalArgumentException if the string is not in the format or the date is before the year 1583
+     */
+    static long parseISO8601(final String str) {
+        int pos = 0;
+
+        if (str.length() > 0 && str.charAt(0) == '+') {
+            pos++;
+        }
+
+        final int year = parseDigits(str, pos, 4);
+        pos += 4;
+        expect(str, pos++, '-');
+        final int month = parseDigits(str, pos, 2);
+        pos += 2;
+        expect(str, pos++, '-');
+        final int day = parseDigits(str, pos, 2);
+        pos += 2;
+        expect(str, pos++, 'T');
+        final int hour = parseDigits(str, pos, 2);
+        pos += 2;
+        expect(str, pos++, ':');
+        final int minute = parseDigits(str, pos, 2);
+        pos += 2;
+        expect(str, pos++, ':');
+        final int second = parseDigits(str, pos, 2);
+        pos += 2;
+        int millis = 0;
+
+        if (pos < str.length() && str.charAt(pos) == '.') {
+            pos++;
+            int digits = 0;
+
+            while (pos < str.length() && Character.isDigit(str.charAt(pos))) {
+                if (digits < 3) {
+                    millis = millis * 10 + (str.charAt(pos) - '0');
+                }
+
+                digits++;
+                pos++;
+            }
+
+            if (digits == 0) {
+                throw new IllegalArgumentException("Invalid fraction of second: " + str);
+            }
+
+            for (; digits < 3; digits++) {
+                millis *= 10;
+            }
+        }
+
+        int offsetMinutes = 0;
+
+        if (pos < str.length() && str.charAt(pos) == 'Z') {
+            pos++;
+        } else if (pos < str.length() && (str.charAt(pos) == '+' || str.charAt(pos) == '-')) {
+            final int sign = str.charAt(pos++) == '-' ? -1 : 1;
+            final int offsetHour = parseDigits(str, pos, 2);
+            pos += 2;
+            expect(str, pos++, ':');
+            final int offsetMinute = parseDigits(str, pos, 2);
+            pos += 2;
+
+            if (offsetHour > 23 || offsetMinute > 59) {
+                throw new IllegalArgumentException("Invalid time zone offset: " + str);
+            }
+
+            offsetMinutes = sign * (offsetHour * 60 + offsetMinute);
+        } else {
+            throw new IllegalArgumentException("Missing time zone designator: " + str);
+        }
+
+        if (pos != str.length()) {
+            throw new IllegalArgumentException("Unexpected trailing characters: " + str);
+        }
+
+        if (year < 1583 || month < 1 || month > 12 || day < 1 || day > getDaysOfMonth(year, month) || hour > 23
+                || minute > 59 || second > 59) {
+            throw new IllegalArgumentException("Invalid or unsupported date: " + str);
+        }
+
+        return (toEpochDay(year, month, day) * 24L * 60L + hour * 60L + minute - offsetMinutes) * 60000L
+                + second * 1000L + millis;
+    }
+
+    /**
+     * Returns the epoch milliseconds of the start of the day of the epoch milliseconds in the time zone.
+     * @param epochMillis epoch milliseconds
+     * @param timeZone time zone
+     * @return the epoch milliseconds of the start of the day in the time zone
+     */
+    static long toStartOfDay(final long epochMillis, final TimeZone timeZone) {
+        final long localMillis = epochMillis + timeZone.getOffset(epochMillis);
+        final long localStartOfDay = floorDiv(localMillis, MILLIS_PER_DAY) * MILLIS_PER_DAY;
+        return localStartOfDay - timeZone.getOffset(localStartOfDay - timeZone.getOffset(epochMillis));
+    }
+
+    /**
+     * Returns the epoch milliseconds of the time of day of the epoch milliseconds in the time zone,
+     * on January 1, 1970 in the time zone.
+     * @param epochMillis epoch milliseconds
+     * @param timeZone time zone
+     * @return the epoch milliseconds of the time of day on January 1, 1970 in the time zone
+     */
+    static long toTimeOfDay(final long epochMillis, final TimeZone timeZone) {
+        final long localMillis = epochMillis + timeZone.getOffset(epochMillis);
+        final long localTimeOfDay = localMillis - floorDiv(localMillis, MILLIS_PER_DAY) * MILLIS_PER_DAY;
+        return localTimeOfDay - timeZone.getOffset(localTimeOfDay);
+    }
+
+    private static long toEpochDay(final int year, final int month, final int day) {
+        // days from the civil date in the proleptic Gregorian calendar.
+        final long y = month <= 2 ? year - 1 : year;
+        final long era = floorDiv(y, 400);
+        final long yearOfEra = y - era * 400;
+        final long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int getDaysOfMonth(final int year, final int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+        }
+
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static long floorDiv(final long x, final long y) {
+        final long q = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+    }
+
+    private static int parseDigits(final String str, final int begin, final int count) {
+        if (begin + count > str.length()) {
+            throw new IllegalArgumentException("Unexpected end of date: " + str);
+        }
+
+        int number = 0;
+        char ch;
+
+        for (int i = begin; i < begin + count; i++) {
+            ch = str.charAt(i);
+
+            if (ch < '0' || ch > '9') {
+                throw new IllegalArgumentException("Digit expected at " + i + ": " + str);
+            }
+
+            number = number * 10 + (ch - '0');
+        }
+
+        return number;
+    }
+
+    private static void expect(final String str, final int pos, final char ch) {
+        if (pos >= str.length() || str.charAt(pos) != ch) {
+            throw new IllegalArgumentException("'" + ch + "' expected at " + pos + ": " + str);
+        }
+    }
+
+}
@@ -0,0 +1,993 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TimeZone;
+
+import javax.jcr.Binary;
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.ValueFactory;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+
+import com.github.woonsan.jdbc.jcr.Constants;
+import com.github.woonsan.jdbc.jcr.HashJoin;
+
+/**
+ * {@link QueryResult} joining the results of two JCR queries by a client-side hash join.
+ * <p>
+ * The right side query result is loaded into an in-memory hash table (build side) and the left side query
+ * result is streamed through it (probe side). If the build side exceeds the maximum number of in-memory rows,
+ * both sides are partitioned by the join key hash into spill files and joined partition by partition.
+ * A spilled partition whose build side still exceeds the maximum number of in-memory rows is re-partitioned
+ * by the next bits of the join key hash, unless all of its rows have the same key hash (e.g, a skewed key),
+ * which cannot be split any further.
+ */
+class HashJoinQueryResult implements QueryResult, Closeable {
+
+    private static final int SPILL_PARTITION_BITS = 4;
+
+    private static final int SPILL_PARTITION_COUNT = 1 << SPILL_PARTITION_BITS;
+
+    /**
+     * The deepest level of the spill partitions, each level of which consumes the next bits of the key hash.
+     */
+    private static final int MAX_SPILL_PARTITION_LEVEL = Integer.SIZE / SPILL_PARTITION_BITS - 1;
+
+    private final HashJoin hashJoin;
+    private final JoinSide left;
+    private final JoinSide right;
+    private final String [] columnNames;
+    private final Map<String, Integer> columnIndexMap;
+    private final long limit;
+
+    private Map<String, List<JoinRecord>> buildTable;
+    private File spillDirectory;
+    private int spillFileCount;
+    private SpillPartition [] initialPartitions;
+    private final Deque<SpillPartition> spillPartitions = new ArrayDeque<>();
+    private RowIterator probeRowIterator;
+    private JoinedRowIterator joinedRowIterator;
+
+    HashJoinQueryResult(final HashJoin hashJoin, final Session leftSession, final Session rightSession,
+            final long limit) throws RepositoryException, IOException {
+        this.hashJoin = hashJoin;
+        this.limit = limit;
+
+        final QueryResult rightResult = executeQuery(rightSession, hashJoin.getRightStatement());
+        right = new JoinSide(hashJoin.getRightSelectorName(), hashJoin.getRightJoinColumn(), rightSession,
+                rightResult);
+
+        final QueryResult leftResult = executeQuery(leftSession, hashJoin.getLeftStatement());
+        left = new JoinSide(hashJoin.getLeftSelectorName(), hashJoin.getLeftJoinColumn(), leftSession, leftResult);
+
+        final List<String> cnames = new ArrayList<>();
+        left.addQualifiedColumnNames(cnames);
+        right.addQualifiedColumnNames(cnames);
+        columnNames = cnames.toArray(new String[cnames.size()]);
+
+        columnIndexMap = new HashMap<>();
+
+        for (int i = 0; i < columnNames.length; i++) {
+            columnIndexMap.put(columnNames[i], i);
+        }
+
+        try {
+            build(rightResult.getRows());
+            probeRowIterator = leftResult.getRows();
+
+            if (initialPartitions != null) {
+                partitionProbeSide();
+            }
+        } catch (RepositoryException | IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String[] getColumnNames() throws RepositoryException {
+        return columnNames.clone();
+    }
+
+    @Override
+    public RowIterator getRows() throws RepositoryException {
+        if (joinedRowIterator != null) {
+            throw new RepositoryException("The joined rows were already retrieved.");
+        }
+
+        joinedRowIterator = new JoinedRowIterator();
+        return joinedRowIterator;
+    }
+
+    @Override
+    public NodeIterator getNodes() throws RepositoryException {
+        throw new RepositoryException("Nodes are not available from a multi-selector result.");
+    }
+
+    @Override
+    public String[] getSelectorNames() throws RepositoryException {
+        return new String [] { left.selectorName, right.selectorName };
+    }
+
+    @Override
+    public void close() {
+        buildTable = null;
+        probeRowIterator = null;
+
+        if (joinedRowIterator != null) {
+            joinedRowIterator.closePartitionInputQuietly();
+        }
+
+        if (initialPartitions != null) {
+            for (SpillPartition partition : initialPartitions) {
+                partition.delete();
+            }
+
+            initialPartitions = null;
+        }
+
+        for (SpillPartition partition : spillPartitions) {
+            partition.delete();
+        }
+
+        spillPartitions.clear();
+
+        if (spillDirectory != null) {
+            spillDirectory.delete();
+            spillDirectory = null;
+        }
+    }
+
+    private static QueryResult executeQuery(final Session session, final String statement)
+            throws RepositoryException {
+        final String queryLanguage = SQLQueryUtils.detectQueryLanguage(statement);
+        final Query query = session.getWorkspace().getQueryManager().createQuery(statement, queryLanguage);
+        return query.execute();
+    }
+
+    private void build(final RowIterator rowIterator) throws RepositoryException, IOException {
+        buildTable = new HashMap<>();
+        int buildRowCount = 0;
+        DataOutputStream [] buildOutputs = null;
+        JoinRecord record;
+
+        try {
+            while (rowIterator.hasNext()) {
+                record = right.createRecord(rowIterator.nextRow());
+
+                if (record.key == null) {
+                    continue;
+                }
+
+                if (buildOutputs == null) {
+                    addToBuildTable(buildTable, record);
+
+                    if (++buildRowCount > hashJoin.getMaxInMemoryRows()) {
+                        buildOutputs = spillBuildTable();
+                    }
+                } else {
+                    writeBuildRecord(initialPartitions, buildOutputs, record, 0);
+                }
+            }
+        } finally {
+            closePartitionOutputs(buildOutputs);
+        }
+    }
+
+    private DataOutputStream [] spillBuildTable() throws RepositoryException, IOException {
+        final File parentDir = hashJoin.getSpillDirectory() != null ? hashJoin.getSpillDirectory()
+                : new File(System.getProperty("java.io.tmpdir"));
+        spillDirectory = Files.createTempDirectory(parentDir.toPath(), "jdbc-jcr-hashjoin-").toFile();
+
+        initialPartitions = createSpillPartitions(0);
+        final DataOutputStream [] buildOutputs = openPartitionOutputs(initialPartitions, true);
+
+        for (List<JoinRecord> records : buildTable.values()) {
+            for (JoinRecord record : records) {
+                writeBuildRecord(initialPartitions, buildOutputs, record, 0);
+            }
+        }
+
+        buildTable = null;
+        return buildOutputs;
+    }
+
+    private void partitionProbeSide() throws RepositoryException, IOException {
+        final DataOutputStream [] probeOutputs = openPartitionOutputs(initialPartitions, false);
+        JoinRecord record;
+
+        try {
+            while (probeRowIterator.hasNext()) {
+                record = left.createRecord(probeRowIterator.nextRow());
+
+                if (record.key != null) {
+                    writeProbeRecord(initialPartitions, probeOutputs, record, 0);
+                }
+            }
+        } finally {
+            closePartitionOutputs(probeOutputs);
+        }
+
+        probeRowIterator = null;
+        Collections.addAll(spillPartitions, initialPartitions);
+        initialPartitions = null;
+    }
+
+    private SpillPartition [] createSpillPartitions(final int level) {
+        final SpillPartition [] partitions = new SpillPartition[SPILL_PARTITION_COUNT];
+
+        for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+            ++spillFileCount;
+            partitions[i] = new SpillPartition(new File(spillDirectory, "build-" + spillFileCount),
+                    new File(spillDirectory, "probe-" + spillFileCount), level);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Re-partitions the spilled partition by the next bits of the key hash into sub-partitions,
+     * deleting the files of the partition.
+     * @param partition the spilled partition to re-partition
+     * @return the sub-partitions of the partition
+     */
+    private SpillPartition [] repartition(final SpillPartition partition) throws RepositoryException, IOException {
+        final int level = partition.level + 1;
+        final SpillPartition [] subPartitions = createSpillPartitions(level);
+
+        try {
+            final DataOutputStream [] buildOutputs = openPartitionOutputs(subPartitions, true);
+
+            try (DataInputStream buildInput = openPartitionInput(partition.buildFile)) {
+                JoinRecord record;
+
+                while ((record = readNextRecord(right, buildInput)) != null) {
+                    writeBuildRecord(subPartitions, buildOutputs, record, level);
+                }
+            } finally {
+                closePartitionOutputs(buildOutputs);
+            }
+
+            final DataOutputStream [] probeOutputs = openPartitionOutputs(subPartitions, false);
+
+            try (DataInputStream probeInput = openPartitionInput(partition.probeFile)) {
+                JoinRecord record;
+
+                while ((record = readNextRecord(left, probeInput)) != null) {
+                    writeProbeRecord(subPartitions, probeOutputs, record, level);
+                }
+            } finally {
+                closePartitionOutputs(probeOutputs);
+            }
+        } catch (RepositoryException | IOException e) {
+            for (SpillPartition subPartition : subPartitions) {
+                subPartition.delete();
+            }
+
+            throw e;
+        } finally {
+            partition.delete();
+        }
+
+        for (SpillPartition subPartition : subPartitions) {
+            if (subPartition.buildRowCount == partition.buildRowCount) {
+                // every row has the same key hash, so cannot be split any further.
+                subPartition.level = MAX_SPILL_PARTITION_LEVEL;
+            }
+        }
+
+        return subPartitions;
+    }
+
+    private static void writeBuildRecord(final SpillPartition [] partitions, final DataOutputStream [] outputs,
+            final JoinRecord record, final int level) throws IOException, RepositoryException {
+        final int index = getPartitionIndex(record.key, level);
+        record.writeTo(outputs[index]);
+        ++partitions[index].buildRowCount;
+    }
+
+    private static void writeProbeRecord(final SpillPartition [] partitions, final DataOutputStream [] outputs,
+            final JoinRecord record, final int level) throws IOException, RepositoryException {
+        final int index = getPartitionIndex(record.key, level);
+        record.writeTo(outputs[index]);
+        ++partitions[index].probeRowCount;
+    }
+
+    private static JoinRecord readNextRecord(final JoinSide side, final DataInputStream input)
+            throws RepositoryException, IOException {
+        try {
+            return side.readRecord(input);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void addToBuildTable(final Map<String, List<JoinRecord>> table, final JoinRecord record) {
+        List<JoinRecord> records = table.get(record.key);
+
+        if (records == null) {
+            records = new ArrayList<>(1);
+            table.put(record.key, records);
+        }
+
+        records.add(record);
+    }
+
+    /**
+     * Returns the partition index of the key at the level, taking the next bits of the mixed key hash at each level.
+     */
+    static int getPartitionIndex(final String key, final int level) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return (hash >>> (level * SPILL_PARTITION_BITS)) & (SPILL_PARTITION_COUNT - 1);
+    }
+
+    private static DataOutputStream [] openPartitionOutputs(final SpillPartition [] partitions,
+            final boolean buildSide) throws IOException {
+        final DataOutputStream [] outputs = new DataOutputStream[partitions.length];
+
+        try {
+            for (int i = 0; i < partitions.length; i++) {
+                outputs[i] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                        buildSide ? partitions[i].buildFile : partitions[i].probeFile)));
+            }
+        } catch (IOException e) {
+            closePartitionOutputs(outputs);
+            throw e;
+        }
+
+        return outputs;
+    }
+
+    private static DataInputStream openPartitionInput(final File partitionFile) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(partitionFile)));
+    }
+
+    private static void closePartitionOutputs(final DataOutputStream [] outputs) throws IOException {
+        if (outputs == null) {
+            return;
+        }
+
+        IOException firstException = null;
+
+        for (DataOutputStream output : outputs) {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    if (firstException == null) {
+                        firstException = e;
+                    }
+                }
+            }
+        }
+
+        if (firstException != null) {
+            throw firstException;
+        }
+    }
+
+    /**
+     * Writes the value by its type, a binary value as the length and the bytes, to be read by
+     * {@link #readValue(DataInputStream, ValueFactory)} without any loss.
+     */
+    static void writeValue(final DataOutputStream output, final Value value) throws IOException,
+            RepositoryException {
+        if (value == null) {
+            output.writeInt(PropertyType.UNDEFINED);
+            return;
+        }
+
+        final int type = value.getType();
+        output.writeInt(type);
+
+        switch (type) {
+        case PropertyType.BINARY:
+            writeBinary(output, value.getBinary());
+            break;
+        case PropertyType.LONG:
+            output.writeLong(value.getLong());
+            break;
+        case PropertyType.DOUBLE:
+            output.writeDouble(value.getDouble());
+            break;
+        case PropertyType.BOOLEAN:
+            output.writeBoolean(value.getBoolean());
+            break;
+        case PropertyType.DATE:
+            final Calendar date = value.getDate();
+            output.writeLong(date.getTimeInMillis());
+            writeString(output, date.getTimeZone().getID());
+            break;
+        case PropertyType.DECIMAL:
+            final BigDecimal decimal = value.getDecimal();
+            final byte [] unscaled = decimal.unscaledValue().toByteArray();
+            output.writeInt(decimal.scale());
+            output.writeInt(unscaled.length);
+            output.write(unscaled);
+            break;
+        default:
+            writeString(output, value.getString());
+        }
+    }
+
+    /**
+     * Reads the value written by {@link #writeValue(DataOutputStream, Value)}.
+     */
+    static Value readValue(final DataInputStream input, final ValueFactory valueFactory) throws IOException,
+            RepositoryException {
+        final int type = input.readInt();
+
+        switch (type) {
+        case PropertyType.UNDEFINED:
+            return null;
+        case PropertyType.BINARY:
+            final byte [] bytes = new byte[input.readInt()];
+            input.readFully(bytes);
+            final Binary binary = valueFactory.createBinary(new ByteArrayInputStream(bytes));
+            return valueFactory.createValue(binary);
+        case PropertyType.LONG:
+            return valueFactory.createValue(input.readLong());
+        case PropertyType.DOUBLE:
+            return valueFactory.createValue(input.readDouble());
+        case PropertyType.BOOLEAN:
+            return valueFactory.createValue(input.readBoolean());
+        case PropertyType.DATE:
+            final long timeInMillis = input.readLong();
+            final Calendar date = Calendar.getInstance(TimeZone.getTimeZone(readString(input)));
+            date.setTimeInMillis(timeInMillis);
+            return valueFactory.createValue(date);
+        case PropertyType.DECIMAL:
+            final int scale = input.readInt();
+            final byte [] unscaled = new byte[input.readInt()];
+            input.readFully(unscaled);
+            return valueFactory.createValue(new BigDecimal(new BigInteger(unscaled), scale));
+        default:
+            return valueFactory.createValue(readString(input), type);
+        }
+    }
+
+    private static void writeBinary(final DataOutputStream output, final Binary binary) throws IOException,
+            RepositoryException {
+        try {
+            final long size = binary.getSize();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Binary value too large to spill: " + size);
+            }
+
+            output.writeInt((int) size);
+
+            final byte [] buffer = new byte[8192];
+            long remaining = size;
+            int len;
+
+            try (InputStream input = binary.getStream()) {
+                while (remaining > 0) {
+                    len = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+
+                    if (len == -1) {
+                        break;
+                    }
+
+                    output.write(buffer, 0, len);
+                    remaining -= len;
+                }
+            }
+
+            if (remaining != 0) {
+                throw new IOException("Binary value shorter than its size: " + size);
+            }
+        } finally {
+            binary.dispose();
+        }
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        final byte [] bytes = value.getBytes("UTF-8");
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final DataInputStream input) throws IOException {
+        final byte [] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Spilled partition of both sides at a level, counting the rows of each side to skip an empty side
+     * and to decide to re-partition.
+     */
+    private static class SpillPartition {
+
+        private final File buildFile;
+        private final File probeFile;
+        private int level;
+        private long buildRowCount;
+        private long probeRowCount;
+
+        SpillPartition(final File buildFile, final File probeFile, final int level) {
+            this.buildFile = buildFile;
+            this.probeFile = probeFile;
+            this.level = level;
+        }
+
+        boolean isJoinable() {
+            return buildRowCount > 0 && probeRowCount > 0;
+        }
+
+        void delete() {
+            if (buildFile.isFile()) {
+                buildFile.delete();
+            }
+
+            if (probeFile.isFile()) {
+                probeFile.delete();
+            }
+        }
+    }
+
+    /**
+     * One side of the join with its query result columns and the session to resolve the nodes with.
+     */
+    private static class JoinSide {
+
+        private final String selectorName;
+        private final String joinColumn;
+        private final Session session;
+        private final String [] columnNames;
+        private final String querySelectorName;
+        private final MetaColumnResolver metaColumnResolver;
+        private final boolean joinByMetaColumn;
+
+        JoinSide(final String selectorName, final String joinColumn, final Session session,
+                final QueryResult queryResult) throws RepositoryException {
+            this.selectorName = selectorName;
+            this.joinColumn = joinColumn;
+            this.session = session;
+            columnNames = queryResult.getColumnNames();
+
+            final String [] snames = queryResult.getSelectorNames();
+
+            if (snames == null || snames.length != 1) {
+                throw new RepositoryException("Each side of a hash join must be a single selector query.");
+            }
+
+            querySelectorName = snames[0];
+            metaColumnResolver = new MetaColumnResolver();
+
+            final boolean isQueryColumn = indexOf(columnNames, joinColumn) != -1;
+            joinByMetaColumn = !isQueryColumn && Constants.META_COLUMNS.contains(joinColumn);
+
+            if (!isQueryColumn && !joinByMetaColumn) {
+                throw new RepositoryException("Join column not found in '" + selectorName + "': " + joinColumn);
+            }
+        }
+
+        void addQualifiedColumnNames(final List<String> cnames) {
+            final String queryPrefix = querySelectorName + ".";
+
+            for (String cname : columnNames) {
+                if (cname.startsWith(queryPrefix)) {
+                    cname = cname.substring(queryPrefix.length());
+                }
+
+                cnames.add(selectorName + "." + cname);
+            }
+        }
+
+        JoinRecord createRecord(final Row row) throws RepositoryException {
+            metaColumnResolver.reset(row);
+
+            String key = null;
+
+            if (joinByMetaColumn) {
+                if (Constants.COLUMN_JCR_PATH.equals(joinColumn)) {
+                    key = metaColumnResolver.getPath();
+                } else if (Constants.COLUMN_JCR_NAME.equals(joinColumn)) {
+                    key = metaColumnResolver.getName();
+                } else if (Constants.COLUMN_JCR_UUID.equals(joinColumn)) {
+                    key = metaColumnResolver.getIdentifier();
+                } else if (Constants.COLUMN_JCR_SCORE.equals(joinColumn)) {
+                    key = Double.toString(metaColumnResolver.getScore());
+                }
+            } else {
+                final Value keyValue = row.getValue(joinColumn);
+
+                if (keyValue != null) {
+                    key = keyValue.getString();
+                }
+            }
+
+            final Value [] values = new Value[columnNames.length];
+
+            for (int i = 0; i < columnNames.length; i++) {
+                values[i] = row.getValue(columnNames[i]);
+            }
+
+            final JoinRecord record = new JoinRecord(key, metaColumnResolver.getPath(), metaColumnResolver.getScore(),
+                    values);
+            metaColumnResolver.reset(null);
+            return record;
+        }
+
+        JoinRecord readRecord(final DataInputStream input) throws RepositoryException, IOException {
+            return JoinRecord.readFrom(input, columnNames.length, session.getValueFactory());
+        }
+
+        private static int indexOf(final String [] names, final String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     * Captured row of either side, which can be written into and read from a spill file with the values
+     * serialized by their types.
+     */
+    private static class JoinRecord {
+
+        private final String key;
+        private final String path;
+        private final double score;
+        private final Value [] values;
+        private Node node;
+
+        JoinRecord(final String key, final String path, final double score, final Value [] values) {
+            this.key = key;
+            this.path = path;
+            this.score = score;
+            this.values = values;
+        }
+
+        Node getNode(final Session session) throws RepositoryException {
+            if (node == null) {
+                node = session.getNode(path);
+            }
+
+            return node;
+        }
+
+        void writeTo(final DataOutputStream output) throws IOException, RepositoryException {
+            writeString(output, key);
+            writeString(output, path);
+            output.writeDouble(score);
+
+            for (Value value : values) {
+                writeValue(output, value);
+            }
+        }
+
+        static JoinRecord readFrom(final DataInputStream input, final int valueCount, final ValueFactory valueFactory)
+                throws IOException, RepositoryException {
+            final String key = readString(input);
+            final String path = readString(input);
+            final double score = input.readDouble();
+            final Value [] values = new Value[valueCount];
+
+            for (int i = 0; i < valueCount; i++) {
+                values[i] = readValue(input, valueFactory);
+            }
+
+            return new JoinRecord(key, path, score, values);
+        }
+    }
+
+    /**
+     * Joined row of a left side record and a matching right side record.
+     */
+    private class JoinedRow implements Row {
+
+        private final JoinRecord leftRecord;
+        private final JoinRecord rightRecord;
+
+        JoinedRow(final JoinRecord leftRecord, final JoinRecord rightRecord) {
+            this.leftRecord = leftRecord;
+            this.rightRecord = rightRecord;
+        }
+
+        @Override
+        public Value[] getValues() throws RepositoryException {
+            final Value [] values = new Value[columnNames.length];
+            System.arraycopy(leftRecord.values, 0, values, 0, leftRecord.values.length);
+            System.arraycopy(rightRecord.values, 0, values, leftRecord.values.length, rightRecord.values.length);
+            return values;
+        }
+
+        @Override
+        public Value getValue(String columnName) throws ItemNotFoundException, RepositoryException {
+            final Integer index = columnIndexMap.get(columnName);
+
+            if (index == null) {
+                throw new ItemNotFoundException("Column " + columnName + " is not included in this row");
+            }
+
+            final int leftCount = leftRecord.values.length;
+            return index < leftCount ? leftRecord.values[index] : rightRecord.values[index - leftCount];
+        }
+
+        @Override
+        public Node getNode() throws RepositoryException {
+            throw new RepositoryException("The row has more than one selector.");
+        }
+
+        @Override
+        public Node getNode(String selectorName) throws RepositoryException {
+            if (left.selectorName.equals(selectorName)) {
+                return leftRecord.getNode(left.session);
+            } else if (right.selectorName.equals(selectorName)) {
+                return rightRecord.getNode(right.session);
+            }
+
+            throw new RepositoryException("Unknown selector name: " + selectorName);
+        }
+
+        @Override
+        public String getPath() throws RepositoryException {
+            throw new RepositoryException("The row has more than one selector.");
+        }
+
+        @Override
+        public String getPath(String selectorName) throws RepositoryException {
+            return getRecord(selectorName).path;
+        }
+
+        @Override
+        public double getScore() throws RepositoryException {
+            throw new RepositoryException("The row has more than one selector.");
+        }
+
+        @Override
+        public double getScore(String selectorName) throws RepositoryException {
+            return getRecord(selectorName).score;
+        }
+
+        private JoinRecord getRecord(final String selectorName) throws RepositoryException {
+            if (left.selectorName.equals(selectorName)) {
+                return leftRecord;
+            } else if (right.selectorName.equals(selectorName)) {
+                return rightRecord;
+            }
+
+            throw new RepositoryException("Unknown selector name: " + selectorName);
+        }
+    }
+
+    /**
+     * Iterates the joined rows, either streaming the probe side rows through the in-memory build table,
+     * or joining the spilled partitions one by one.
+     */
+    private class JoinedRowIterator implements RowIterator {
+
+        private long position;
+        private Row nextRow;
+        private JoinRecord probeRecord;
+        private Iterator<JoinRecord> matchIterator = Collections.<JoinRecord>emptyList().iterator();
+        private SpillPartition partition;
+        private DataInputStream partitionInput;
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow == null) {
+                try {
+                    nextRow = fetchNextRow();
+                } catch (RepositoryException | IOException e) {
+                    close();
+                    throw new IllegalStateException("Failed to join rows. " + e.toString(), e);
+                }
+            }
+
+            return nextRow != null;
+        }
+
+        @Override
+        public Row nextRow() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Row row = nextRow;
+            nextRow = null;
+            ++position;
+            return row;
+        }
+
+        @Override
+        public Object next() {
+            return nextRow();
+        }
+
+        @Override
+        public void skip(long skipNum) {
+            for (long i = 0; i < skipNum; i++) {
+                nextRow();
+            }
+        }
+
+        @Override
+        public long getSize() {
+            return -1;
+        }
+
+        @Override
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private Row fetchNextRow() throws RepositoryException, IOException {
+            if (limit > 0 && position >= limit) {
+                closePartitionInput();
+                return null;
+            }
+
+            while (!matchIterator.hasNext()) {
+                probeRecord = nextProbeRecord();
+
+                if (probeRecord == null) {
+                    close();
+                    return null;
+                }
+
+                final List<JoinRecord> matches = buildTable.get(probeRecord.key);
+
+                if (matches != null) {
+                    matchIterator = matches.iterator();
+                }
+            }
+
+            return new JoinedRow(probeRecord, matchIterator.next());
+        }
+
+        private JoinRecord nextProbeRecord() throws RepositoryException, IOException {
+            if (spillDirectory == null) {
+                JoinRecord record;
+
+                while (probeRowIterator != null && probeRowIterator.hasNext()) {
+                    record = left.createRecord(probeRowIterator.nextRow());
+
+                    if (record.key != null) {
+                        return record;
+                    }
+                }
+
+                return null;
+            }
+
+            while (true) {
+                if (partitionInput != null) {
+                    try {
+                        return left.readRecord(partitionInput);
+                    } catch (EOFException e) {
+                        closePartitionInput();
+                    }
+                }
+
+                if (!openNextPartition()) {
+                    return null;
+                }
+            }
+        }
+
+        private boolean openNextPartition() throws RepositoryException, IOException {
+            while ((partition = spillPartitions.pollFirst()) != null) {
+                if (!partition.isJoinable()) {
+                    partition.delete();
+                    continue;
+                }
+
+                if (partition.buildRowCount > hashJoin.getMaxInMemoryRows()
+                        && partition.level < MAX_SPILL_PARTITION_LEVEL) {
+                    final SpillPartition [] subPartitions = repartition(partition);
+
+                    for (int i = subPartitions.length - 1; i >= 0; i--) {
+                        spillPartitions.addFirst(subPartitions[i]);
+                    }
+
+                    continue;
+                }
+
+                buildTable = new HashMap<>();
+
+                try (DataInputStream buildInput = openPartitionInput(partition.buildFile)) {
+                    JoinRecord record;
+
+                    while ((record = readNextRecord(right, buildInput)) != null) {
+                        addToBuildTable(buildTable, record);
+                    }
+                }
+
+                partitionInput = openPartitionInput(partition.probeFile);
+                return true;
+            }
+
+            return false;
+        }
+
+        private void closePartitionInputQuietly() {
+            try {
+                closePartitionInput();
+            } catch (IOException ignore) {
+            }
+        }
+
+        private void closePartitionInput() throws IOException {
+            if (partitionInput != null) {
+                try {
+                    partitionInput.close();
+                } finally {
+                    partitionInput = null;
+                }
+            }
+
+            if (partition != null) {
+                partition.delete();
+                partition = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+
+import com.github.woonsan.jdbc.jcr.Constants;
+
+/**
+ * {@link RowIterator} detached from the original query result, holding only the node identifiers
+ * (and the scores) of the remaining rows, so that the rows can still be read after the session is saved.
+ * <p>
+ * The rows are re-resolved from the session lazily, a chunk of rows at a time, so changes saved in between
+ * are visible in the rows read afterward. A row is skipped if any of its nodes has been removed.
+ */
+class HoldableRowIterator implements RowIterator {
+
+    static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private final Session session;
+    private final ColumnProjection projection;
+    private final String [] identifiers;
+    private final double [] scores;
+    private final int rowCount;
+    private final long basePosition;
+    private final int chunkSize;
+
+    private final List<Row> chunk = new ArrayList<>();
+    private int chunkIndex;
+    private int nextRowIndex;
+    private long position;
+
+    private HoldableRowIterator(final Session session, final ColumnProjection projection, final String [] identifiers,
+            final double [] scores, final long basePosition, final int chunkSize) {
+        this.session = session;
+        this.projection = projection;
+        this.identifiers = identifiers;
+        this.scores = scores;
+        rowCount = identifiers.length / projection.getSelectorNames().length;
+        this.basePosition = basePosition;
+        this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Reads the node identifiers and the scores of all the remaining rows of the row iterator,
+     * and returns a row iterator re-resolving the rows from the session.
+     * @param session session to re-resolve the rows from
+     * @param rowIterator row iterator to detach from
+     * @param projection projection of the query result, to find the property of each column
+     * @param chunkSize the number of rows to re-resolve at a time, or zero or less for the default size
+     * @return row iterator re-resolving the remaining rows from the session
+     * @throws RepositoryException if the remaining rows cannot be read
+     */
+    static HoldableRowIterator detach(final Session session, final RowIterator rowIterator,
+            final ColumnProjection projection, final int chunkSize) throws RepositoryException {
+        final String [] snames = projection.getSelectorNames();
+        final long basePosition = rowIterator.getPosition();
+        final List<String> identifierList = new ArrayList<>();
+        double [] scores = new double[64];
+        int count = 0;
+        Row row;
+        Node node;
+
+        while (rowIterator.hasNext()) {
+            row = rowIterator.nextRow();
+
+            for (String sname : snames) {
+                node = snames.length == 1 ? row.getNode() : row.getNode(sname);
+                identifierList.add(node != null ? node.getIdentifier() : null);
+
+                if (count == scores.length) {
+                    scores = Arrays.copyOf(scores, count * 2);
+                }
+
+                scores[count++] = snames.length == 1 ? row.getScore() : row.getScore(sname);
+            }
+        }
+
+        return new HoldableRowIterator(session, projection,
+                identifierList.toArray(new String[identifierList.size()]), Arrays.copyOf(scores, count),
+                basePosition, chunkSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (chunkIndex < chunk.size()) {
+            return true;
+        }
+
+        try {
+            while (chunkIndex >= chunk.size() && nextRowIndex < rowCount) {
+                resolveNextChunk();
+            }
+        } catch (RepositoryException e) {
+            throw new IllegalStateException("Failed to resolve the rows. " + e.toString(), e);
+        }
+
+        return chunkIndex < chunk.size();
+    }
+
+    @Override
+    public Row nextRow() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        ++position;
+        return chunk.get(chunkIndex++);
+    }
+
+    @Override
+    public Object next() {
+        return nextRow();
+    }
+
+    @Override
+    public void skip(long skipNum) {
+        for (long i = 0; i < skipNum; i++) {
+            nextRow();
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return -1;
+    }
+
+    @Override
+    public long getPosition() {
+        return basePosition + position;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private void resolveNextChunk() throws RepositoryException {
+        chunk.clear();
+        chunkIndex = 0;
+        final int end = Math.min(nextRowIndex + chunkSize, rowCount);
+        final int width = projection.getSelectorNames().length;
+        Node [] nodes;
+        String identifier;
+
+        for (; nextRowIndex < end; nextRowIndex++) {
+            nodes = new Node[width];
+
+            try {
+                for (int i = 0; i < width; i++) {
+                    identifier = identifiers[nextRowIndex * width + i];
+                    nodes[i] = identifier != null ? session.getNodeByIdentifier(identifier) : null;
+                }
+            } catch (ItemNotFoundException e) {
+                // removed after the detachment.
+                continue;
+            }
+
+            chunk.add(new DetachedRow(nodes, nextRowIndex * width));
+        }
+    }
+
+    private class DetachedRow implements Row {
+
+        private final Node [] nodes;
+        private final int scoreOffset;
+
+        DetachedRow(final Node [] nodes, final int scoreOffset) {
+            this.nodes = nodes;
+            this.scoreOffset = scoreOffset;
+        }
+
+        @Override
+        public Value [] getValues() throws RepositoryException {
+            final String [] columnNames = projection.getColumnNames();
+            final Value [] values = new Value[columnNames.length];
+
+            for (int i = 0; i < columnNames.length; i++) {
+                values[i] = getValue(columnNames[i]);
+            }
+
+            return values;
+        }
+
+        @Override
+        public Value getValue(String columnName) throws RepositoryException {
+            final String [] source = projection.getSource(columnName);
+
+            if (source == null) {
+                throw new RepositoryException("Column not found: " + columnName);
+            }
+
+            final int index = Math.max(0, projection.getSelectorIndex(source[0]));
+            final Node node = nodes[index];
+
+            if (Constants.COLUMN_JCR_PATH.equals(source[1])) {
+                return node != null ? session.getValueFactory().createValue(node.getPath(), PropertyType.PATH)
+                        : null;
+            } else if (Constants.COLUMN_JCR_SCORE.equals(source[1])) {
+                return session.getValueFactory().createValue(scores[scoreOffset + index]);
+            }
+
+            if (node == null || !node.hasProperty(source[1])) {
+                return null;
+            }
+
+            final Property property = node.getProperty(source[1]);
+            return property.isMultiple() ? null : property.getValue();
+        }
+
+        @Override
+        public Node getNode() throws RepositoryException {
+            return nodes[0];
+        }
+
+        @Override
+        public Node getNode(String selectorName) throws RepositoryException {
+            return nodes[getExistingSelectorIndex(selectorName)];
+        }
+
+        @Override
+        public String getPath() throws RepositoryException {
+            return nodes[0] != null ? nodes[0].getPath() : null;
+        }
+
+        @Override
+        public String getPath(String selectorName) throws RepositoryException {
+            final Node node = getNode(selectorName);
+            return node != null ? node.getPath() : null;
+        }
+
+        @Override
+        public double getScore() throws RepositoryException {
+            return scores[scoreOffset];
+        }
+
+        @Override
+        public double getScore(String selectorName) throws RepositoryException {
+            return scores[scoreOffset + getExistingSelectorIndex(selectorName)];
+        }
+
+        private int getExistingSelectorIndex(final String selectorName) throws RepositoryException {
+            final int index = projection.getSelectorIndex(selectorName);
+
+            if (index == -1) {
+                throw new RepositoryException("Selector not found: " + selectorName);
+            }
+
+            return index;
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+
+/**
+ * LRU cache of the sessions impersonating users from the session of a connection, keyed by user ID.
+ * <p>
+ * An impersonated session is reused with its own {@link JcrQueryCache} until evicted as the least recently used one,
+ * when it is logged out. A session producing open result sets is not evicted not to break them in the middle
+ * of iteration, so the cache may exceed the maximum size until the result sets are closed.
+ * This is not thread-safe, just like the connection owning it.
+ */
+class ImpersonationCache implements Closeable {
+
+    static final int DEFAULT_MAX_SIZE = 16;
+
+    private final Session baseSession;
+
+    private final int maxSize;
+
+    private final Map<String, ImpersonatedSession> sessions;
+
+    ImpersonationCache(final Session baseSession) {
+        this(baseSession, DEFAULT_MAX_SIZE);
+    }
+
+    ImpersonationCache(final Session baseSession, final int maxSize) {
+        this.baseSession = baseSession;
+        this.maxSize = maxSize;
+        sessions = new LinkedHashMap<String, ImpersonatedSession>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ImpersonatedSession> eldest) {
+                if (size() > maxSize) {
+                    evictLeastRecentlyUsed();
+                }
+
+                // removed by evictLeastRecentlyUsed() if any.
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached session impersonating the user, or impersonates the user from the base session.
+     * @param userId user ID to impersonate
+     * @return the session impersonating the user
+     * @throws RepositoryException if the base session is not allowed to impersonate the user
+     */
+    ImpersonatedSession get(final String userId) throws RepositoryException {
+        ImpersonatedSession impersonated = sessions.get(userId);
+
+        if (impersonated != null && impersonated.getSession().isLive()) {
+            return impersonated;
+        }
+
+        final Session session = baseSession.impersonate(new SimpleCredentials(userId, new char[0]));
+        impersonated = new ImpersonatedSession(session);
+        sessions.put(userId, impersonated);
+        return impersonated;
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Logs out and removes the least recently used sessions without open result sets, except the most recently
+     * used one, until the cache fits in the maximum size.
+     */
+    private void evictLeastRecentlyUsed() {
+        int candidates = sessions.size() - 1;
+
+        for (Iterator<ImpersonatedSession> it = sessions.values().iterator();
+                it.hasNext() && candidates-- > 0 && sessions.size() > maxSize;) {
+            final ImpersonatedSession impersonated = it.next();
+
+            if (!impersonated.hasOpenResultSets()) {
+                it.remove();
+                impersonated.logout();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        final List<ImpersonatedSession> closingSessions = new ArrayList<>(sessions.values());
+        sessions.clear();
+
+        for (ImpersonatedSession impersonated : closingSessions) {
+            impersonated.logout();
+        }
+    }
+
+    /**
+     * Session impersonating a user, with its own query cache.
+     */
+    static class ImpersonatedSession {
+
+        private final Session session;
+        private final JcrQueryCache queryCache = new JcrQueryCache();
+        private final AtomicInteger openResultSets = new AtomicInteger();
+
+        ImpersonatedSession(final Session session) {
+            this.session = session;
+        }
+
+        Session getSession() {
+            return session;
+        }
+
+        JcrQueryCache getQueryCache() {
+            return queryCache;
+        }
+
+        void resultSetOpened() {
+            openResultSets.incrementAndGet();
+        }
+
+        void resultSetClosed() {
+            openResultSets.decrementAndGet();
+        }
+
+        boolean hasOpenResultSets() {
+            return openResultSets.get() > 0;
+        }
+
+        void logout() {
+            queryCache.clear();
+
+            if (session.isLive()) {
+                session.logout();
+            }
+        }
+    }
+
+}
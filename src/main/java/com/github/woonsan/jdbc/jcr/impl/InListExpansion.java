@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expansion of <code>operand IN (?)</code> predicates of a JCR-SQL2 statement, which JCR-SQL2 doesn't support,
+ * into OR-chains of equality comparisons with bind variables:
+ * <code>(operand = $v_1 OR operand = $v_2 OR ...)</code>.
+ * <p>
+ * The number of the comparisons is rounded up to a power of two (1, 2, 4, 8, ...), padding with the last value,
+ * so that the statements for lists of different sizes fall into a few distinct statements to cache.
+ * A list may have up to {@link #MAX_VALUE_COUNT} values, not to exceed the maximum number of clauses
+ * of a Lucene boolean query (1024 by default) by the comparisons.
+ * The operand must be a property name, either bracketed or not, optionally qualified by a selector name.
+ */
+class InListExpansion {
+
+    /**
+     * The maximum number of values of an <code>IN</code> parameter.
+     */
+    static final int MAX_VALUE_COUNT = 1024;
+
+    private final String statement;
+    private final int [] parameterIndexes;
+    private final int [] begins;
+    private final int [] ends;
+    private final String [] operands;
+
+    private InListExpansion(final String statement, final List<int []> ranges, final List<String> operandList) {
+        this.statement = statement;
+        final int size = ranges.size();
+        parameterIndexes = new int[size];
+        begins = new int[size];
+        ends = new int[size];
+        operands = operandList.toArray(new String[size]);
+
+        for (int i = 0; i < size; i++) {
+            parameterIndexes[i] = ranges.get(i)[0];
+            begins[i] = ranges.get(i)[1];
+            ends[i] = ranges.get(i)[2];
+        }
+    }
+
+    /**
+     * Finds the <code>IN</code> predicates having a single parameter variable reference, named by
+     * {@link SQLQueryUtils#PARAM_VAR_REF_PREFIX} and the 1-based parameter index, in the statement.
+     * @param statement JCR-SQL2 statement with the parameter variable references
+     * @param parametersCount the number of the parameters
+     * @return the expansion of the <code>IN</code> predicates found, or null if none found
+     */
+    static InListExpansion find(final String statement, final int parametersCount) {
+        final QueryTokens tokens = QueryTokens.tokenize(statement);
+        final List<int []> ranges = new ArrayList<>();
+        final List<String> operandList = new ArrayList<>();
+        final String prefix = SQLQueryUtils.PARAM_VAR_REF_PREFIX;
+        int operandBegin;
+        int parameterIndex;
+
+        for (int i = 3; i + 1 < tokens.size(); i++) {
+            if (tokens.getType(i) != QueryTokens.VARIABLE || !tokens.getText(i).startsWith(prefix)
+                    || !isPunctuation(tokens, i - 1, '(') || !isPunctuation(tokens, i + 1, ')')
+                    || tokens.getType(i - 2) != QueryTokens.WORD || !tokens.textEqualsIgnoreCase(i - 2, "in")
+                    || !isPropertyName(tokens, i - 3)) {
+                continue;
+            }
+
+            try {
+                parameterIndex = Integer.parseInt(tokens.getText(i).substring(prefix.length())) - 1;
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            if (parameterIndex < 0 || parameterIndex >= parametersCount) {
+                continue;
+            }
+
+            operandBegin = i - 3;
+
+            if (operandBegin >= 2 && isPunctuation(tokens, operandBegin - 1, '.')
+                    && !tokens.isSeparatedFromPrevious(operandBegin)
+                    && !tokens.isSeparatedFromPrevious(operandBegin - 1)
+                    && isPropertyName(tokens, operandBegin - 2)) {
+                operandBegin -= 2;
+            }
+
+            ranges.add(new int [] { parameterIndex, tokens.getBegin(operandBegin), tokens.getEnd(i + 1) });
+            operandList.add(statement.substring(tokens.getBegin(operandBegin), tokens.getEnd(i - 3)));
+        }
+
+        return ranges.isEmpty() ? null : new InListExpansion(statement, ranges, operandList);
+    }
+
+    boolean isInListParameter(final int parameterIndex) {
+        for (int index : parameterIndexes) {
+            if (index == parameterIndex) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the statement expanding each <code>IN</code> predicate by the number of values of the parameter.
+     * @param parameters parameter values, each of which is either an array of values or a single value
+     * @return the expanded statement
+     */
+    String expand(final Object [] parameters) {
+        final StringBuilder sb = new StringBuilder(statement.length() + 64 * parameterIndexes.length);
+        final String prefix = SQLQueryUtils.PARAM_VAR_REF_PREFIX;
+        int offset = 0;
+        int bucketSize;
+
+        for (int i = 0; i < parameterIndexes.length; i++) {
+            sb.append(statement, offset, begins[i]).append('(');
+            bucketSize = getBucketSize(getValueCount(parameters[parameterIndexes[i]]));
+
+            for (int j = 0; j < bucketSize; j++) {
+                if (j > 0) {
+                    sb.append(" OR ");
+                }
+
+                sb.append(operands[i]).append(" = ").append(prefix).append(parameterIndexes[i] + 1).append('_')
+                        .append(j + 1);
+            }
+
+            sb.append(')');
+            offset = ends[i];
+        }
+
+        return sb.append(statement, offset, statement.length()).toString();
+    }
+
+    /**
+     * Returns the bind variable name of the value at <code>valueIndex</code> of an <code>IN</code> parameter.
+     * @param parameterIndex 0-based parameter index
+     * @param valueIndex 0-based value index
+     * @return the bind variable name
+     */
+    static String getVariableName(final int parameterIndex, final int valueIndex) {
+        return SQLQueryUtils.PARAM_VAR_PREFIX + (parameterIndex + 1) + "_" + (valueIndex + 1);
+    }
+
+    static int getValueCount(final Object parameter) {
+        return parameter instanceof Object[] ? ((Object[]) parameter).length : 1;
+    }
+
+    static int getBucketSize(final int valueCount) {
+        int bucketSize = 1;
+
+        while (bucketSize < valueCount && bucketSize < MAX_VALUE_COUNT) {
+            bucketSize <<= 1;
+        }
+
+        return bucketSize;
+    }
+
+    private static boolean isPunctuation(final QueryTokens tokens, final int index, final char c) {
+        return tokens.getType(index) == QueryTokens.PUNCTUATION
+                && tokens.getQuery().charAt(tokens.getBegin(index)) == c;
+    }
+
+    private static boolean isPropertyName(final QueryTokens tokens, final int index) {
+        final int type = tokens.getType(index);
+        return type == QueryTokens.BRACKETED_NAME || type == QueryTokens.WORD;
+    }
+
+}
@@ -34,10 +34,31 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.jcr.Credentials;
+import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
@@ -45,7 +66,43 @@ import com.github.woonsan.jdbc.jcr.JcrConnection;
 
 public class JcrJdbcConnection implements JcrConnection {
 
+    /**
+     * Default time in milliseconds for which a validation result in {@link #isValid(int)} is reused.
+     */
+    public static final long DEFAULT_VALIDATION_CACHE_TIME = 1000L;
+
+    /**
+     * Default time in milliseconds for which a query waits for a read-only session to be released.
+     */
+    public static final long DEFAULT_READ_ONLY_SESSION_TIMEOUT = 30000L;
+
+    /**
+     * The maximum number of the threads validating connections with a timeout in {@link #isValid(int)}.
+     */
+    private static final int MAX_VALIDATION_THREADS = 16;
+
+    private static ThreadPoolExecutor validationExecutor;
+
     private Session jcrSession;
+    private Session baseSession;
+    private Credentials credentials;
+    private Runnable closeCallback;
+    private Map<String, Session> workspaceSessions;
+    private final JcrQueryCache queryCache = new JcrQueryCache();
+    private final Set<JcrJdbcResultSet> openResultSets =
+            Collections.newSetFromMap(new WeakHashMap<JcrJdbcResultSet, Boolean>());
+    private int nodeResolverMaxWorkers = BatchNodeResolver.DEFAULT_MAX_WORKERS;
+    private BatchNodeResolver nodeResolver;
+    private final Lock sessionPoolLock = new ReentrantLock();
+    private final Lock validationLock = new ReentrantLock();
+    private int readOnlySessions;
+    private long readOnlySessionTimeout = DEFAULT_READ_ONLY_SESSION_TIMEOUT;
+    private SessionPool sessionPool;
+    private final Set<Session> borrowedSessions = Collections.newSetFromMap(new IdentityHashMap<Session, Boolean>());
+    private ImpersonationCache impersonationCache;
+    private ImpersonationCache.ImpersonatedSession impersonatedSession;
+    private Callable<JcrJdbcConnection> primaryConnector;
+    private JcrJdbcConnection primaryConnection;
 
     private boolean autoCommit = false;
     private boolean readOnly = true;
@@ -55,16 +112,83 @@ public class JcrJdbcConnection implements JcrConnection {
     private boolean closed;
     private SQLWarning warning;
     private DatabaseMetaData metaData;
+    private long validationCacheTime = DEFAULT_VALIDATION_CACHE_TIME;
+    private long lastValidatedTime;
+    private boolean lastValidationResult;
+    private Future<Boolean> validationFuture;
 
     public JcrJdbcConnection(Session jcrSession) {
+        this(jcrSession, null);
+    }
+
+    public JcrJdbcConnection(Session jcrSession, Credentials credentials) {
+        this(jcrSession, credentials, null);
+    }
+
+    /**
+     * Constructs a connection of the JCR session.
+     * @param jcrSession JCR session
+     * @param credentials credentials which the session was logged in with to log in other sessions
+     *        (for other workspaces or worker sessions), which are released on close, or null if unknown
+     * @param closeCallback callback to run once when this connection is closed, or null if not needed
+     */
+    public JcrJdbcConnection(Session jcrSession, Credentials credentials, Runnable closeCallback) {
         this.jcrSession = jcrSession;
+        baseSession = jcrSession;
+        this.credentials = credentials;
+        this.closeCallback = closeCallback;
     }
 
     @Override
     public Session getSession() {
+        if (!readOnly && primaryConnection != null) {
+            return primaryConnection.getSession();
+        }
+
         return jcrSession;
     }
 
+    @Override
+    public Session getSession(String workspaceName) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        if (!readOnly && primaryConnection != null) {
+            return primaryConnection.getSession(workspaceName);
+        }
+
+        if (workspaceName == null || workspaceName.equals(jcrSession.getWorkspace().getName())) {
+            return jcrSession;
+        }
+
+        if (impersonatedSession != null) {
+            throw new SQLException("Cannot login to workspace, '" + workspaceName + "' while impersonating a user.");
+        }
+
+        if (workspaceSessions == null) {
+            workspaceSessions = new HashMap<>();
+        }
+
+        Session session = workspaceSessions.get(workspaceName);
+
+        if (session == null || !session.isLive()) {
+            try {
+                if (credentials == null) {
+                    session = jcrSession.getRepository().login(workspaceName);
+                } else {
+                    session = jcrSession.getRepository().login(credentials, workspaceName);
+                }
+            } catch (RepositoryException e) {
+                throw new SQLException("Cannot login to workspace, '" + workspaceName + "'. " + e.toString(), e);
+            }
+
+            workspaceSessions.put(workspaceName, session);
+        }
+
+        return session;
+    }
+
     @Override
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
         if (iface == null) {
@@ -143,10 +267,27 @@ public class JcrJdbcConnection implements JcrConnection {
             throw new SQLException("JCR session was already closed.");
         }
 
-        try {
-            jcrSession.save();
-        } catch (RepositoryException e) {
-            throw new SQLException("Failed to save. " + e.toString(), e);
+        if (holdability == ResultSet.HOLD_CURSORS_OVER_COMMIT) {
+            // detach the open result sets before saving, which may invalidate their row iterators.
+            for (JcrJdbcResultSet resultSet : getOpenResultSets()) {
+                resultSet.detach(jcrSession);
+            }
+        }
+
+        if (primaryConnection != null) {
+            primaryConnection.commit();
+        } else {
+            try {
+                jcrSession.save();
+            } catch (RepositoryException e) {
+                throw new SQLException("Failed to save. " + e.toString(), e);
+            }
+        }
+
+        if (holdability == ResultSet.CLOSE_CURSORS_AT_COMMIT) {
+            for (JcrJdbcResultSet resultSet : getOpenResultSets()) {
+                resultSet.close();
+            }
         }
     }
 
@@ -156,6 +297,11 @@ public class JcrJdbcConnection implements JcrConnection {
             throw new SQLException("JCR session was already closed.");
         }
 
+        if (primaryConnection != null) {
+            primaryConnection.rollback();
+            return;
+        }
+
         try {
             jcrSession.refresh(false);
         } catch (RepositoryException e) {
@@ -166,12 +312,56 @@ public class JcrJdbcConnection implements JcrConnection {
     @Override
     public void close() throws SQLException {
         closed = true;
+        credentials = null;
+        queryCache.clear();
 
-        if (jcrSession != null) {
-            try {
-                jcrSession.logout();
-            } finally {
-                jcrSession = null;
+        synchronized (openResultSets) {
+            openResultSets.clear();
+        }
+
+        closeSessionPool();
+
+        if (nodeResolver != null) {
+            nodeResolver.close();
+            nodeResolver = null;
+        }
+
+        if (workspaceSessions != null) {
+            for (Session session : workspaceSessions.values()) {
+                if (session.isLive()) {
+                    session.logout();
+                }
+            }
+
+            workspaceSessions = null;
+        }
+
+        if (impersonationCache != null) {
+            impersonationCache.close();
+            impersonationCache = null;
+            impersonatedSession = null;
+        }
+
+        try {
+            if (primaryConnection != null) {
+                final JcrJdbcConnection closingConnection = primaryConnection;
+                primaryConnection = null;
+                closingConnection.close();
+            }
+
+            if (baseSession != null) {
+                try {
+                    baseSession.logout();
+                } finally {
+                    jcrSession = null;
+                    baseSession = null;
+                }
+            }
+        } finally {
+            if (closeCallback != null) {
+                final Runnable callback = closeCallback;
+                closeCallback = null;
+                callback.run();
             }
         }
     }
@@ -181,6 +371,167 @@ public class JcrJdbcConnection implements JcrConnection {
         return closed || jcrSession == null || !jcrSession.isLive();
     }
 
+    @Override
+    public List<Node> getNodesByIdentifier(List<String> identifiers) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        if (identifiers == null) {
+            throw new IllegalArgumentException("Identifiers cannot be null.");
+        }
+
+        if (impersonatedSession != null) {
+            // not to resolve by worker sessions logged in with the credentials of this connection.
+            final BatchNodeResolver callingThreadResolver = new BatchNodeResolver(jcrSession.getRepository(), null,
+                    jcrSession.getWorkspace().getName(), 1, BatchNodeResolver.DEFAULT_BATCH_SIZE);
+
+            try {
+                return callingThreadResolver.resolve(jcrSession, identifiers);
+            } catch (RepositoryException e) {
+                throw new SQLException("Failed to resolve nodes. " + e.toString(), e);
+            } finally {
+                callingThreadResolver.close();
+            }
+        }
+
+        if (nodeResolver == null) {
+            nodeResolver = new BatchNodeResolver(jcrSession.getRepository(), credentials,
+                    jcrSession.getWorkspace().getName(), nodeResolverMaxWorkers, BatchNodeResolver.DEFAULT_BATCH_SIZE);
+        }
+
+        try {
+            return nodeResolver.resolve(jcrSession, identifiers);
+        } catch (RepositoryException e) {
+            throw new SQLException("Failed to resolve nodes. " + e.toString(), e);
+        }
+    }
+
+    @Override
+    public void setNodeResolverMaxWorkers(int maxWorkers) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        if (maxWorkers < 1) {
+            throw new SQLException("Max workers must be greater than zero.");
+        }
+
+        if (nodeResolver != null && nodeResolver.getMaxWorkers() != maxWorkers) {
+            nodeResolver.close();
+            nodeResolver = null;
+        }
+
+        nodeResolverMaxWorkers = maxWorkers;
+    }
+
+    @Override
+    public int getNodeResolverMaxWorkers() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        return nodeResolverMaxWorkers;
+    }
+
+    @Override
+    public void setReadOnlySessions(int readOnlySessions) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        if (readOnlySessions < 0) {
+            throw new SQLException("Read-only sessions must not be negative.");
+        }
+
+        boolean changed;
+
+        sessionPoolLock.lock();
+
+        try {
+            changed = sessionPool != null && sessionPool.getMaxSessions() != readOnlySessions;
+            this.readOnlySessions = readOnlySessions;
+        } finally {
+            sessionPoolLock.unlock();
+        }
+
+        if (changed) {
+            closeSessionPool();
+        }
+    }
+
+    @Override
+    public int getReadOnlySessions() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        return readOnlySessions;
+    }
+
+    @Override
+    public void setReadOnlySessionTimeout(long readOnlySessionTimeout) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        this.readOnlySessionTimeout = readOnlySessionTimeout;
+    }
+
+    @Override
+    public long getReadOnlySessionTimeout() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        return readOnlySessionTimeout;
+    }
+
+    @Override
+    public void impersonate(String userId) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        if (userId == null || userId.equals(baseSession.getUserID())) {
+            jcrSession = baseSession;
+            impersonatedSession = null;
+            resetValidation();
+
+            if (primaryConnection != null) {
+                primaryConnection.impersonate(null);
+            }
+
+            return;
+        }
+
+        if (impersonationCache == null) {
+            impersonationCache = new ImpersonationCache(baseSession);
+        }
+
+        try {
+            impersonatedSession = impersonationCache.get(userId);
+        } catch (RepositoryException e) {
+            throw new SQLException("Cannot impersonate user, '" + userId + "'. " + e.toString(), e);
+        }
+
+        jcrSession = impersonatedSession.getSession();
+        resetValidation();
+
+        if (primaryConnection != null) {
+            primaryConnection.impersonate(userId);
+        }
+    }
+
+    @Override
+    public String getImpersonatedUserId() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        return impersonatedSession != null ? jcrSession.getUserID() : null;
+    }
+
     @Override
     public DatabaseMetaData getMetaData() throws SQLException {
         return metaData;
@@ -192,13 +543,38 @@ public class JcrJdbcConnection implements JcrConnection {
             throw new SQLException("JCR session was already closed.");
         }
 
-        if (!readOnly) {
+        if (!readOnly && primaryConnector == null) {
             throw new UnsupportedOperationException();
         }
 
+        if (!readOnly && primaryConnection == null) {
+            try {
+                primaryConnection = primaryConnector.call();
+            } catch (SQLException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("Cannot connect to the primary. " + e.toString(), e);
+            }
+
+            if (impersonatedSession != null) {
+                primaryConnection.impersonate(jcrSession.getUserID());
+            }
+        }
+
         this.readOnly = readOnly;
     }
 
+    /**
+     * Sets the connector to the primary repository of load-balanced locations, to open a connection to the primary
+     * when this connection is made writable by {@link #setReadOnly(boolean)}. While writable,
+     * {@link #getSession()} returns the session of the primary, to which {@link #commit()} and {@link #rollback()}
+     * are applied, and statements are run on the primary as well to read what was written.
+     * @param primaryConnector connector to the primary repository, or null not to allow this connection writable
+     */
+    public void setPrimaryConnector(Callable<JcrJdbcConnection> primaryConnector) {
+        this.primaryConnector = primaryConnector;
+    }
+
     @Override
     public boolean isReadOnly() throws SQLException {
         if (isClosed()) {
@@ -363,9 +739,94 @@ public class JcrJdbcConnection implements JcrConnection {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The session is validated by reading the accessible workspace names, which makes a round trip to the server
+     * for a remote repository, within the timeout. The result is reused for the validation cache time.
+     * At most one validation runs at a time for a connection, which the concurrent calls wait for, and a validation
+     * giving up by the timeout keeps running in the background to record its result instead of being started again.
+     * The connection is reported invalid if all the background validation threads are busy.
+     */
     @Override
     public boolean isValid(int timeout) throws SQLException {
-        return jcrSession != null && jcrSession.isLive();
+        if (timeout < 0) {
+            throw new SQLException("Timeout must not be negative.");
+        }
+
+        if (isClosed()) {
+            return false;
+        }
+
+        final Session session = jcrSession;
+        Future<Boolean> future;
+        FutureTask<Boolean> validation = null;
+
+        validationLock.lock();
+
+        try {
+            if (lastValidatedTime > 0L && System.currentTimeMillis() - lastValidatedTime < validationCacheTime) {
+                return lastValidationResult;
+            }
+
+            future = validationFuture;
+
+            if (future == null) {
+                validation = new FutureTask<>(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return validate(session);
+                    }
+                });
+
+                if (timeout > 0) {
+                    try {
+                        getValidationExecutor().execute(validation);
+                    } catch (RejectedExecutionException e) {
+                        // all the validation threads are busy, probably blocked by unreachable servers.
+                        return false;
+                    }
+                }
+
+                validationFuture = future = validation;
+            }
+        } finally {
+            validationLock.unlock();
+        }
+
+        if (validation != null && timeout == 0) {
+            validation.run();
+        }
+
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.SECONDS) : future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void setValidationCacheTime(long validationCacheTime) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        this.validationCacheTime = validationCacheTime;
+        resetValidation();
+    }
+
+    @Override
+    public long getValidationCacheTime() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        return validationCacheTime;
     }
 
     @Override
@@ -378,11 +839,19 @@ public class JcrJdbcConnection implements JcrConnection {
             throw new SQLClientInfoException(e.getMessage(), null);
         }
 
+        if (CLIENT_INFO_USER.equals(name)) {
+            impersonateByClientInfo(value);
+        }
+
         if (clientInfos == null) {
             clientInfos = new Properties();
         }
 
-        clientInfos.setProperty(name, value);
+        if (value == null) {
+            clientInfos.remove(name);
+        } else {
+            clientInfos.setProperty(name, value);
+        }
     }
 
     @Override
@@ -395,6 +864,10 @@ public class JcrJdbcConnection implements JcrConnection {
             throw new SQLClientInfoException(e.getMessage(), null);
         }
 
+        if (properties.containsKey(CLIENT_INFO_USER)) {
+            impersonateByClientInfo(properties.getProperty(CLIENT_INFO_USER));
+        }
+
         if (clientInfos == null) {
             clientInfos = new Properties();
         }
@@ -468,4 +941,284 @@ public class JcrJdbcConnection implements JcrConnection {
     protected Session getJcrSession() {
         return jcrSession;
     }
+
+    /**
+     * Returns the connection which statements are run by, which is the primary connection while this connection
+     * is writable, or this connection otherwise.
+     * @return the connection which statements are run by
+     */
+    JcrJdbcConnection getStatementConnection() {
+        if (!readOnly && primaryConnection != null) {
+            return primaryConnection;
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns true if the session is the session of this connection or of its primary connection,
+     * not a read-only session borrowed from the pool.
+     * @param session session
+     * @return true if the session is the session of this connection or of its primary connection
+     */
+    boolean isConnectionSession(final Session session) {
+        if (session == jcrSession) {
+            return true;
+        }
+
+        return primaryConnection != null && primaryConnection.isConnectionSession(session);
+    }
+
+    /**
+     * Registers the result set to be held over (or closed at) commits by the holdability of this connection,
+     * until the result set is closed.
+     * @param resultSet open result set
+     */
+    void addOpenResultSet(final JcrJdbcResultSet resultSet) {
+        synchronized (openResultSets) {
+            openResultSets.add(resultSet);
+        }
+    }
+
+    void removeOpenResultSet(final JcrJdbcResultSet resultSet) {
+        synchronized (openResultSets) {
+            openResultSets.remove(resultSet);
+        }
+    }
+
+    JcrQueryCache getQueryCache() {
+        return impersonatedSession != null ? impersonatedSession.getQueryCache() : queryCache;
+    }
+
+    ImpersonationCache.ImpersonatedSession getImpersonatedSession() {
+        return impersonatedSession;
+    }
+
+    /**
+     * Returns the query cache of the session, which is either the session of this connection
+     * or a read-only session borrowed by {@link #borrowSession()}.
+     */
+    JcrQueryCache getQueryCache(final Session session) {
+        if (session == jcrSession) {
+            return getQueryCache();
+        }
+
+        if (primaryConnection != null && !isBorrowedSession(session)) {
+            return primaryConnection.getQueryCache(session);
+        }
+
+        final SessionPool pool = getSessionPool(false);
+        return pool != null ? pool.getQueryCache(session) : new JcrQueryCache();
+    }
+
+    /**
+     * Borrows a session to run a query by, which is the session of the primary connection while this connection
+     * is writable to read what was written through it, a read-only session from the pool if read-only sessions
+     * are enabled, or the session of this connection otherwise.
+     * @return a session to run a query by
+     * @throws SQLException if this connection was closed or it fails to borrow a session
+     */
+    Session borrowSession() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("JCR session was already closed.");
+        }
+
+        if (!readOnly && primaryConnection != null) {
+            return primaryConnection.getSession();
+        }
+
+        final SessionPool pool = impersonatedSession == null ? getSessionPool(true) : null;
+
+        if (pool == null) {
+            return jcrSession;
+        }
+
+        final Session session;
+
+        try {
+            session = pool.borrow(readOnlySessionTimeout);
+        } catch (RepositoryException e) {
+            throw new SQLException("Cannot borrow a read-only session. " + e.toString(), e);
+        }
+
+        boolean borrowed = false;
+
+        sessionPoolLock.lock();
+
+        try {
+            if (sessionPool == pool) {
+                borrowedSessions.add(session);
+                borrowed = true;
+            }
+        } finally {
+            sessionPoolLock.unlock();
+        }
+
+        if (!borrowed) {
+            // the pool was replaced or closed meanwhile.
+            pool.discard(session);
+            throw new SQLException("Cannot borrow a read-only session as the read-only sessions were reset.");
+        }
+
+        return session;
+    }
+
+    /**
+     * Releases the session borrowed by {@link #borrowSession()}.
+     * @param session the borrowed session
+     */
+    void releaseSession(final Session session) {
+        if (session == jcrSession) {
+            return;
+        }
+
+        SessionPool pool = null;
+
+        sessionPoolLock.lock();
+
+        try {
+            if (borrowedSessions.remove(session)) {
+                pool = sessionPool;
+            }
+        } finally {
+            sessionPoolLock.unlock();
+        }
+
+        if (pool != null) {
+            pool.release(session);
+        } else if (primaryConnection != null) {
+            primaryConnection.releaseSession(session);
+        }
+    }
+
+    private boolean isBorrowedSession(final Session session) {
+        sessionPoolLock.lock();
+
+        try {
+            return borrowedSessions.contains(session);
+        } finally {
+            sessionPoolLock.unlock();
+        }
+    }
+
+    int getReadOnlySessionCount() {
+        final SessionPool pool = getSessionPool(false);
+        return pool != null ? pool.getSessionCount() : 0;
+    }
+
+    private SessionPool getSessionPool(final boolean create) {
+        sessionPoolLock.lock();
+
+        try {
+            if (sessionPool == null && create && readOnlySessions > 0) {
+                sessionPool = SessionPool.share(jcrSession.getRepository(), credentials,
+                        jcrSession.getWorkspace().getName(), readOnlySessions);
+            }
+
+            return sessionPool;
+        } finally {
+            sessionPoolLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the read-only session pool, which may be shared by other connections, discarding the sessions
+     * still borrowed by the result sets of this connection not to be handed to others while in use.
+     */
+    private void closeSessionPool() {
+        final SessionPool closingPool;
+        final List<Session> discardingSessions;
+
+        sessionPoolLock.lock();
+
+        try {
+            closingPool = sessionPool;
+            sessionPool = null;
+            discardingSessions = new ArrayList<>(borrowedSessions);
+            borrowedSessions.clear();
+        } finally {
+            sessionPoolLock.unlock();
+        }
+
+        if (closingPool != null) {
+            for (Session session : discardingSessions) {
+                closingPool.discard(session);
+            }
+
+            closingPool.close();
+        }
+    }
+
+    private void impersonateByClientInfo(final String userId) throws SQLClientInfoException {
+        try {
+            impersonate(userId);
+        } catch (SQLException e) {
+            throw new SQLClientInfoException(e.getMessage(), null, e);
+        }
+    }
+
+    private List<JcrJdbcResultSet> getOpenResultSets() {
+        synchronized (openResultSets) {
+            return new ArrayList<>(openResultSets);
+        }
+    }
+
+    /**
+     * Validates the session and records the result to reuse for the validation cache time,
+     * unless the session of this connection was changed meanwhile.
+     */
+    private boolean validate(final Session session) {
+        final boolean valid = validateSession(session);
+
+        validationLock.lock();
+
+        try {
+            validationFuture = null;
+
+            if (session == jcrSession) {
+                lastValidationResult = valid;
+                lastValidatedTime = System.currentTimeMillis();
+            }
+        } finally {
+            validationLock.unlock();
+        }
+
+        return valid;
+    }
+
+    private void resetValidation() {
+        validationLock.lock();
+
+        try {
+            lastValidatedTime = 0L;
+        } finally {
+            validationLock.unlock();
+        }
+    }
+
+    private static boolean validateSession(final Session session) {
+        try {
+            session.getWorkspace().getAccessibleWorkspaceNames();
+            return session.isLive();
+        } catch (RepositoryException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getValidationExecutor() {
+        if (validationExecutor == null) {
+            validationExecutor = new ThreadPoolExecutor(0, MAX_VALIDATION_THREADS, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "jdbc-jcr-connection-validator");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+
+        return validationExecutor;
+    }
+
 }
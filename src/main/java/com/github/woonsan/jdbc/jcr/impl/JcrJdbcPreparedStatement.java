@@ -39,15 +39,15 @@ import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
+import java.util.Collection;
 
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
 import javax.jcr.Value;
 import javax.jcr.ValueFactory;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
 
-import org.apache.jackrabbit.util.ISO8601;
-
 class JcrJdbcPreparedStatement extends JcrJdbcStatement implements PreparedStatement {
 
     private final ValueFactory valueFactory;
@@ -59,6 +59,10 @@ class JcrJdbcPreparedStatement extends JcrJdbcStatement implements PreparedState
 
     private String jcrQueryStatement;
 
+    private QueryStatementTemplate queryStatementTemplate;
+
+    private InListExpansion inListExpansion;
+
     private Object[] parameters;
 
     private ParameterMetaData parameterMetaData;
@@ -68,17 +72,26 @@ class JcrJdbcPreparedStatement extends JcrJdbcStatement implements PreparedState
         super(connection);
 
         try {
-            valueFactory = connection.getJcrSession().getValueFactory();
+            valueFactory = connection.getStatementConnection().getJcrSession().getValueFactory();
 
-            final StringBuilder jcrQueryBuilder = new StringBuilder(queryStatement.length());
-            parametersCount = SQLQueryUtils.convertParameterBindingSqlToVariableBindingQuery(queryStatement,
+            final QueryTokens tokens = QueryTokens.tokenize(queryStatement);
+            final StringBuilder jcrQueryBuilder = new StringBuilder(queryStatement.length() + 16);
+            parametersCount = SQLQueryUtils.convertParameterBindingSqlToVariableBindingQuery(tokens,
                     jcrQueryBuilder);
 
             parameters = new Object[parametersCount];
             parameterMetaData = new JcrJdbcParameterMetaData(parameters);
 
             jcrQueryStatement = jcrQueryBuilder.toString();
-            queryLanguage = SQLQueryUtils.detectQueryLanguage(jcrQueryStatement);
+            queryLanguage = SQLQueryUtils.detectQueryLanguage(tokens);
+
+            if (Query.JCR_SQL2.equals(queryLanguage)) {
+                if (parametersCount > 0) {
+                    inListExpansion = InListExpansion.find(jcrQueryStatement, parametersCount);
+                }
+            } else {
+                queryStatementTemplate = new QueryStatementTemplate(jcrQueryStatement, parametersCount);
+            }
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -98,14 +111,32 @@ class JcrJdbcPreparedStatement extends JcrJdbcStatement implements PreparedState
             }
 
             if (Query.JCR_SQL2.equals(queryLanguage)) {
-                query = ((JcrJdbcConnection) getConnection()).getJcrSession().getWorkspace().getQueryManager()
-                        .createQuery(jcrQueryStatement, queryLanguage);
+                JcrJdbcConnection connection = (JcrJdbcConnection) getConnection();
+                String queryStatement = jcrQueryStatement;
+
+                if (inListExpansion != null) {
+                    queryStatement = inListExpansion.expand(parameters);
+                }
+
+                Session session = borrowSession();
+                query = connection.getQueryCache(session).getQuery(session, queryStatement,
+                        queryLanguage, getMaxRows());
 
                 if (parametersCount > 0) {
                     String paramVarName;
                     Value value;
 
                     for (int i = 0; i < parametersCount; i++) {
+                        if (inListExpansion != null && inListExpansion.isInListParameter(i)) {
+                            bindInListValues(query, i, parameters[i]);
+                            continue;
+                        }
+
+                        if (parameters[i] instanceof Object[]) {
+                            throw new SQLException("SQL Parameter at position " + (i + 1)
+                                    + " can have multiple values only in an IN (?) predicate.");
+                        }
+
                         value = toJcrValue(parameters[i]);
                         paramVarName = SQLQueryUtils.PARAM_VAR_PREFIX + (i + 1);
                         query.bindValue(paramVarName, value);
@@ -115,44 +146,33 @@ class JcrJdbcPreparedStatement extends JcrJdbcStatement implements PreparedState
                 String queryStatement = jcrQueryStatement;
 
                 if (parametersCount > 0) {
-                    String paramVarRef;
-                    Object value;
-                    String stringifiedValue;
-                    int offset;
-
                     for (int i = 0; i < parametersCount; i++) {
-                        stringifiedValue = null;
-                        value = parameters[i];
-
-                        if (value instanceof String) {
-                            stringifiedValue = "'" + ((String) value).replaceAll("'", "''") + "'";
-                        } else if (value instanceof Number || value instanceof Boolean) {
-                            stringifiedValue = value.toString();
-                        } else if (value instanceof Calendar) {
-                            stringifiedValue = "'" + ISO8601.format((Calendar) value) + "'";
-                        }
-
-                        if (stringifiedValue != null) {
-                            paramVarRef = SQLQueryUtils.PARAM_VAR_REF_PREFIX + (i + 1);
-                            offset = queryStatement.indexOf(paramVarRef);
-                            queryStatement = queryStatement.substring(0, offset) + stringifiedValue
-                                    + queryStatement.substring(offset + paramVarRef.length());
+                        if (parameters[i] instanceof Object[]) {
+                            throw new SQLException("SQL Parameter at position " + (i + 1)
+                                    + " can have multiple values only in JCR-SQL2 query statement.");
                         }
                     }
+
+                    queryStatement = queryStatementTemplate.bind(parameters);
                 }
 
-                query = ((JcrJdbcConnection) getConnection()).getJcrSession().getWorkspace().getQueryManager()
-                        .createQuery(queryStatement, queryLanguage);
-            }
+                query = borrowSession().getWorkspace().getQueryManager().createQuery(queryStatement,
+                        queryLanguage);
 
-            if (getMaxRows() > 0) {
-                query.setLimit(getMaxRows());
+                if (getMaxRows() > 0) {
+                    query.setLimit(getMaxRows());
+                }
             }
 
             QueryResult queryResult = query.execute();
-
-            setResultSet(new JcrJdbcResultSet(this, queryResult));
+            JcrJdbcResultSet resultSet = new JcrJdbcResultSet(this, queryResult, isIdentifierOnlyScan());
+            resultSet.setProjection(query, isStrictProjection());
+            resultSet.setFetchSize(getFetchSize());
+            resultSet.prefetch(getBorrowedSession());
+            resultSet.registerHoldable((JcrJdbcConnection) getConnection());
+            setResultSet(resultSet);
         } catch (RepositoryException e) {
+            releaseSession();
             throw new SQLException(e.toString(), e);
         }
 
@@ -266,12 +286,22 @@ class JcrJdbcPreparedStatement extends JcrJdbcStatement implements PreparedState
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
-        throw new UnsupportedOperationException();
+        setObject(parameterIndex, x);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A {@link Collection} or an array sets multiple values for an <code>IN (?)</code> predicate
+     * in a JCR-SQL2 query statement.
+     */
     @Override
     public void setObject(int parameterIndex, Object x) throws SQLException {
-        throw new UnsupportedOperationException();
+        if (x instanceof Collection || (x != null && x.getClass().isArray())) {
+            parameters[parameterIndex - 1] = toArrayParameter(parameterIndex, x);
+        } else {
+            parameters[parameterIndex - 1] = toParameter(parameterIndex, x);
+        }
     }
 
     @Override
@@ -304,9 +334,18 @@ class JcrJdbcPreparedStatement extends JcrJdbcStatement implements PreparedState
         throw new SQLFeatureNotSupportedException();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The array sets multiple values for an <code>IN (?)</code> predicate in a JCR-SQL2 query statement.
+     */
     @Override
     public void setArray(int parameterIndex, Array x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        if (x == null) {
+            throw new SQLException("SQL Parameter at position " + parameterIndex + " cannot be null.");
+        }
+
+        parameters[parameterIndex - 1] = toArrayParameter(parameterIndex, x.getArray());
     }
 
     @Override
@@ -449,6 +488,71 @@ class JcrJdbcPreparedStatement extends JcrJdbcStatement implements PreparedState
         return valueFactory;
     }
 
+    private void bindInListValues(final Query query, final int parameterIndex, final Object parameter)
+            throws RepositoryException {
+        final Object [] values = parameter instanceof Object[] ? (Object[]) parameter : new Object [] { parameter };
+        final int bucketSize = InListExpansion.getBucketSize(values.length);
+        Value value = null;
+
+        for (int i = 0; i < bucketSize; i++) {
+            // pads with the last value.
+            if (i < values.length) {
+                value = toJcrValue(values[i]);
+            }
+
+            query.bindValue(InListExpansion.getVariableName(parameterIndex, i), value);
+        }
+    }
+
+    private Object [] toArrayParameter(final int parameterIndex, final Object x) throws SQLException {
+        final Object [] values;
+
+        if (x instanceof Collection) {
+            values = ((Collection<?>) x).toArray(new Object[((Collection<?>) x).size()]);
+        } else if (x != null && x.getClass().isArray()) {
+            values = new Object[java.lang.reflect.Array.getLength(x)];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = java.lang.reflect.Array.get(x, i);
+            }
+        } else {
+            throw new SQLException("SQL Parameter at position " + parameterIndex + " is not an array.");
+        }
+
+        if (values.length == 0) {
+            throw new SQLException("SQL Parameter at position " + parameterIndex + " cannot be an empty array.");
+        }
+
+        if (values.length > InListExpansion.MAX_VALUE_COUNT) {
+            throw new SQLException("SQL Parameter at position " + parameterIndex + " cannot have more than "
+                    + InListExpansion.MAX_VALUE_COUNT + " values, but has " + values.length + " values.");
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = toParameter(parameterIndex, values[i]);
+        }
+
+        return values;
+    }
+
+    private Object toParameter(final int parameterIndex, final Object x) throws SQLException {
+        if (x instanceof String || x instanceof Long || x instanceof Double || x instanceof BigDecimal
+                || x instanceof Calendar || x instanceof Boolean) {
+            return x;
+        } else if (x instanceof Integer || x instanceof Short || x instanceof Byte) {
+            return Long.valueOf(((Number) x).longValue());
+        } else if (x instanceof Float) {
+            return Double.valueOf(((Float) x).doubleValue());
+        } else if (x instanceof java.util.Date) {
+            Calendar calendarValue = Calendar.getInstance();
+            calendarValue.setTimeInMillis(((java.util.Date) x).getTime());
+            return calendarValue;
+        }
+
+        throw new SQLException("SQL Parameter at position " + parameterIndex + " is of an unsupported type: "
+                + (x != null ? x.getClass().getName() : null));
+    }
+
     Value toJcrValue(final Object value) {
         Value jcrValue = null;
 
@@ -18,6 +18,7 @@
  */
 package com.github.woonsan.jdbc.jcr.impl;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -42,20 +43,28 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.jcr.Binary;
 import javax.jcr.Node;
 import javax.jcr.Property;
 import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
 import javax.jcr.Value;
+import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
 import javax.jcr.query.Row;
 import javax.jcr.query.RowIterator;
+import javax.jcr.query.qom.Column;
+import javax.jcr.query.qom.QueryObjectModel;
 
 import com.github.woonsan.jdbc.jcr.Constants;
 import com.github.woonsan.jdbc.jcr.JcrResultSet;
@@ -64,9 +73,25 @@ class JcrJdbcResultSet implements JcrResultSet {
 
     private Statement statement;
     private final String [] columnNames;
+    private final String [] queryColumnNames;
+    private final String [] selectorNames;
+    private Column [] queryColumns;
+    private ColumnProjection columnProjection;
+    private boolean strictProjection;
+    private JcrJdbcConnection holdingConnection;
+    private ImpersonationCache.ImpersonatedSession impersonatedSession;
+    private final boolean identifierOnly;
     private final Map<String, Integer> metaColumnIndexMap;
+    private final Set<String> queryColumnNameSet;
+    private final Map<String, Integer> queryColumnIndexMap;
+    private final Value [] rowValues;
+    private final int [] rowValueRowNumbers;
+    private final Map<String, MetaColumnResolver> selectorMetaColumnResolverMap;
+    private MetaColumnResolver defaultMetaColumnResolver;
     private ResultSetMetaData resultSetMetaData;
     private RowIterator rowIterator;
+    private Closeable closeableQueryResult;
+    private KeysetQueryResult keysetQueryResult;
     private Row currentRow;
     private int rowNumber = 0;
     private boolean afterLast;
@@ -79,16 +104,58 @@ class JcrJdbcResultSet implements JcrResultSet {
     private int holdability = ResultSet.HOLD_CURSORS_OVER_COMMIT;
 
     JcrJdbcResultSet(final Statement statement, final QueryResult queryResult) throws SQLException {
+        this(statement, queryResult, false);
+    }
+
+    /**
+     * Constructs the result set of the query result.
+     * @param statement statement which produced this result set
+     * @param queryResult query result
+     * @param identifierOnly true to provide only the meta-columns, without reading the property values of the rows
+     * @throws SQLException if the query result cannot be read
+     */
+    JcrJdbcResultSet(final Statement statement, final QueryResult queryResult, final boolean identifierOnly)
+            throws SQLException {
         this.statement = statement;
+        this.identifierOnly = identifierOnly;
 
         try {
-            String [] cnames = queryResult.getColumnNames();
+            String [] cnames = identifierOnly ? new String[0] : queryResult.getColumnNames();
+            String [] snames = queryResult.getSelectorNames();
+            queryColumnNames = cnames;
+            selectorNames = snames;
             List<String> cnameList = new ArrayList<>();
             metaColumnIndexMap = new HashMap<>();
+            queryColumnNameSet = new HashSet<>(Arrays.asList(cnames));
+            queryColumnIndexMap = new HashMap<>();
+            // values of the query columns read from the current row, cached by the row number.
+            rowValues = new Value[cnames.length];
+            rowValueRowNumbers = new int[cnames.length];
+            Arrays.fill(rowValueRowNumbers, -1);
+            selectorMetaColumnResolverMap = new LinkedHashMap<>();
+
+            if (snames != null && snames.length > 1) {
+                for (String sname : snames) {
+                    selectorMetaColumnResolverMap.put(sname, new MetaColumnResolver(sname));
+                }
+
+                // unqualified meta-columns are resolved against the first selector in a multi-selector result.
+                defaultMetaColumnResolver = selectorMetaColumnResolverMap.get(snames[0]);
+            } else {
+                defaultMetaColumnResolver = new MetaColumnResolver();
+
+                if (snames != null && snames.length == 1) {
+                    selectorMetaColumnResolverMap.put(snames[0], defaultMetaColumnResolver);
+                }
+            }
 
             for (int i = 0; i < cnames.length; i++) {
                 cnameList.add(cnames[i]);
 
+                if (!queryColumnIndexMap.containsKey(cnames[i])) {
+                    queryColumnIndexMap.put(cnames[i], i);
+                }
+
                 // when 'sql' query language used, jcr:path and jcr:score columns are available.
                 if (Constants.COLUMN_JCR_PATH.equals(cnames[i])) {
                     metaColumnIndexMap.put(Constants.COLUMN_JCR_PATH, i + 1);
@@ -103,9 +170,112 @@ class JcrJdbcResultSet implements JcrResultSet {
                 }
             }
 
+            if (snames != null && snames.length > 1) {
+                String qualifiedMetaCol;
+
+                for (String sname : snames) {
+                    for (String metaCol : Constants.META_COLUMNS) {
+                        qualifiedMetaCol = sname + "." + metaCol;
+
+                        if (!cnameList.contains(qualifiedMetaCol)) {
+                            cnameList.add(qualifiedMetaCol);
+                        }
+                    }
+                }
+            }
+
             columnNames = cnameList.toArray(new String[cnameList.size()]);
 
             rowIterator = queryResult.getRows();
+
+            if (queryResult instanceof Closeable) {
+                closeableQueryResult = (Closeable) queryResult;
+            }
+
+            if (queryResult instanceof KeysetQueryResult) {
+                keysetQueryResult = (KeysetQueryResult) queryResult;
+            }
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    /**
+     * Sets the query executed for this result set, to analyze which selector and property each column is read from.
+     * If a meta-column such as <code>jcr:uuid</code> is projected by the query, it is read from the row
+     * instead of loading the node.
+     * @param query query executed for this result set, or null if not available
+     * @param strict true to raise an error on reading a property not projected by the query
+     */
+    void setProjection(final Query query, final boolean strict) {
+        queryColumns = query instanceof QueryObjectModel ? ((QueryObjectModel) query).getColumns() : null;
+        columnProjection = null;
+        strictProjection = strict;
+
+        final ColumnProjection projection = getColumnProjection();
+        final String [] snames = projection.getSelectorNames();
+
+        for (MetaColumnResolver resolver : selectorMetaColumnResolverMap.values()) {
+            resolver.setIdentifierColumnName(
+                    projection.getColumnName(resolver.getSelectorName(), Constants.COLUMN_JCR_UUID));
+        }
+
+        if (!selectorMetaColumnResolverMap.containsValue(defaultMetaColumnResolver)) {
+            defaultMetaColumnResolver.setIdentifierColumnName(
+                    projection.getColumnName(snames[0], Constants.COLUMN_JCR_UUID));
+        }
+    }
+
+    /**
+     * Registers this result set to the connection to be held over (or closed at) commits, and to the impersonated
+     * session producing it if any, not to be evicted until this result set is closed.
+     * @param connection connection to register to
+     */
+    void registerHoldable(final JcrJdbcConnection connection) {
+        holdingConnection = connection;
+        connection.addOpenResultSet(this);
+        impersonatedSession = connection.getStatementConnection().getImpersonatedSession();
+
+        if (impersonatedSession != null) {
+            impersonatedSession.resultSetOpened();
+        }
+    }
+
+    /**
+     * Reads ahead the rows by the fetch size, loading the nodes of the rows in a window together before the rows
+     * are read, to save round trips to a remote repository. Nothing is prefetched if the fetch size is not set,
+     * for an identifier-only scan or for the results of a hash join, which are already buffered by the driver.
+     * @param session session to read the parent nodes shared by the rows from, or null not to read those
+     */
+    void prefetch(final Session session) {
+        if (fetchSize <= 0 || identifierOnly || closeableQueryResult != null
+                || rowIterator instanceof HoldableRowIterator) {
+            return;
+        }
+
+        if (rowIterator instanceof PrefetchingRowIterator) {
+            ((PrefetchingRowIterator) rowIterator).setWindowSize(fetchSize);
+        } else {
+            rowIterator = new PrefetchingRowIterator(rowIterator, session, selectorNames, fetchSize);
+        }
+    }
+
+    /**
+     * Detaches the remaining rows from the query result by their node identifiers, to re-resolve them
+     * from the session on reading, so that this result set can still be read after the session is saved.
+     * Results of a keyset paginated query or a hash join are not detached as those are bounded by a page
+     * or already buffered by the driver.
+     * @param session session to re-resolve the rows from
+     * @throws SQLException if the remaining rows cannot be read
+     */
+    void detach(final Session session) throws SQLException {
+        if (isClosed() || afterLast || rowIterator instanceof HoldableRowIterator || closeableQueryResult != null
+                || keysetQueryResult != null) {
+            return;
+        }
+
+        try {
+            rowIterator = HoldableRowIterator.detach(session, rowIterator, getColumnProjection(), fetchSize);
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -120,6 +290,23 @@ class JcrJdbcResultSet implements JcrResultSet {
         return currentRow;
     }
 
+    @Override
+    public String getCursorToken() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        if (keysetQueryResult == null) {
+            throw new SQLException("Cursor token is available only from a keyset paginated query.");
+        }
+
+        try {
+            return keysetQueryResult.getCursorToken();
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
     @Override
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
         if (iface == null) {
@@ -148,21 +335,53 @@ class JcrJdbcResultSet implements JcrResultSet {
             throw new SQLException("ResultSet was already closed.");
         }
 
-        if (rowIterator.hasNext()) {
-            currentRow = rowIterator.nextRow();
-            ++rowNumber;
-            return true;
-        } else {
-            afterLast = true;
-            currentRow = null;
-            return false;
+        try {
+            if (rowIterator.hasNext()) {
+                currentRow = rowIterator.nextRow();
+                resetMetaColumnResolvers(currentRow);
+                ++rowNumber;
+                return true;
+            } else {
+                afterLast = true;
+                currentRow = null;
+                resetMetaColumnResolvers(null);
+                return false;
+            }
+        } catch (IllegalStateException e) {
+            // a row iterator, e.g, of a hash join, failing to read the next row.
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new SQLException(cause.toString(), cause);
         }
     }
 
     @Override
     public void close() throws SQLException {
+        if (statement instanceof JcrJdbcStatement) {
+            ((JcrJdbcStatement) statement).resultSetClosed(this);
+        }
+
         closed = true;
         statement = null;
+
+        if (holdingConnection != null) {
+            holdingConnection.removeOpenResultSet(this);
+            holdingConnection = null;
+        }
+
+        if (impersonatedSession != null) {
+            impersonatedSession.resultSetClosed();
+            impersonatedSession = null;
+        }
+
+        if (closeableQueryResult != null) {
+            try {
+                closeableQueryResult.close();
+            } catch (IOException e) {
+                throw new SQLException(e.toString(), e);
+            } finally {
+                closeableQueryResult = null;
+            }
+        }
     }
 
     @Override
@@ -261,16 +480,24 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         try {
-            if (Constants.COLUMN_JCR_NAME.equals(columnLabel)) {
-                return getCurrentRow().getNode().getName();
-            } else if (Constants.COLUMN_JCR_PATH.equals(columnLabel) && !metaColumnIndexMap.containsKey(Constants.COLUMN_JCR_PATH)) {
-                return getCurrentRow().getPath();
-            } else if (Constants.COLUMN_JCR_UUID.equals(columnLabel)) {
-                return getCurrentRow().getNode().getIdentifier();
+            final String metaColumnName = getMetaColumnName(columnLabel);
+            String metaColumnValue = null;
+
+            if (Constants.COLUMN_JCR_NAME.equals(metaColumnName)) {
+                metaColumnValue = getMetaColumnResolver(columnLabel).getName();
+            } else if (Constants.COLUMN_JCR_PATH.equals(metaColumnName)) {
+                metaColumnValue = getMetaColumnResolver(columnLabel).getPath();
+            } else if (Constants.COLUMN_JCR_UUID.equals(metaColumnName)) {
+                metaColumnValue = getMetaColumnResolver(columnLabel).getIdentifier();
+            } else if (Constants.COLUMN_JCR_SCORE.equals(metaColumnName)) {
+                metaColumnValue = Double.toString(getMetaColumnResolver(columnLabel).getScore());
             } else {
-                Value value = getColumnValue(getCurrentRow(), columnLabel);
-                return value.getString();
+                Value value = getCurrentColumnValue(columnLabel);
+                return value != null ? value.getString() : null;
             }
+
+            lastColumnReadHadNull = metaColumnValue == null;
+            return metaColumnValue;
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -283,8 +510,8 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return value.getBoolean();
+            Value value = getCurrentColumnValue(columnLabel);
+            return value != null ? value.getBoolean() : false;
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -302,8 +529,8 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return (short) value.getLong();
+            Value value = getCurrentColumnValue(columnLabel);
+            return value != null ? (short) value.getLong() : 0;
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -316,8 +543,8 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return (int) value.getLong();
+            Value value = getCurrentColumnValue(columnLabel);
+            return value != null ? (int) value.getLong() : 0;
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -330,8 +557,8 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return value.getLong();
+            Value value = getCurrentColumnValue(columnLabel);
+            return value != null ? value.getLong() : 0L;
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -344,8 +571,8 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return (float) value.getDouble();
+            Value value = getCurrentColumnValue(columnLabel);
+            return value != null ? (float) value.getDouble() : 0.0f;
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -358,11 +585,12 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         try {
-            if (Constants.COLUMN_JCR_SCORE.equals(columnLabel) && !metaColumnIndexMap.containsKey(Constants.COLUMN_JCR_SCORE)) {
-                return getCurrentRow().getScore();
+            if (Constants.COLUMN_JCR_SCORE.equals(getMetaColumnName(columnLabel))) {
+                lastColumnReadHadNull = false;
+                return getMetaColumnResolver(columnLabel).getScore();
             } else {
-                Value value = getColumnValue(getCurrentRow(), columnLabel);
-                return value.getDouble();
+                Value value = getCurrentColumnValue(columnLabel);
+                return value != null ? value.getDouble() : 0.0;
             }
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
@@ -383,7 +611,11 @@ class JcrJdbcResultSet implements JcrResultSet {
         byte [] bytes = null;
 
         try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
+            Value value = getCurrentColumnValue(columnLabel);
+
+            if (value == null) {
+                return null;
+            }
 
             if (value.getType() != PropertyType.BINARY) {
                 throw new SQLException("Not a binary field.");
@@ -408,44 +640,20 @@ class JcrJdbcResultSet implements JcrResultSet {
 
     @Override
     public Date getDate(String columnLabel) throws SQLException {
-        if (isClosed()) {
-            throw new SQLException("ResultSet was already closed.");
-        }
-
-        try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return new Date(value.getDate().getTimeInMillis());
-        } catch (RepositoryException e) {
-            throw new SQLException(e.toString(), e);
-        }
+        final Value value = getCurrentDateValue(columnLabel);
+        return value != null ? new Date(getEpochMillis(value)) : null;
     }
 
     @Override
     public Time getTime(String columnLabel) throws SQLException {
-        if (isClosed()) {
-            throw new SQLException("ResultSet was already closed.");
-        }
-
-        try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return new Time(value.getDate().getTimeInMillis());
-        } catch (RepositoryException e) {
-            throw new SQLException(e.toString(), e);
-        }
+        final Value value = getCurrentDateValue(columnLabel);
+        return value != null ? new Time(getEpochMillis(value)) : null;
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel) throws SQLException {
-        if (isClosed()) {
-            throw new SQLException("ResultSet was already closed.");
-        }
-
-        try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return new Timestamp(value.getDate().getTimeInMillis());
-        } catch (RepositoryException e) {
-            throw new SQLException(e.toString(), e);
-        }
+        final Value value = getCurrentDateValue(columnLabel);
+        return value != null ? new Timestamp(getEpochMillis(value)) : null;
     }
 
     @Override
@@ -467,7 +675,11 @@ class JcrJdbcResultSet implements JcrResultSet {
         InputStream binaryStream = null;
 
         try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
+            Value value = getCurrentColumnValue(columnLabel);
+
+            if (value == null) {
+                return null;
+            }
 
             if (value.getType() != PropertyType.BINARY) {
                 throw new SQLException("Not a binary field.");
@@ -559,8 +771,8 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         try {
-            Value value = getColumnValue(getCurrentRow(), columnLabel);
-            return value.getDecimal();
+            Value value = getCurrentColumnValue(columnLabel);
+            return value != null ? value.getDecimal() : null;
         } catch (RepositoryException e) {
             throw new SQLException(e.toString(), e);
         }
@@ -669,6 +881,10 @@ class JcrJdbcResultSet implements JcrResultSet {
         }
 
         this.fetchSize = fetchSize;
+
+        if (rowIterator instanceof PrefetchingRowIterator && fetchSize > 0) {
+            ((PrefetchingRowIterator) rowIterator).setWindowSize(fetchSize);
+        }
     }
 
     @Override
@@ -1010,11 +1226,25 @@ class JcrJdbcResultSet implements JcrResultSet {
             throw new SQLException("ResultSet was already closed.");
         }
 
+        if (identifierOnly) {
+            throw new SQLException("Only meta-columns are available in an identifier-only scan: " + columnLabel);
+        }
+
+        final String [] source = queryColumnNameSet.contains(columnLabel)
+                ? getColumnProjection().getSource(columnLabel) : null;
+
+        if (source == null && strictProjection) {
+            throw new SQLException("Column not projected by the query: " + columnLabel);
+        }
+
         try {
-            final Node node = getCurrentRow().getNode();
+            // read the projected property of the selector, which may differ from the column label if aliased.
+            final Node node = source != null ? getSelectorMetaColumnResolverByName(source[0]).getNode()
+                    : getMetaColumnResolver(columnLabel).getNode();
+            final String propName = source != null ? source[1] : getPropertyName(columnLabel);
 
-            if (node.hasProperty(columnLabel)) {
-                final Property prop = node.getProperty(columnLabel);
+            if (node != null && node.hasProperty(propName)) {
+                final Property prop = node.getProperty(propName);
                 return new JcrValuesArray(prop);
             } else {
                 throw new SQLException("Property doesn't exist by the column label.");
@@ -1026,29 +1256,45 @@ class JcrJdbcResultSet implements JcrResultSet {
 
     @Override
     public Date getDate(int columnIndex, Calendar cal) throws SQLException {
-        return getDate(columnIndex);
+        return getDate(findColumnName(columnIndex), cal);
     }
 
     @Override
     public Date getDate(String columnLabel, Calendar cal) throws SQLException {
-        return getDate(columnLabel);
+        if (cal == null) {
+            return getDate(columnLabel);
+        }
+
+        final Value value = getCurrentDateValue(columnLabel);
+        return value != null ? new Date(DateUtils.toStartOfDay(getEpochMillis(value), cal.getTimeZone())) : null;
     }
 
     @Override
     public Time getTime(int columnIndex, Calendar cal) throws SQLException {
-        return getTime(columnIndex);
+        return getTime(findColumnName(columnIndex), cal);
     }
 
     @Override
     public Time getTime(String columnLabel, Calendar cal) throws SQLException {
-        return getTime(columnLabel);
+        if (cal == null) {
+            return getTime(columnLabel);
+        }
+
+        final Value value = getCurrentDateValue(columnLabel);
+        return value != null ? new Time(DateUtils.toTimeOfDay(getEpochMillis(value), cal.getTimeZone())) : null;
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
-        return getTimestamp(columnIndex);
+        return getTimestamp(findColumnName(columnIndex), cal);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * JCR dates carry their own time zone offsets, so the instant of the timestamp is the same whatever time zone
+     * the calendar is in, and the calendar is irrelevant here.
+     */
     @Override
     public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
         return getTimestamp(columnLabel);
@@ -1359,9 +1605,158 @@ class JcrJdbcResultSet implements JcrResultSet {
     }
 
     protected Value getColumnValue(final Row row, final String columnName) throws SQLException, RepositoryException {
+        if (identifierOnly) {
+            throw new SQLException("Only meta-columns are available in an identifier-only scan: " + columnName);
+        }
+
+        if (!queryColumnNameSet.contains(columnName)) {
+            if (strictProjection && !getColumnProjection().isProjected(columnName)) {
+                throw new SQLException("Column not projected by the query: " + columnName);
+            }
+
+            final MetaColumnResolver resolver = getSelectorMetaColumnResolver(columnName);
+
+            if (resolver != null) {
+                // selector qualified property which is not a query column, e.g, 'e.empno' on 'SELECT * ...'.
+                final Node node = resolver.getNode();
+                final String propName = getPropertyName(columnName);
+
+                if (node == null || !node.hasProperty(propName)) {
+                    return null;
+                }
+
+                return node.getProperty(propName).getValue();
+            }
+        }
+
         return row.getValue(columnName);
     }
 
+    private void resetMetaColumnResolvers(final Row row) {
+        defaultMetaColumnResolver.reset(row);
+
+        for (MetaColumnResolver resolver : selectorMetaColumnResolverMap.values()) {
+            if (resolver != defaultMetaColumnResolver) {
+                resolver.reset(row);
+            }
+        }
+    }
+
+    /**
+     * Returns the meta-column name (e.g, 'jcr:path') if the column label denotes a meta-column
+     * (e.g, 'jcr:path' or 'e.jcr:path') which is not a query result column. Otherwise, returns null.
+     */
+    private String getMetaColumnName(final String columnLabel) {
+        if (columnLabel == null || metaColumnIndexMap.containsKey(columnLabel)) {
+            return null;
+        }
+
+        final String name = getPropertyName(columnLabel);
+
+        if (Constants.META_COLUMNS.contains(name)) {
+            return name;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the property name part of the column label after stripping the selector name qualifier if any.
+     */
+    private String getPropertyName(final String columnLabel) {
+        if (getSelectorMetaColumnResolver(columnLabel) != null) {
+            return columnLabel.substring(columnLabel.indexOf('.') + 1);
+        }
+
+        return columnLabel;
+    }
+
+    private MetaColumnResolver getSelectorMetaColumnResolver(final String columnLabel) {
+        final int offset = columnLabel != null ? columnLabel.indexOf('.') : -1;
+
+        if (offset != -1) {
+            return selectorMetaColumnResolverMap.get(columnLabel.substring(0, offset));
+        }
+
+        return null;
+    }
+
+    private MetaColumnResolver getMetaColumnResolver(final String columnLabel) throws SQLException {
+        if (currentRow == null) {
+            throw new SQLException("Current row is not available.");
+        }
+
+        final MetaColumnResolver resolver = getSelectorMetaColumnResolver(columnLabel);
+
+        return resolver != null ? resolver : defaultMetaColumnResolver;
+    }
+
+    private MetaColumnResolver getSelectorMetaColumnResolverByName(final String selectorName) throws SQLException {
+        if (currentRow == null) {
+            throw new SQLException("Current row is not available.");
+        }
+
+        final MetaColumnResolver resolver = selectorName != null ? selectorMetaColumnResolverMap.get(selectorName)
+                : null;
+
+        return resolver != null ? resolver : defaultMetaColumnResolver;
+    }
+
+    private ColumnProjection getColumnProjection() {
+        if (columnProjection == null) {
+            columnProjection = new ColumnProjection(selectorNames, queryColumnNames, queryColumns);
+        }
+
+        return columnProjection;
+    }
+
+    /**
+     * Returns the value of the column in the current row, fetching the value of a query result column
+     * from the row at most once per row, and records whether it is null for {@link #wasNull()}.
+     */
+    private Value getCurrentColumnValue(final String columnLabel) throws SQLException, RepositoryException {
+        final Row row = getCurrentRow();
+        final Integer index = queryColumnIndexMap.get(columnLabel);
+        Value value;
+
+        if (index == null) {
+            value = getColumnValue(row, columnLabel);
+        } else if (rowValueRowNumbers[index] == rowNumber) {
+            value = rowValues[index];
+        } else {
+            value = getColumnValue(row, columnLabel);
+            rowValues[index] = value;
+            rowValueRowNumbers[index] = rowNumber;
+        }
+
+        lastColumnReadHadNull = value == null;
+        return value;
+    }
+
+    private Value getCurrentDateValue(final String columnLabel) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        try {
+            return getCurrentColumnValue(columnLabel);
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    /**
+     * Returns the epoch milliseconds of the date value, parsing the ISO8601 string form directly
+     * instead of allocating a {@link Calendar} by {@link Value#getDate()}.
+     */
+    private long getEpochMillis(final Value value) throws SQLException {
+        try {
+            return DateUtils.toEpochMillis(value);
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
     private String findColumnName(int columnIndex) throws SQLException {
         final int columnCount = columnNames != null ? columnNames.length : 0;
 
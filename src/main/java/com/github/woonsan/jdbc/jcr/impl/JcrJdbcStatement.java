@@ -18,17 +18,29 @@
  */
 package com.github.woonsan.jdbc.jcr.impl;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.ValueFactory;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
 
-class JcrJdbcStatement implements Statement {
+import com.github.woonsan.jdbc.jcr.HashJoin;
+import com.github.woonsan.jdbc.jcr.JcrResultSet;
+import com.github.woonsan.jdbc.jcr.JcrStatement;
+
+class JcrJdbcStatement implements JcrStatement {
 
     private JcrJdbcConnection connection;
     private int maxFieldSize;
@@ -45,25 +57,40 @@ class JcrJdbcStatement implements Statement {
     private int resultSetHoldability = ResultSet.HOLD_CURSORS_OVER_COMMIT;
     private boolean poolable;
     private boolean closeOnCompletion;
+    private boolean identifierOnlyScan;
+    private boolean strictProjection;
 
     private boolean closed;
 
     @SuppressWarnings("deprecation")
     private String queryLanguage = Query.SQL;
     private ResultSet currentResultSet;
+    private Session borrowedSession;
 
     public JcrJdbcStatement(final JcrJdbcConnection connection) {
         this.connection = connection;
     }
 
     @Override
-    public <T> T unwrap(Class<T> iface) throws SQLException {
-        throw new UnsupportedOperationException();
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface == null) {
+            throw new IllegalArgumentException("Interface cannot be null.");
+        }
+
+        return iface.isAssignableFrom(JcrStatement.class);
     }
 
     @Override
-    public boolean isWrapperFor(Class<?> iface) throws SQLException {
-        throw new UnsupportedOperationException();
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface == null) {
+            throw new IllegalArgumentException("Interface cannot be null.");
+        }
+
+        if (!isWrapperFor(iface)) {
+            throw new SQLException("Not a wrapper for " + iface.getName());
+        }
+
+        return (T) this;
     }
 
     @Override
@@ -78,22 +105,174 @@ class JcrJdbcStatement implements Statement {
                 currentResultSet = null;
             }
 
-            queryLanguage = SQLQueryUtils.detectQueryLanguage(sql);
-            Query query = connection.getJcrSession().getWorkspace().getQueryManager().createQuery(sql, queryLanguage);
+            final QueryTokens tokens = QueryTokens.tokenize(sql);
+            queryLanguage = SQLQueryUtils.detectQueryLanguage(tokens);
+            String jcrQueryStatement = sql;
+            List<Object> literals = Collections.emptyList();
 
-            if (getMaxRows() > 0) {
-                query.setLimit(getMaxRows());
+            if (Query.JCR_SQL2.equals(queryLanguage)) {
+                literals = new ArrayList<>();
+                jcrQueryStatement = SQLQueryUtils.normalizeAndParameterizeQuery(tokens, literals);
+            }
+
+            Session session = borrowSession();
+            Query query = connection.getQueryCache(session).getQuery(session, jcrQueryStatement,
+                    queryLanguage, getMaxRows());
+
+            if (!literals.isEmpty()) {
+                ValueFactory valueFactory = session.getValueFactory();
+                Object literal;
+                Value value;
+
+                for (int i = 0; i < literals.size(); i++) {
+                    literal = literals.get(i);
+
+                    if (literal instanceof Long) {
+                        value = valueFactory.createValue((Long) literal);
+                    } else if (literal instanceof BigDecimal) {
+                        value = valueFactory.createValue((BigDecimal) literal);
+                    } else {
+                        value = valueFactory.createValue((String) literal);
+                    }
+
+                    query.bindValue(SQLQueryUtils.PARAM_VAR_PREFIX + (i + 1), value);
+                }
             }
 
             QueryResult queryResult = query.execute();
-            currentResultSet = new JcrJdbcResultSet(this, queryResult);
+            JcrJdbcResultSet resultSet = new JcrJdbcResultSet(this, queryResult, identifierOnlyScan);
+            resultSet.setProjection(query, strictProjection);
+            resultSet.setFetchSize(fetchSize);
+            resultSet.prefetch(session);
+            resultSet.registerHoldable(connection);
+            currentResultSet = resultSet;
         } catch (RepositoryException e) {
+            releaseSession();
             throw new SQLException(e.toString(), e);
         }
 
         return currentResultSet;
     }
 
+    @Override
+    public JcrResultSet executeQueryAfter(String sql, String cursorToken) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("Statement was already closed.");
+        }
+
+        if (!Query.JCR_SQL2.equals(SQLQueryUtils.detectQueryLanguage(sql))) {
+            throw new SQLException("Keyset pagination is supported only in JCR-SQL2 query statement.");
+        }
+
+        KeysetOrdering ordering = KeysetOrdering.parse(sql);
+        KeysetOrdering.Cursor after = cursorToken != null ? KeysetOrdering.decodeToken(cursorToken) : null;
+
+        try {
+            if (currentResultSet != null) {
+                currentResultSet.close();
+                currentResultSet = null;
+            }
+
+            queryLanguage = Query.JCR_SQL2;
+            long limit = getMaxRows();
+
+            // to leave room for the rows returned in the previous page, having the same sort key.
+            long queryLimit = limit > 0 && after != null ? limit + after.getPaths().size() : limit;
+            Session session = borrowSession();
+            Query query = connection.getQueryCache(session).getQuery(session,
+                    after != null ? ordering.getStatementAfter() : sql, queryLanguage, queryLimit);
+
+            if (after != null) {
+                query.bindValue(KeysetOrdering.KEYSET_VAR_NAME, session.getValueFactory()
+                        .createValue(after.getKey(), after.getKeyType()));
+            }
+
+            JcrJdbcResultSet resultSet = new JcrJdbcResultSet(this,
+                    new KeysetQueryResult(query.execute(), ordering, after, limit), identifierOnlyScan);
+            resultSet.setProjection(query, strictProjection);
+            resultSet.setFetchSize(fetchSize);
+            resultSet.prefetch(session);
+            resultSet.registerHoldable(connection);
+            currentResultSet = resultSet;
+            return resultSet;
+        } catch (RepositoryException e) {
+            releaseSession();
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public void setIdentifierOnlyScan(boolean identifierOnlyScan) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("Statement was already closed.");
+        }
+
+        this.identifierOnlyScan = identifierOnlyScan;
+    }
+
+    @Override
+    public boolean isIdentifierOnlyScan() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("Statement was already closed.");
+        }
+
+        return identifierOnlyScan;
+    }
+
+    @Override
+    public void setStrictProjection(boolean strictProjection) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("Statement was already closed.");
+        }
+
+        this.strictProjection = strictProjection;
+    }
+
+    @Override
+    public boolean isStrictProjection() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("Statement was already closed.");
+        }
+
+        return strictProjection;
+    }
+
+    @Override
+    public JcrResultSet executeHashJoin(HashJoin hashJoin) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("Statement was already closed.");
+        }
+
+        if (hashJoin == null) {
+            throw new IllegalArgumentException("Hash join cannot be null.");
+        }
+
+        HashJoinQueryResult queryResult = null;
+
+        try {
+            if (currentResultSet != null) {
+                currentResultSet.close();
+                currentResultSet = null;
+            }
+
+            queryResult = new HashJoinQueryResult(hashJoin, connection.getSession(hashJoin.getLeftWorkspace()),
+                    connection.getSession(hashJoin.getRightWorkspace()), getMaxRows());
+            JcrJdbcResultSet resultSet = new JcrJdbcResultSet(this, queryResult);
+            resultSet.setProjection(null, strictProjection);
+            resultSet.registerHoldable(connection);
+            currentResultSet = resultSet;
+            return resultSet;
+        } catch (RepositoryException | IOException e) {
+            throw new SQLException(e.toString(), e);
+        } catch (SQLException e) {
+            if (queryResult != null) {
+                queryResult.close();
+            }
+
+            throw e;
+        }
+    }
+
     @Override
     public int executeUpdate(String sql) throws SQLException {
         throw new UnsupportedOperationException();
@@ -101,6 +280,7 @@ class JcrJdbcStatement implements Statement {
 
     @Override
     public void close() throws SQLException {
+        releaseSession();
         closed = true;
         connection = null;
     }
@@ -226,6 +406,55 @@ class JcrJdbcStatement implements Statement {
         this.currentResultSet = currentResultSet;
     }
 
+    /**
+     * Borrows a session from the connection to run a query by, releasing the session borrowed for the previous
+     * result set, which is closed first if the session was a read-only one shared by other statements.
+     * @return a session to run a query by
+     * @throws SQLException if it fails to borrow a session
+     */
+    protected Session borrowSession() throws SQLException {
+        if (borrowedSession != null && !connection.isConnectionSession(borrowedSession) && currentResultSet != null) {
+            currentResultSet.close();
+            currentResultSet = null;
+        }
+
+        releaseSession();
+        borrowedSession = connection.borrowSession();
+        return borrowedSession;
+    }
+
+    /**
+     * Returns the session borrowed by {@link #borrowSession()} for the current result set, or null if none.
+     * @return the session borrowed for the current result set, or null if none
+     */
+    protected Session getBorrowedSession() {
+        return borrowedSession;
+    }
+
+    /**
+     * Notifies that the result set produced by this statement was closed, to release the borrowed session.
+     * @param resultSet the closed result set
+     */
+    void resultSetClosed(final ResultSet resultSet) {
+        if (resultSet == currentResultSet) {
+            releaseSession();
+        }
+    }
+
+    /**
+     * Releases the session borrowed by {@link #borrowSession()}.
+     */
+    protected void releaseSession() {
+        if (borrowedSession != null) {
+            final Session session = borrowedSession;
+            borrowedSession = null;
+
+            if (connection != null) {
+                connection.releaseSession(session);
+            }
+        }
+    }
+
     @Override
     public int getUpdateCount() throws SQLException {
         if (isClosed()) {
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.query.Query;
+
+/**
+ * LRU cache of the {@link Query} objects created by a connection, keyed by query language, limit and statement.
+ * <p>
+ * A cached query is reused by rebinding its bind variables, so a statement should be parameterized
+ * (see {@link SQLQueryUtils#normalizeAndParameterizeQuery(String, java.util.List)}) before looking up
+ * to share the query among statements differing only in literals.
+ * This is not thread-safe, just like the connection owning it.
+ */
+class JcrQueryCache {
+
+    static final int DEFAULT_MAX_SIZE = 64;
+
+    private final Map<String, Query> queries;
+
+    private long hitCount;
+    private long missCount;
+
+    JcrQueryCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    JcrQueryCache(final int maxSize) {
+        queries = new LinkedHashMap<String, Query>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Query> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached query for the statement, or creates and caches a new query from the session.
+     * @param session JCR session to create the query from
+     * @param statement query statement
+     * @param language query language
+     * @param limit maximum result size, or zero or less for no limit
+     * @return the cached or newly created query
+     * @throws RepositoryException if the query cannot be created
+     */
+    Query getQuery(final Session session, final String statement, final String language, final long limit)
+            throws RepositoryException {
+        final String key = new StringBuilder(language.length() + statement.length() + 24).append(language)
+                .append('\n').append(limit > 0 ? limit : 0).append('\n').append(statement).toString();
+        Query query = queries.get(key);
+
+        if (query != null) {
+            ++hitCount;
+            return query;
+        }
+
+        ++missCount;
+        query = session.getWorkspace().getQueryManager().createQuery(statement, language);
+
+        if (limit > 0) {
+            query.setLimit(limit);
+        }
+
+        queries.put(key, query);
+        return query;
+    }
+
+    int size() {
+        return queries.size();
+    }
+
+    long getHitCount() {
+        return hitCount;
+    }
+
+    long getMissCount() {
+        return missCount;
+    }
+
+    void clear() {
+        queries.clear();
+    }
+
+}
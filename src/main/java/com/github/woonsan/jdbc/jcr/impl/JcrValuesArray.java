@@ -19,10 +19,14 @@
 package com.github.woonsan.jdbc.jcr.impl;
 
 import java.math.BigDecimal;
-import java.sql.Array;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Map;
 
 import javax.jcr.Property;
@@ -30,12 +34,25 @@ import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
 import javax.jcr.Value;
 
-class JcrValuesArray implements Array {
+import com.github.woonsan.jdbc.jcr.JcrArray;
+
+/**
+ * {@link JcrArray} of a multi-value property, converting the values lazily into a primitive array
+ * (<code>long[]</code>, <code>double[]</code> or <code>boolean[]</code>) or an object array of the property type.
+ * <code>DATE</code> values are converted into epoch milliseconds, provided as <code>Timestamp[]</code>
+ * by {@link #getArray()} and as is by {@link #getLongBuffer(long, int)}.
+ */
+class JcrValuesArray implements JcrArray {
 
     private Property prop;
     private String propPath;
     private int propType = PropertyType.UNDEFINED;
+    private Value [] jcrValues;
     private Object values;
+    private Timestamp [] timestamps;
+    private BitSet converted;
+    private int convertedCount;
+    private int length;
 
     public JcrValuesArray(final Property prop) throws SQLException {
         try {
@@ -67,6 +84,8 @@ class JcrValuesArray implements Array {
             return "DECIMAL";
         } else if (propType == PropertyType.BOOLEAN) {
             return "BOOLEAN";
+        } else if (propType == PropertyType.DATE) {
+            return "TIMESTAMP";
         } else if (propType == PropertyType.NAME || propType == PropertyType.PATH || propType == PropertyType.URI) {
             return "NVARCHAR";
         }
@@ -90,6 +109,8 @@ class JcrValuesArray implements Array {
             return Types.DECIMAL;
         } else if (propType == PropertyType.BOOLEAN) {
             return Types.BOOLEAN;
+        } else if (propType == PropertyType.DATE) {
+            return Types.TIMESTAMP;
         } else if (propType == PropertyType.NAME || propType == PropertyType.PATH || propType == PropertyType.URI) {
             return Types.NVARCHAR;
         }
@@ -97,6 +118,15 @@ class JcrValuesArray implements Array {
         return Types.OTHER;
     }
 
+    @Override
+    public int getLength() throws SQLException {
+        if (prop == null) {
+            throw new SQLException("Property is not available. It might have been freed.");
+        }
+
+        return loadValues();
+    }
+
     @Override
     public Object getArray() throws SQLException {
         return getArray(null);
@@ -108,53 +138,17 @@ class JcrValuesArray implements Array {
             throw new SQLException("Property is not available. It might have been freed.");
         }
 
-        Object tempValues = values;
+        convertValues(0, loadValues());
 
-        if (tempValues == null) {
-            try {
-                final Value [] jcrValues = prop.getValues();
-
-                if (propType == PropertyType.STRING) {
-                    tempValues = new String[jcrValues.length];
-                    for (int i = 0; i < jcrValues.length; i++) {
-                        ((String[]) tempValues)[i] = jcrValues[i].getString();
-                    }
-                } else if (propType == PropertyType.LONG) {
-                    tempValues = new long[jcrValues.length];
-                    for (int i = 0; i < jcrValues.length; i++) {
-                        ((long[]) tempValues)[i] = jcrValues[i].getLong();
-                    }
-                } else if (propType == PropertyType.DOUBLE) {
-                    tempValues = new double[jcrValues.length];
-                    for (int i = 0; i < jcrValues.length; i++) {
-                        ((double[]) tempValues)[i] = jcrValues[i].getDouble();
-                    }
-                } else if (propType == PropertyType.DECIMAL) {
-                    tempValues = new BigDecimal[jcrValues.length];
-                    for (int i = 0; i < jcrValues.length; i++) {
-                        ((BigDecimal[]) tempValues)[i] = jcrValues[i].getDecimal();
-                    }
-                } else if (propType == PropertyType.BOOLEAN) {
-                    tempValues = new boolean[jcrValues.length];
-                    for (int i = 0; i < jcrValues.length; i++) {
-                        ((boolean[]) tempValues)[i] = jcrValues[i].getBoolean();
-                    }
-                } else if (propType == PropertyType.NAME || propType == PropertyType.PATH || propType == PropertyType.URI) {
-                    tempValues = new String[jcrValues.length];
-                    for (int i = 0; i < jcrValues.length; i++) {
-                        ((String[]) tempValues)[i] = jcrValues[i].getString();
-                    }
-                } else {
-                    throw new SQLException("The property type is not supported: " + propType);
-                }
-
-                values = tempValues;
-            } catch (RepositoryException e) {
-                throw new SQLException("Failed to get array from property value(s).", e);
+        if (propType == PropertyType.DATE) {
+            if (timestamps == null) {
+                timestamps = toTimestamps((long []) values, 0, length);
             }
+
+            return timestamps;
         }
 
-        return tempValues;
+        return values;
     }
 
     @Override
@@ -168,43 +162,54 @@ class JcrValuesArray implements Array {
             throw new SQLException("Property is not available. It might have been freed.");
         }
 
-        if (index < 1) {
-            throw new SQLException("Invalid index: " + index);
+        final int from = getOffset(index, count);
+        final int to = from + count;
+        convertValues(from, to);
+
+        if (propType == PropertyType.DATE) {
+            return toTimestamps((long []) values, from, to);
+        } else if (values instanceof String []) {
+            return Arrays.copyOfRange((String []) values, from, to);
+        } else if (values instanceof long []) {
+            return Arrays.copyOfRange((long []) values, from, to);
+        } else if (values instanceof double []) {
+            return Arrays.copyOfRange((double []) values, from, to);
+        } else if (values instanceof BigDecimal []) {
+            return Arrays.copyOfRange((BigDecimal []) values, from, to);
+        } else {
+            return Arrays.copyOfRange((boolean []) values, from, to);
         }
+    }
 
-        if (count < 0) {
-            throw new SQLException("Invalid count: " + count);
+    @Override
+    public LongBuffer getLongBuffer(long index, int count) throws SQLException {
+        if (prop == null) {
+            throw new SQLException("Property is not available. It might have been freed.");
         }
 
-        Object tempValues = getArray();
+        if (propType != PropertyType.LONG && propType != PropertyType.DATE) {
+            throw new SQLException("The property type is neither LONG nor DATE: "
+                    + PropertyType.nameFromValue(propType));
+        }
 
-        if (propType == PropertyType.STRING) {
-            String [] subArray = new String[count];
-            System.arraycopy((String []) tempValues, (int) index - 1, subArray, 0, count);
-            return subArray;
-        } else if (propType == PropertyType.LONG) {
-            long [] subArray = new long[count];
-            System.arraycopy((long []) tempValues, (int) index - 1, subArray, 0, count);
-            return subArray;
-        } else if (propType == PropertyType.DOUBLE) {
-            double [] subArray = new double[count];
-            System.arraycopy((double []) tempValues, (int) index - 1, subArray, 0, count);
-            return subArray;
-        } else if (propType == PropertyType.DECIMAL) {
-            BigDecimal [] subArray = new BigDecimal[count];
-            System.arraycopy((BigDecimal []) tempValues, (int) index - 1, subArray, 0, count);
-            return subArray;
-        } else if (propType == PropertyType.BOOLEAN) {
-            boolean [] subArray = new boolean[count];
-            System.arraycopy((boolean []) tempValues, (int) index - 1, subArray, 0, count);
-            return subArray;
-        } else if (propType == PropertyType.NAME || propType == PropertyType.PATH || propType == PropertyType.URI) {
-            String [] subArray = new String[count];
-            System.arraycopy((String []) tempValues, (int) index - 1, subArray, 0, count);
-            return subArray;
+        final int from = getOffset(index, count);
+        convertValues(from, from + count);
+        return LongBuffer.wrap((long []) values, from, count).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public DoubleBuffer getDoubleBuffer(long index, int count) throws SQLException {
+        if (prop == null) {
+            throw new SQLException("Property is not available. It might have been freed.");
         }
 
-        throw new SQLException("The property type is not supported: " + propType);
+        if (propType != PropertyType.DOUBLE) {
+            throw new SQLException("The property type is not DOUBLE: " + PropertyType.nameFromValue(propType));
+        }
+
+        final int from = getOffset(index, count);
+        convertValues(from, from + count);
+        return DoubleBuffer.wrap((double []) values, from, count).slice().asReadOnlyBuffer();
     }
 
     @Override
@@ -214,7 +219,11 @@ class JcrValuesArray implements Array {
 
     @Override
     public ResultSet getResultSet(Map<String, Class<?>> map) throws SQLException {
-        throw new UnsupportedOperationException();
+        if (prop == null) {
+            throw new SQLException("Property is not available. It might have been freed.");
+        }
+
+        return new JcrValuesResultSet(getResultSetValues(), propType, 0, loadValues());
     }
 
     @Override
@@ -224,7 +233,11 @@ class JcrValuesArray implements Array {
 
     @Override
     public ResultSet getResultSet(long index, int count, Map<String, Class<?>> map) throws SQLException {
-        throw new UnsupportedOperationException();
+        if (prop == null) {
+            throw new SQLException("Property is not available. It might have been freed.");
+        }
+
+        return new JcrValuesResultSet(getResultSetValues(), propType, getOffset(index, count), count);
     }
 
     @Override
@@ -232,7 +245,144 @@ class JcrValuesArray implements Array {
         prop = null;
         propPath = null;
         propType = PropertyType.UNDEFINED;
+        jcrValues = null;
         values = null;
+        timestamps = null;
+        converted = null;
+        convertedCount = 0;
+        length = 0;
+    }
+
+    /**
+     * Returns the zero-based offset of the one-based index after checking the index and count are in bounds.
+     */
+    private int getOffset(final long index, final int count) throws SQLException {
+        if (index < 1) {
+            throw new SQLException("Invalid index: " + index);
+        }
+
+        if (count < 0) {
+            throw new SQLException("Invalid count: " + count);
+        }
+
+        if (index - 1 + count > loadValues()) {
+            throw new SQLException("Invalid index and count: " + index + ", " + count + " for the array length: "
+                    + length);
+        }
+
+        return (int) index - 1;
+    }
+
+    /**
+     * Returns the JCR values to stream in a result set, without converting them.
+     * The values are read again from the property if released after converting all of them.
+     */
+    private Value [] getResultSetValues() throws SQLException {
+        loadValues();
+
+        if (jcrValues != null) {
+            return jcrValues;
+        }
+
+        try {
+            return prop.getValues();
+        } catch (RepositoryException e) {
+            throw new SQLException("Failed to get array from property value(s).", e);
+        }
+    }
+
+    /**
+     * Reads the JCR values of the property, if not done yet.
+     * @return the number of the values
+     */
+    private int loadValues() throws SQLException {
+        if (jcrValues == null && values == null) {
+            try {
+                jcrValues = prop.getValues();
+            } catch (RepositoryException e) {
+                throw new SQLException("Failed to get array from property value(s).", e);
+            }
+
+            length = jcrValues.length;
+        }
+
+        return length;
+    }
+
+    /**
+     * Converts the values in the range, which have not been converted yet, into the primitive or object array
+     * of the property type. The JCR values are released once all of them are converted.
+     */
+    private void convertValues(final int from, final int to) throws SQLException {
+        loadValues();
+
+        if (values == null) {
+            values = createArray(propType, length);
+            converted = new BitSet(length);
+        }
+
+        if (jcrValues == null) {
+            return;
+        }
+
+        try {
+            for (int i = converted.nextClearBit(from); i < to; i = converted.nextClearBit(i + 1)) {
+                if (values instanceof String []) {
+                    ((String []) values)[i] = jcrValues[i].getString();
+                } else if (propType == PropertyType.DATE) {
+                    ((long []) values)[i] = DateUtils.toEpochMillis(jcrValues[i]);
+                } else if (values instanceof long []) {
+                    ((long []) values)[i] = jcrValues[i].getLong();
+                } else if (values instanceof double []) {
+                    ((double []) values)[i] = jcrValues[i].getDouble();
+                } else if (values instanceof BigDecimal []) {
+                    ((BigDecimal []) values)[i] = jcrValues[i].getDecimal();
+                } else {
+                    ((boolean []) values)[i] = jcrValues[i].getBoolean();
+                }
+
+                converted.set(i);
+                ++convertedCount;
+            }
+        } catch (RepositoryException e) {
+            throw new SQLException("Failed to get array from property value(s).", e);
+        }
+
+        if (convertedCount == length) {
+            jcrValues = null;
+            converted = null;
+        }
+    }
+
+    private static Timestamp [] toTimestamps(final long [] epochMillis, final int from, final int to) {
+        final Timestamp [] timestamps = new Timestamp[to - from];
+
+        for (int i = from; i < to; i++) {
+            timestamps[i - from] = new Timestamp(epochMillis[i]);
+        }
+
+        return timestamps;
+    }
+
+    private static Object createArray(final int propType, final int length) throws SQLException {
+        if (propType == PropertyType.STRING) {
+            return new String[length];
+        } else if (propType == PropertyType.LONG) {
+            return new long[length];
+        } else if (propType == PropertyType.DOUBLE) {
+            return new double[length];
+        } else if (propType == PropertyType.DECIMAL) {
+            return new BigDecimal[length];
+        } else if (propType == PropertyType.BOOLEAN) {
+            return new boolean[length];
+        } else if (propType == PropertyType.DATE) {
+            // epoch milliseconds, provided as timestamps by getArray.
+            return new long[length];
+        } else if (propType == PropertyType.NAME || propType == PropertyType.PATH || propType == PropertyType.URI) {
+            return new String[length];
+        }
+
+        throw new SQLException("The property type is not supported: " + propType);
     }
 
 }
@@ -0,0 +1,1264 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+import javax.jcr.Binary;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+
+/**
+ * Forward-only {@link ResultSet} over a window of the values of a multi-value property, having two columns:
+ * <code>INDEX</code> (the one-based index of the value in the array) and <code>VALUE</code>.
+ * <p>
+ * The values are read one at a time from the underlying {@link Value}s on each getter call,
+ * without converting the whole array.
+ */
+class JcrValuesResultSet implements ResultSet {
+
+    static final String COLUMN_INDEX = "INDEX";
+
+    static final String COLUMN_VALUE = "VALUE";
+
+    private static final String [] COLUMN_NAMES = { COLUMN_INDEX, COLUMN_VALUE };
+
+    private Value [] values;
+    private final int propType;
+    private final int offset;
+    private final int count;
+    private ResultSetMetaData resultSetMetaData;
+    private int rowNumber = 0;
+    private boolean closed;
+    private boolean lastColumnReadHadNull;
+    private int fetchSize;
+
+    /**
+     * Constructs the result set of the <code>count</code> values starting at <code>offset</code>.
+     * @param values values of the multi-value property
+     * @param propType property type of the values
+     * @param offset zero-based offset of the first value of the window
+     * @param count the number of values of the window
+     */
+    JcrValuesResultSet(final Value [] values, final int propType, final int offset, final int count) {
+        this.values = values;
+        this.propType = propType;
+        this.offset = offset;
+        this.count = count;
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface == null) {
+            throw new IllegalArgumentException("Interface cannot be null.");
+        }
+
+        return iface.isAssignableFrom(ResultSet.class);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface == null) {
+            throw new IllegalArgumentException("Interface cannot be null.");
+        }
+
+        if (!isWrapperFor(iface)) {
+            throw new SQLException("Not a wrapper for " + iface.getName());
+        }
+
+        return (T) this;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        if (rowNumber < count) {
+            ++rowNumber;
+            return true;
+        }
+
+        rowNumber = count + 1;
+        return false;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        values = null;
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        return lastColumnReadHadNull;
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        return getString(findColumnName(columnIndex));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        return getBoolean(findColumnName(columnIndex));
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException {
+        return getByte(findColumnName(columnIndex));
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+        return getShort(findColumnName(columnIndex));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        return getInt(findColumnName(columnIndex));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        return getLong(findColumnName(columnIndex));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+        return getFloat(findColumnName(columnIndex));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        return getDouble(findColumnName(columnIndex));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        return getBigDecimal(findColumnName(columnIndex), scale);
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        return getBytes(findColumnName(columnIndex));
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        return getDate(findColumnName(columnIndex));
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        return getTime(findColumnName(columnIndex));
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        return getTimestamp(findColumnName(columnIndex));
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columnIndex) throws SQLException {
+        return getBinaryStream(columnIndex);
+    }
+
+    @Override
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+        return getBinaryStream(columnIndex);
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columnIndex) throws SQLException {
+        return getBinaryStream(findColumnName(columnIndex));
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        if (isIndexColumn(columnLabel)) {
+            return Long.toString(getCurrentIndex());
+        }
+
+        try {
+            return getColumnValue(columnLabel).getString();
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        if (isIndexColumn(columnLabel)) {
+            throw new SQLException("Not a boolean column: " + columnLabel);
+        }
+
+        try {
+            return getColumnValue(columnLabel).getBoolean();
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws SQLException {
+        return (byte) getShort(columnLabel);
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws SQLException {
+        return (short) getLong(columnLabel);
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return (int) getLong(columnLabel);
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        if (isIndexColumn(columnLabel)) {
+            return getCurrentIndex();
+        }
+
+        try {
+            return getColumnValue(columnLabel).getLong();
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws SQLException {
+        return (float) getDouble(columnLabel);
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        if (isIndexColumn(columnLabel)) {
+            return getCurrentIndex();
+        }
+
+        try {
+            return getColumnValue(columnLabel).getDouble();
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        return getBigDecimal(columnLabel);
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        byte [] bytes = null;
+
+        try {
+            Value value = getColumnValue(columnLabel);
+
+            if (value.getType() != PropertyType.BINARY) {
+                throw new SQLException("Not a binary field.");
+            }
+
+            Binary binary = null;
+
+            try {
+                binary = value.getBinary();
+                bytes = BinaryUtils.readBinary(binary);
+            } finally {
+                if (binary != null) {
+                    binary.dispose();
+                }
+            }
+        } catch (RepositoryException | IOException e) {
+            throw new SQLException(e.toString(), e);
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        return new Date(getEpochMillis(columnLabel));
+    }
+
+    @Override
+    public Time getTime(String columnLabel) throws SQLException {
+        return new Time(getEpochMillis(columnLabel));
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return new Timestamp(getEpochMillis(columnLabel));
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columnLabel) throws SQLException {
+        return getBinaryStream(columnLabel);
+    }
+
+    @Override
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+        return getBinaryStream(columnLabel);
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columnLabel) throws SQLException {
+        try {
+            Value value = getColumnValue(columnLabel);
+
+            if (value.getType() != PropertyType.BINARY) {
+                throw new SQLException("Not a binary field.");
+            }
+
+            return BinaryUtils.createBinaryInputStream(value.getBinary());
+        } catch (RepositoryException | IOException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getCursorName() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        if (resultSetMetaData == null) {
+            resultSetMetaData = new JcrJdbcResultSetMetaData(COLUMN_NAMES);
+        }
+
+        return resultSetMetaData;
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        return getObject(findColumnName(columnIndex));
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        if (isIndexColumn(columnLabel)) {
+            return Long.valueOf(getCurrentIndex());
+        }
+
+        try {
+            final Value value = getColumnValue(columnLabel);
+
+            if (propType == PropertyType.LONG) {
+                return Long.valueOf(value.getLong());
+            } else if (propType == PropertyType.DOUBLE) {
+                return Double.valueOf(value.getDouble());
+            } else if (propType == PropertyType.DECIMAL) {
+                return value.getDecimal();
+            } else if (propType == PropertyType.BOOLEAN) {
+                return Boolean.valueOf(value.getBoolean());
+            } else if (propType == PropertyType.DATE) {
+                return new Timestamp(DateUtils.toEpochMillis(value));
+            }
+
+            return value.getString();
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        for (int i = 0; i < COLUMN_NAMES.length; i++) {
+            if (COLUMN_NAMES[i].equalsIgnoreCase(columnLabel)) {
+                return i + 1;
+            }
+        }
+
+        throw new SQLException("Column not found: " + columnLabel);
+    }
+
+    @Override
+    public Reader getCharacterStream(int columnIndex) throws SQLException {
+        return getCharacterStream(findColumnName(columnIndex));
+    }
+
+    @Override
+    public Reader getCharacterStream(String columnLabel) throws SQLException {
+        return new StringReader(getString(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        return getBigDecimal(findColumnName(columnIndex));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        if (isIndexColumn(columnLabel)) {
+            return BigDecimal.valueOf(getCurrentIndex());
+        }
+
+        try {
+            return getColumnValue(columnLabel).getDecimal();
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        return rowNumber == 0 && count > 0;
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        return rowNumber > count;
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        return rowNumber == 1;
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        return rowNumber > 0 && rowNumber == count;
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        return rowNumber > count ? 0 : rowNumber;
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        if (direction != ResultSet.FETCH_FORWARD) {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return ResultSet.FETCH_FORWARD;
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) throws SQLException {
+        if (fetchSize < 0) {
+            throw new SQLException("Invalid fetch size: " + fetchSize);
+        }
+
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return fetchSize;
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        return ResultSet.TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getConcurrency() throws SQLException {
+        return ResultSet.CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public Statement getStatement() throws SQLException {
+        // not produced by a statement, but by an array.
+        return null;
+    }
+
+    @Override
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+        return getObject(columnIndex);
+    }
+
+    @Override
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+        return getObject(columnLabel);
+    }
+
+    @Override
+    public Array getArray(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Array getArray(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+        return getDate(findColumnName(columnIndex), cal);
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+        if (cal == null) {
+            return getDate(columnLabel);
+        }
+
+        return new Date(DateUtils.toStartOfDay(getEpochMillis(columnLabel), cal.getTimeZone()));
+    }
+
+    @Override
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+        return getTime(findColumnName(columnIndex), cal);
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+        if (cal == null) {
+            return getTime(columnLabel);
+        }
+
+        return new Time(DateUtils.toTimeOfDay(getEpochMillis(columnLabel), cal.getTimeZone()));
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        return getTimestamp(columnIndex);
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        // JCR dates have the time zone offsets, so the instant doesn't depend on the calendar.
+        return getTimestamp(columnLabel);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return ResultSet.HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed;
+    }
+
+    @Override
+    public String getNString(int columnIndex) throws SQLException {
+        return getString(columnIndex);
+    }
+
+    @Override
+    public String getNString(String columnLabel) throws SQLException {
+        return getString(columnLabel);
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columnIndex) throws SQLException {
+        return getCharacterStream(columnIndex);
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columnLabel) throws SQLException {
+        return getCharacterStream(columnLabel);
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        return getObject(findColumnName(columnIndex), type);
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        final Object object = getObject(columnLabel);
+
+        if (object != null && !type.isInstance(object)) {
+            throw new SQLException("Not convertible to " + type.getName() + ": " + columnLabel);
+        }
+
+        return type.cast(object);
+    }
+
+    @Override
+    public void updateNull(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateShort(int columnIndex, short x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateInt(int columnIndex, int x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateLong(int columnIndex, long x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateString(int columnIndex, String x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNull(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateString(String columnLabel, String x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void insertRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void deleteRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public URL getURL(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public URL getURL(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNString(int columnIndex, String nString) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String nString) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, NClob nClob) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob nClob) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateSQLXML(int columnIndex, SQLXML xmlObject) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML xmlObject) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    private long getEpochMillis(final String columnLabel) throws SQLException {
+        try {
+            return DateUtils.toEpochMillis(getColumnValue(columnLabel));
+        } catch (RepositoryException e) {
+            throw new SQLException(e.toString(), e);
+        }
+    }
+
+    private String findColumnName(int columnIndex) throws SQLException {
+        if (columnIndex < 1 || columnIndex > COLUMN_NAMES.length) {
+            throw new SQLException("Invalid column index: " + columnIndex);
+        }
+
+        return COLUMN_NAMES[columnIndex - 1];
+    }
+
+    private boolean isIndexColumn(final String columnLabel) throws SQLException {
+        return findColumn(columnLabel) == 1;
+    }
+
+    /**
+     * Returns the one-based index in the array of the value of the current row.
+     */
+    private long getCurrentIndex() throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("ResultSet was already closed.");
+        }
+
+        if (rowNumber < 1 || rowNumber > count) {
+            throw new SQLException("Current row is not available.");
+        }
+
+        lastColumnReadHadNull = false;
+        return (long) offset + rowNumber;
+    }
+
+    private Value getColumnValue(final String columnLabel) throws SQLException {
+        findColumn(columnLabel);
+        return values[(int) getCurrentIndex() - 1];
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Single property ordering of a JCR-SQL2 statement, used for keyset (seek) pagination.
+ * <p>
+ * The statement of the next page is rewritten to start from the sort key of the last row of the previous page,
+ * by a <code>&gt;=</code> (or <code>&lt;=</code> for descending order) predicate on the ordering property,
+ * instead of skipping the rows of the previous pages.
+ * As JCR-SQL2 cannot compare paths, the rows having the same sort key as the last row of the previous page
+ * are distinguished by their paths carried in the cursor token, and skipped in the next page.
+ */
+class KeysetOrdering {
+
+    static final String KEYSET_VAR_NAME = "_JDBC_JCR_KEYSET";
+
+    private static final String TOKEN_ENCODING = "UTF-8";
+
+    private final String statement;
+    private final String selectorName;
+    private final String propertyName;
+    private final boolean descending;
+    private final int whereEnd;
+    private final int orderBegin;
+    private final String operand;
+
+    private KeysetOrdering(final String statement, final String selectorName, final String propertyName,
+            final boolean descending, final int whereEnd, final int orderBegin, final String operand) {
+        this.statement = statement;
+        this.selectorName = selectorName;
+        this.propertyName = propertyName;
+        this.descending = descending;
+        this.whereEnd = whereEnd;
+        this.orderBegin = orderBegin;
+        this.operand = operand;
+    }
+
+    /**
+     * Parses the ordering of the JCR-SQL2 statement, which must be ordered by a single property.
+     * @param statement JCR-SQL2 statement
+     * @return the ordering of the statement
+     * @throws SQLException if the statement is not ordered by a single property
+     */
+    static KeysetOrdering parse(final String statement) throws SQLException {
+        final QueryTokens tokens = QueryTokens.tokenize(statement);
+        final int size = tokens.size();
+        int depth = 0;
+        int whereIndex = -1;
+        int orderIndex = -1;
+
+        for (int i = 0; i < size; i++) {
+            if (tokens.getType(i) == QueryTokens.PUNCTUATION) {
+                final char c = statement.charAt(tokens.getBegin(i));
+
+                if (c == '(') {
+                    ++depth;
+                } else if (c == ')') {
+                    --depth;
+                }
+            } else if (depth == 0 && tokens.getType(i) == QueryTokens.WORD) {
+                if (tokens.textEqualsIgnoreCase(i, "where") && orderIndex == -1) {
+                    whereIndex = i;
+                } else if (tokens.textEqualsIgnoreCase(i, "order") && i + 1 < size
+                        && tokens.textEqualsIgnoreCase(i + 1, "by")) {
+                    orderIndex = i;
+                }
+            }
+        }
+
+        if (orderIndex == -1) {
+            throw new SQLException("Keyset pagination requires an ORDER BY clause.");
+        }
+
+        // operand: [selector.]name or [selector.][name], and an optional direction.
+        int index = orderIndex + 2;
+        String selectorName = null;
+
+        if (index + 2 < size && tokens.getType(index) == QueryTokens.WORD
+                && tokens.getType(index + 1) == QueryTokens.PUNCTUATION
+                && statement.charAt(tokens.getBegin(index + 1)) == '.') {
+            selectorName = tokens.getText(index);
+            index += 2;
+        }
+
+        if (index >= size || (tokens.getType(index) != QueryTokens.WORD
+                && tokens.getType(index) != QueryTokens.BRACKETED_NAME)) {
+            throw new SQLException("Keyset pagination requires ordering by a single property.");
+        }
+
+        String propertyName = tokens.getText(index);
+
+        if (tokens.getType(index) == QueryTokens.BRACKETED_NAME) {
+            propertyName = propertyName.substring(1, propertyName.length() - 1);
+        }
+
+        final String operand = statement.substring(tokens.getBegin(orderIndex + 2), tokens.getEnd(index));
+        boolean descending = false;
+        ++index;
+
+        if (index < size && tokens.getType(index) == QueryTokens.WORD) {
+            if (tokens.textEqualsIgnoreCase(index, "desc")) {
+                descending = true;
+                ++index;
+            } else if (tokens.textEqualsIgnoreCase(index, "asc")) {
+                ++index;
+            }
+        }
+
+        if (index < size) {
+            throw new SQLException("Keyset pagination requires ordering by a single property.");
+        }
+
+        return new KeysetOrdering(statement, selectorName, propertyName, descending,
+                whereIndex == -1 ? -1 : tokens.getEnd(whereIndex), tokens.getBegin(orderIndex), operand);
+    }
+
+    /**
+     * Returns the selector name of the ordering property, or null if not qualified.
+     * @return the selector name of the ordering property, or null if not qualified
+     */
+    String getSelectorName() {
+        return selectorName;
+    }
+
+    String getPropertyName() {
+        return propertyName;
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Returns the statement with the predicate on the ordering property against the bind variable,
+     * {@link #KEYSET_VAR_NAME}.
+     * @return the statement with the predicate on the ordering property
+     */
+    String getStatementAfter() {
+        final String predicate = operand + (descending ? " <= $" : " >= $") + KEYSET_VAR_NAME;
+        final StringBuilder sb = new StringBuilder(statement.length() + predicate.length() + 16);
+
+        if (whereEnd != -1) {
+            sb.append(statement, 0, whereEnd).append(" (").append(statement.substring(whereEnd, orderBegin).trim())
+                    .append(") AND ");
+        } else {
+            sb.append(statement.substring(0, orderBegin).trim()).append(" WHERE ");
+        }
+
+        return sb.append(predicate).append(' ').append(statement, orderBegin, statement.length()).toString();
+    }
+
+    /**
+     * Encodes a cursor token from the sort key of the last row and the paths of the rows having the same sort key.
+     * @param keyType property type of the sort key
+     * @param key string representation of the sort key
+     * @param paths paths of the rows having the same sort key
+     * @return the encoded cursor token
+     */
+    static String encodeToken(final int keyType, final String key, final Collection<String> paths) {
+        try {
+            final StringBuilder sb = new StringBuilder().append(keyType).append('&')
+                    .append(URLEncoder.encode(key, TOKEN_ENCODING));
+
+            for (String path : paths) {
+                sb.append('&').append(URLEncoder.encode(path, TOKEN_ENCODING));
+            }
+
+            return sb.toString();
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes a cursor token encoded by {@link #encodeToken(int, String, Collection)}.
+     * @param token cursor token
+     * @return the decoded cursor
+     * @throws SQLException if the token is invalid
+     */
+    static Cursor decodeToken(final String token) throws SQLException {
+        final String [] fields = token.split("&", -1);
+
+        if (fields.length < 3) {
+            throw new SQLException("Invalid cursor token: " + token);
+        }
+
+        try {
+            final Set<String> paths = new LinkedHashSet<>();
+
+            for (int i = 2; i < fields.length; i++) {
+                paths.add(URLDecoder.decode(fields[i], TOKEN_ENCODING));
+            }
+
+            return new Cursor(Integer.parseInt(fields[0]), URLDecoder.decode(fields[1], TOKEN_ENCODING), paths);
+        } catch (IllegalArgumentException | UnsupportedEncodingException e) {
+            throw new SQLException("Invalid cursor token: " + token, e);
+        }
+    }
+
+    /**
+     * Decoded cursor token.
+     */
+    static class Cursor {
+
+        private final int keyType;
+        private final String key;
+        private final Set<String> paths;
+
+        Cursor(final int keyType, final String key, final Set<String> paths) {
+            this.keyType = keyType;
+            this.key = key;
+            this.paths = paths;
+        }
+
+        int getKeyType() {
+            return keyType;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        Set<String> getPaths() {
+            return paths;
+        }
+    }
+
+}
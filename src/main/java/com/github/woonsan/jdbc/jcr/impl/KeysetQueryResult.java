@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+
+/**
+ * {@link QueryResult} of a keyset paginated query, which skips the rows already returned in the previous page
+ * and keeps track of the sort key of the last row to build the cursor token for the next page.
+ */
+class KeysetQueryResult implements QueryResult {
+
+    private final QueryResult queryResult;
+    private final KeysetOrdering ordering;
+    private final KeysetOrdering.Cursor after;
+    private final long limit;
+
+    private int lastKeyType;
+    private String lastKey;
+    private final Set<String> lastKeyPaths = new LinkedHashSet<>();
+    private boolean rowRead;
+
+    /**
+     * Constructs the keyset paginated query result.
+     * @param queryResult query result of the page
+     * @param ordering ordering of the query
+     * @param after cursor decoded from the token of the previous page, or null for the first page
+     * @param limit the maximum number of rows of the page, or zero or less for no limit
+     */
+    KeysetQueryResult(final QueryResult queryResult, final KeysetOrdering ordering, final KeysetOrdering.Cursor after,
+            final long limit) {
+        this.queryResult = queryResult;
+        this.ordering = ordering;
+        this.after = after;
+        this.limit = limit;
+
+        if (after != null) {
+            lastKeyType = after.getKeyType();
+            lastKey = after.getKey();
+            lastKeyPaths.addAll(after.getPaths());
+        }
+    }
+
+    @Override
+    public String[] getColumnNames() throws RepositoryException {
+        return queryResult.getColumnNames();
+    }
+
+    @Override
+    public RowIterator getRows() throws RepositoryException {
+        return new KeysetRowIterator(queryResult.getRows());
+    }
+
+    @Override
+    public NodeIterator getNodes() throws RepositoryException {
+        return queryResult.getNodes();
+    }
+
+    @Override
+    public String[] getSelectorNames() throws RepositoryException {
+        return queryResult.getSelectorNames();
+    }
+
+    /**
+     * Returns the cursor token to resume after the last row read, or null if no row has been read in this page.
+     * @return the cursor token to resume after the last row read, or null if no row has been read in this page
+     * @throws RepositoryException if the last row has no sort key
+     */
+    String getCursorToken() throws RepositoryException {
+        if (!rowRead) {
+            return null;
+        }
+
+        if (lastKey == null) {
+            throw new RepositoryException("Cannot resume after a row without the sort key, '"
+                    + ordering.getPropertyName() + "'.");
+        }
+
+        return KeysetOrdering.encodeToken(lastKeyType, lastKey, lastKeyPaths);
+    }
+
+    private Value getSortKey(final Row row) throws RepositoryException {
+        final Node node = ordering.getSelectorName() == null ? row.getNode() : row.getNode(ordering.getSelectorName());
+
+        if (node == null || !node.hasProperty(ordering.getPropertyName())) {
+            return null;
+        }
+
+        return node.getProperty(ordering.getPropertyName()).getValue();
+    }
+
+    private String getPath(final Row row) throws RepositoryException {
+        return ordering.getSelectorName() == null ? row.getPath() : row.getPath(ordering.getSelectorName());
+    }
+
+    private class KeysetRowIterator implements RowIterator {
+
+        private final RowIterator rowIterator;
+        private long position;
+        private Row nextRow;
+        private Value nextKey;
+        private String nextPath;
+
+        KeysetRowIterator(final RowIterator rowIterator) {
+            this.rowIterator = rowIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow != null) {
+                return true;
+            }
+
+            if (limit > 0 && position >= limit) {
+                return false;
+            }
+
+            try {
+                Row row;
+                Value key;
+                String path;
+
+                while (rowIterator.hasNext()) {
+                    row = rowIterator.nextRow();
+                    key = getSortKey(row);
+                    path = getPath(row);
+
+                    if (after != null && key != null && key.getType() == after.getKeyType()
+                            && key.getString().equals(after.getKey()) && after.getPaths().contains(path)) {
+                        // already returned in the previous page.
+                        continue;
+                    }
+
+                    nextRow = row;
+                    nextKey = key;
+                    nextPath = path;
+                    return true;
+                }
+            } catch (RepositoryException e) {
+                throw new IllegalStateException("Failed to read the sort key. " + e.toString(), e);
+            }
+
+            return false;
+        }
+
+        @Override
+        public Row nextRow() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Row row = nextRow;
+
+            try {
+                final String key = nextKey != null ? nextKey.getString() : null;
+                final int keyType = nextKey != null ? nextKey.getType() : 0;
+
+                if (!(key != null && keyType == lastKeyType && key.equals(lastKey))) {
+                    lastKeyType = keyType;
+                    lastKey = key;
+                    lastKeyPaths.clear();
+                }
+
+                lastKeyPaths.add(nextPath);
+                rowRead = true;
+            } catch (RepositoryException e) {
+                throw new IllegalStateException("Failed to read the sort key. " + e.toString(), e);
+            } finally {
+                nextRow = null;
+                nextKey = null;
+                nextPath = null;
+                ++position;
+            }
+
+            return row;
+        }
+
+        @Override
+        public Object next() {
+            return nextRow();
+        }
+
+        @Override
+        public void skip(long skipNum) {
+            for (long i = 0; i < skipNum; i++) {
+                nextRow();
+            }
+        }
+
+        @Override
+        public long getSize() {
+            return -1;
+        }
+
+        @Override
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.query.Row;
+
+/**
+ * Resolves the meta-column values (<code>jcr:path</code>, <code>jcr:name</code>, <code>jcr:uuid</code> and
+ * <code>jcr:score</code>) of the current row.
+ * <p>
+ * The node name is derived from the row path without loading the node, and the node is loaded at most once
+ * per row, only when the identifier is requested and not projected in a result column. As JCR doesn't provide
+ * a bulk identifier lookup API, the identifier is resolved per row, from the nodes prefetched by the fetch size
+ * if any (see {@link PrefetchingRowIterator}).
+ * <p>
+ * If a selector name is given, the values are resolved for the selector in a multi-selector (join) row.
+ */
+class MetaColumnResolver {
+
+    private final String selectorName;
+
+    private String identifierColumnName;
+
+    private Row row;
+    private String path;
+    private Node node;
+    private String identifier;
+
+    MetaColumnResolver() {
+        this(null);
+    }
+
+    MetaColumnResolver(final String selectorName) {
+        this.selectorName = selectorName;
+    }
+
+    String getSelectorName() {
+        return selectorName;
+    }
+
+    /**
+     * Sets the name of the result column projecting <code>jcr:uuid</code> of the node, to read the identifier
+     * from the row instead of loading the node if available.
+     * @param identifierColumnName the name of the result column projecting <code>jcr:uuid</code>, or null if none
+     */
+    void setIdentifierColumnName(final String identifierColumnName) {
+        this.identifierColumnName = identifierColumnName;
+    }
+
+    void reset(final Row row) {
+        this.row = row;
+        path = null;
+        node = null;
+        identifier = null;
+    }
+
+    String getPath() throws RepositoryException {
+        if (path == null) {
+            path = selectorName == null ? getRow().getPath() : getRow().getPath(selectorName);
+        }
+
+        return path;
+    }
+
+    String getName() throws RepositoryException {
+        return getNodeName(getPath());
+    }
+
+    Node getNode() throws RepositoryException {
+        if (node == null) {
+            node = selectorName == null ? getRow().getNode() : getRow().getNode(selectorName);
+        }
+
+        return node;
+    }
+
+    String getIdentifier() throws RepositoryException {
+        if (identifier == null) {
+            if (getPath() == null) {
+                // no node for the selector in an outer join row.
+                return null;
+            }
+
+            if (identifierColumnName != null) {
+                final Value value = getRow().getValue(identifierColumnName);
+
+                if (value != null) {
+                    identifier = value.getString();
+                }
+            }
+
+            if (identifier == null) {
+                identifier = getNode().getIdentifier();
+            }
+        }
+
+        return identifier;
+    }
+
+    double getScore() throws RepositoryException {
+        return selectorName == null ? getRow().getScore() : getRow().getScore(selectorName);
+    }
+
+    /**
+     * Returns the node name from the given node path, stripping the same-name-sibling index if any.
+     * @param path node path
+     * @return the node name from the given node path
+     */
+    static String getNodeName(final String path) {
+        if (path == null) {
+            return null;
+        }
+
+        int end = path.length();
+
+        if (end > 0 && path.charAt(end - 1) == ']') {
+            final int indexOffset = path.lastIndexOf('[');
+
+            if (indexOffset != -1) {
+                end = indexOffset;
+            }
+        }
+
+        final int begin = path.lastIndexOf('/', end - 1) + 1;
+
+        return path.substring(begin, end);
+    }
+
+    private Row getRow() throws RepositoryException {
+        if (row == null) {
+            throw new RepositoryException("Current row is not available.");
+        }
+
+        return row;
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+
+/**
+ * {@link RowIterator} reading ahead a window of rows from the underlying row iterator at a time, and loading
+ * the nodes of the rows in the window together before the rows are read.
+ * <p>
+ * For a remote repository, the parent node shared by more than one row in the window is read first, so that
+ * SPI2DAVex reads the child node states in the same request (if the batch read depth is one or more) into its
+ * item info cache. Then, the nodes of the rows are loaded from the cache, instead of making a round trip per node,
+ * interleaved with the application's processing of each row. A node failing to load is not reported here
+ * but when the row is read.
+ */
+class PrefetchingRowIterator implements RowIterator {
+
+    private final RowIterator rowIterator;
+    private final Session session;
+    private final String [] selectorNames;
+    private final Deque<Row> window = new ArrayDeque<>();
+    private int windowSize;
+
+    /**
+     * Constructs a row iterator prefetching the nodes of the rows.
+     * @param rowIterator underlying row iterator
+     * @param session session to read the shared parent nodes from, or null not to read the parent nodes
+     * @param selectorNames selector names of the query result
+     * @param windowSize the number of rows to read ahead at a time
+     */
+    PrefetchingRowIterator(final RowIterator rowIterator, final Session session, final String [] selectorNames,
+            final int windowSize) {
+        this.rowIterator = rowIterator;
+        this.session = session;
+        this.selectorNames = selectorNames;
+        setWindowSize(windowSize);
+    }
+
+    void setWindowSize(final int windowSize) {
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    int getWindowSize() {
+        return windowSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !window.isEmpty() || rowIterator.hasNext();
+    }
+
+    @Override
+    public Row nextRow() {
+        if (window.isEmpty()) {
+            fillWindow();
+        }
+
+        final Row row = window.pollFirst();
+
+        if (row == null) {
+            throw new NoSuchElementException();
+        }
+
+        return row;
+    }
+
+    @Override
+    public Object next() {
+        return nextRow();
+    }
+
+    @Override
+    public void skip(long skipNum) {
+        long remaining = skipNum;
+
+        while (remaining > 0 && !window.isEmpty()) {
+            window.pollFirst();
+            remaining--;
+        }
+
+        if (remaining > 0) {
+            rowIterator.skip(remaining);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return rowIterator.getSize();
+    }
+
+    @Override
+    public long getPosition() {
+        return rowIterator.getPosition() - window.size();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private void fillWindow() {
+        Row row;
+
+        while (window.size() < windowSize && rowIterator.hasNext()) {
+            row = rowIterator.nextRow();
+            window.addLast(row);
+        }
+
+        if (session != null && (selectorNames == null || selectorNames.length <= 1)) {
+            prefetchSharedParentNodes();
+        }
+
+        for (Row prefetchRow : window) {
+            prefetchNodes(prefetchRow);
+        }
+    }
+
+    private void prefetchSharedParentNodes() {
+        final Map<String, Integer> parentPathCounts = new LinkedHashMap<>();
+        String parentPath;
+        Integer count;
+
+        for (Row row : window) {
+            try {
+                parentPath = getParentPath(row.getPath());
+            } catch (RepositoryException e) {
+                continue;
+            }
+
+            if (parentPath != null) {
+                count = parentPathCounts.get(parentPath);
+                parentPathCounts.put(parentPath, count == null ? 1 : count + 1);
+            }
+        }
+
+        for (Map.Entry<String, Integer> entry : parentPathCounts.entrySet()) {
+            if (entry.getValue() > 1) {
+                try {
+                    session.getNode(entry.getKey());
+                } catch (RepositoryException e) {
+                    // the nodes of the rows are loaded one by one.
+                }
+            }
+        }
+    }
+
+    private void prefetchNodes(final Row row) {
+        try {
+            if (selectorNames == null || selectorNames.length <= 1) {
+                row.getNode();
+            } else {
+                for (String selectorName : selectorNames) {
+                    row.getNode(selectorName);
+                }
+            }
+        } catch (RepositoryException e) {
+            // to be reported when the row is read.
+        }
+    }
+
+    static String getParentPath(final String path) {
+        if (path == null) {
+            return null;
+        }
+
+        final int offset = path.lastIndexOf('/');
+
+        if (offset < 0 || path.length() == 1) {
+            return null;
+        }
+
+        return offset == 0 ? "/" : path.substring(0, offset);
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.apache.jackrabbit.util.ISO8601;
+
+/**
+ * Immutable template of a query statement containing bind variable references, named by
+ * {@link SQLQueryUtils#PARAM_VAR_REF_PREFIX} and the 1-based parameter index, for the query languages
+ * without bind variable support (e.g, <code>sql</code>).
+ * <p>
+ * The statement is split into the constant segments and the parameter slots once, so that binding parameters
+ * is a single pass appending the segments and the parameter literals into a pre-sized buffer.
+ */
+class QueryStatementTemplate {
+
+    private final String [] segments;
+    private final int [] parameterIndexes;
+    private final int segmentsLength;
+
+    QueryStatementTemplate(final String statement, final int parametersCount) {
+        final List<String> segmentList = new ArrayList<>(parametersCount + 1);
+        final List<Integer> indexList = new ArrayList<>(parametersCount);
+        final String prefix = SQLQueryUtils.PARAM_VAR_REF_PREFIX;
+        final int length = statement.length();
+        int segmentBegin = 0;
+        int offset = statement.indexOf(prefix);
+        int end;
+        int fixedLength = 0;
+
+        while (offset != -1) {
+            end = offset + prefix.length();
+
+            while (end < length && Character.isDigit(statement.charAt(end))) {
+                ++end;
+            }
+
+            if (end > offset + prefix.length()) {
+                final int index = Integer.parseInt(statement.substring(offset + prefix.length(), end)) - 1;
+
+                if (index >= 0 && index < parametersCount) {
+                    segmentList.add(statement.substring(segmentBegin, offset));
+                    fixedLength += offset - segmentBegin;
+                    indexList.add(index);
+                    segmentBegin = end;
+                }
+            }
+
+            offset = statement.indexOf(prefix, end);
+        }
+
+        segmentList.add(statement.substring(segmentBegin));
+        fixedLength += length - segmentBegin;
+
+        segments = segmentList.toArray(new String[segmentList.size()]);
+        parameterIndexes = new int[indexList.size()];
+
+        for (int i = 0; i < parameterIndexes.length; i++) {
+            parameterIndexes[i] = indexList.get(i);
+        }
+
+        segmentsLength = fixedLength;
+    }
+
+    int getParameterSlotCount() {
+        return parameterIndexes.length;
+    }
+
+    /**
+     * Returns the statement with the parameter slots replaced by the literals of the given parameter values.
+     * @param parameters parameter values
+     * @return the statement with the parameter literals
+     * @throws SQLException if a parameter value is of an unsupported type
+     */
+    String bind(final Object [] parameters) throws SQLException {
+        final String [] literals = new String[parameterIndexes.length];
+        int capacity = segmentsLength;
+
+        for (int i = 0; i < parameterIndexes.length; i++) {
+            literals[i] = toLiteral(parameters[parameterIndexes[i]], parameterIndexes[i] + 1);
+            capacity += literals[i].length();
+        }
+
+        final StringBuilder sb = new StringBuilder(capacity);
+
+        for (int i = 0; i < parameterIndexes.length; i++) {
+            sb.append(segments[i]).append(literals[i]);
+        }
+
+        return sb.append(segments[parameterIndexes.length]).toString();
+    }
+
+    static String toLiteral(final Object value, final int parameterIndex) throws SQLException {
+        if (value instanceof String) {
+            return quote((String) value);
+        } else if (value instanceof Long) {
+            return value.toString();
+        } else if (value instanceof Double) {
+            final Double doubleValue = (Double) value;
+
+            if (doubleValue.isNaN() || doubleValue.isInfinite()) {
+                throw new SQLException("SQL Parameter at position " + parameterIndex + " is not a finite number.");
+            }
+
+            return doubleValue.toString();
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        } else if (value instanceof Calendar) {
+            return "TIMESTAMP '" + ISO8601.format((Calendar) value) + "'";
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue() ? "'true'" : "'false'";
+        }
+
+        throw new SQLException("SQL Parameter at position " + parameterIndex + " is of an unsupported type: "
+                + (value != null ? value.getClass().getName() : null));
+    }
+
+    private static String quote(final String value) {
+        final int length = value.length();
+        final StringBuilder sb = new StringBuilder(length + 8).append('\'');
+        char c;
+
+        for (int i = 0; i < length; i++) {
+            c = value.charAt(i);
+
+            if (c == '\'') {
+                sb.append('\'');
+            }
+
+            sb.append(c);
+        }
+
+        return sb.append('\'').toString();
+    }
+
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.util.Arrays;
+
+/**
+ * Token stream of a <code>sql</code> or <code>JCR-SQL2</code> query statement, read by a single pass lexer.
+ * <p>
+ * The lexer understands string literals quoted by <code>'</code> or <code>"</code> (with doubled quotes
+ * as escapes), bracketed names such as <code>[jcr:title]</code>, line comments (<code>--</code>) and block
+ * comments, so a <code>?</code> or a keyword inside any of them is never taken as a token by itself.
+ * Whitespaces are not kept as tokens, but can be detected by comparing the end of a token with the begin
+ * of the next token.
+ * <p>
+ * Tokens are kept as offsets into the statement in primitive arrays, without creating a string per token.
+ */
+class QueryTokens {
+
+    /** Word such as a keyword, a function name, an unbracketed name or an alias. */
+    static final int WORD = 1;
+
+    /** Unsigned numeric literal. */
+    static final int NUMBER = 2;
+
+    /** String literal including the quotes. */
+    static final int STRING = 3;
+
+    /** Bracketed name including the brackets. */
+    static final int BRACKETED_NAME = 4;
+
+    /** JDBC parameter marker, <code>?</code>. */
+    static final int PARAMETER = 5;
+
+    /** Bind variable reference such as <code>$name</code>. */
+    static final int VARIABLE = 6;
+
+    /** Comparison operator such as <code>=</code>, <code>&lt;&gt;</code> or <code>&gt;=</code>. */
+    static final int OPERATOR = 7;
+
+    /** Any other single character such as <code>(</code>, <code>,</code>, <code>.</code> or <code>*</code>. */
+    static final int PUNCTUATION = 8;
+
+    /** Line comment or block comment. */
+    static final int COMMENT = 9;
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final String query;
+    private int [] types;
+    private int [] begins;
+    private int [] ends;
+    private int size;
+
+    private QueryTokens(final String query) {
+        this.query = query;
+        final int capacity = Math.max(INITIAL_CAPACITY, query.length() / 4);
+        types = new int[capacity];
+        begins = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    /**
+     * Reads the tokens of the query statement.
+     * @param query query statement
+     * @return the tokens of the query statement
+     */
+    static QueryTokens tokenize(final String query) {
+        if (query == null) {
+            throw new IllegalArgumentException("query statement is null.");
+        }
+
+        final QueryTokens tokens = new QueryTokens(query);
+        final int length = query.length();
+        int offset = 0;
+        int begin;
+        char c;
+
+        while (offset < length) {
+            c = query.charAt(offset);
+
+            if (Character.isWhitespace(c)) {
+                ++offset;
+                continue;
+            }
+
+            begin = offset;
+
+            if (c == '\'' || c == '"') {
+                offset = skipQuoted(query, offset);
+                tokens.add(STRING, begin, offset);
+            } else if (c == '[') {
+                final int end = query.indexOf(']', offset + 1);
+                offset = end == -1 ? length : end + 1;
+                tokens.add(BRACKETED_NAME, begin, offset);
+            } else if (c == '-' && offset + 1 < length && query.charAt(offset + 1) == '-') {
+                final int end = query.indexOf('\n', offset + 2);
+                offset = end == -1 ? length : end;
+                tokens.add(COMMENT, begin, offset);
+            } else if (c == '/' && offset + 1 < length && query.charAt(offset + 1) == '*') {
+                final int end = query.indexOf("*/", offset + 2);
+                offset = end == -1 ? length : end + 2;
+                tokens.add(COMMENT, begin, offset);
+            } else if (isDigit(c)) {
+                offset = skipNumber(query, offset);
+                tokens.add(NUMBER, begin, offset);
+            } else if (isNameStart(c)) {
+                offset = skipName(query, offset + 1);
+                tokens.add(WORD, begin, offset);
+            } else if (c == '$') {
+                offset = skipName(query, offset + 1);
+                tokens.add(VARIABLE, begin, offset);
+            } else if (c == '?') {
+                tokens.add(PARAMETER, begin, ++offset);
+            } else if (c == '=' || c == '<' || c == '>' || c == '!') {
+                ++offset;
+
+                while (offset < length && isOperatorChar(query.charAt(offset))) {
+                    ++offset;
+                }
+
+                tokens.add(OPERATOR, begin, offset);
+            } else {
+                tokens.add(PUNCTUATION, begin, ++offset);
+            }
+        }
+
+        return tokens;
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getType(final int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    int getBegin(final int index) {
+        checkIndex(index);
+        return begins[index];
+    }
+
+    int getEnd(final int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    String getText(final int index) {
+        checkIndex(index);
+        return query.substring(begins[index], ends[index]);
+    }
+
+    /**
+     * Returns true if the token text equals to the given text, ignoring case.
+     * @param index token index
+     * @param text text to compare with
+     * @return true if the token text equals to the given text, ignoring case
+     */
+    boolean textEqualsIgnoreCase(final int index, final String text) {
+        checkIndex(index);
+        final int length = ends[index] - begins[index];
+        return length == text.length() && query.regionMatches(true, begins[index], text, 0, length);
+    }
+
+    /**
+     * Returns true if the token is preceded by a whitespace or a comment, or is the first token.
+     * @param index token index
+     * @return true if the token is preceded by a whitespace or a comment, or is the first token
+     */
+    boolean isSeparatedFromPrevious(final int index) {
+        checkIndex(index);
+        return index == 0 || ends[index - 1] < begins[index] || types[index - 1] == COMMENT;
+    }
+
+    private void add(final int type, final int begin, final int end) {
+        if (size == types.length) {
+            final int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            begins = Arrays.copyOf(begins, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+
+        types[size] = type;
+        begins[size] = begin;
+        ends[size] = end;
+        ++size;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid token index: " + index);
+        }
+    }
+
+    private static int skipQuoted(final String query, int offset) {
+        final char quote = query.charAt(offset);
+        final int length = query.length();
+
+        for (++offset; offset < length; offset++) {
+            if (query.charAt(offset) == quote) {
+                if (offset + 1 < length && query.charAt(offset + 1) == quote) {
+                    ++offset;
+                } else {
+                    return offset + 1;
+                }
+            }
+        }
+
+        // unterminated literal up to the end.
+        return length;
+    }
+
+    private static int skipNumber(final String query, int offset) {
+        final int length = query.length();
+
+        while (offset < length && isDigit(query.charAt(offset))) {
+            ++offset;
+        }
+
+        if (offset + 1 < length && query.charAt(offset) == '.' && isDigit(query.charAt(offset + 1))) {
+            offset += 2;
+
+            while (offset < length && isDigit(query.charAt(offset))) {
+                ++offset;
+            }
+        }
+
+        if (offset < length && (query.charAt(offset) == 'e' || query.charAt(offset) == 'E')) {
+            int exponentOffset = offset + 1;
+
+            if (exponentOffset < length && (query.charAt(exponentOffset) == '+'
+                    || query.charAt(exponentOffset) == '-')) {
+                ++exponentOffset;
+            }
+
+            if (exponentOffset < length && isDigit(query.charAt(exponentOffset))) {
+                offset = exponentOffset;
+
+                while (offset < length && isDigit(query.charAt(offset))) {
+                    ++offset;
+                }
+            }
+        }
+
+        return offset;
+    }
+
+    private static int skipName(final String query, int offset) {
+        final int length = query.length();
+        char c;
+
+        while (offset < length) {
+            c = query.charAt(offset);
+
+            if (Character.isLetterOrDigit(c) || c == '_' || c == ':'
+                    || (c == '-' && !(offset + 1 < length && query.charAt(offset + 1) == '-'))) {
+                ++offset;
+            } else {
+                break;
+            }
+        }
+
+        return offset;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNameStart(final char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isOperatorChar(final char c) {
+        return c == '=' || c == '<' || c == '>';
+    }
+
+}
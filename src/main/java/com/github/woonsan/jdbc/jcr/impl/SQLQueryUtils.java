@@ -18,8 +18,13 @@
  */
 package com.github.woonsan.jdbc.jcr.impl;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import javax.jcr.query.Query;
 
@@ -35,11 +40,13 @@ class SQLQueryUtils {
     @SuppressWarnings("deprecation")
     private static final String DEFAULT_QUERY_LANGUAGE = Query.SQL;
 
-    private static final Pattern JCR_SQL2_QUERY_PATTERN = Pattern
-            .compile("^\\s*select\\s+.+\\s+from\\s+\\[[^\\[\\]]+\\].*$", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> JCR_SQL2_KEYWORDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "SELECT", "FROM", "WHERE", "AND", "OR", "NOT", "AS", "ORDER", "BY", "ASC", "DESC", "LIKE", "JOIN",
+            "INNER", "LEFT", "RIGHT", "OUTER", "ON", "IS", "NULL")));
 
-    private static final Pattern SQL_BIND_PARAM_PATTERN = Pattern
-            .compile("(([=+-<>\\(]\\s*)|(\\s+LIKE\\s+))(\\?)([\\s\\)]|$)", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> JCR_SQL2_FUNCTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "ISSAMENODE", "ISCHILDNODE", "ISDESCENDANTNODE", "CONTAINS", "CAST", "LENGTH", "NAME", "LOCALNAME",
+            "SCORE", "LOWER", "UPPER")));
 
     private SQLQueryUtils() {
     }
@@ -49,10 +56,32 @@ class SQLQueryUtils {
             throw new IllegalArgumentException("query statement is null.");
         }
 
-        final Matcher m = JCR_SQL2_QUERY_PATTERN.matcher(query);
+        return detectQueryLanguage(QueryTokens.tokenize(query));
+    }
+
+    /**
+     * Detects the query language from the tokens: a <code>SELECT</code> statement selecting from a bracketed
+     * node type name is regarded as <code>JCR-SQL2</code>, and any other is regarded as <code>sql</code>.
+     * @param tokens query statement tokens
+     * @return the detected query language
+     */
+    static String detectQueryLanguage(final QueryTokens tokens) {
+        final int size = tokens.size();
+        int index = 0;
+
+        while (index < size && tokens.getType(index) == QueryTokens.COMMENT) {
+            ++index;
+        }
 
-        if (m.matches()) {
-            return Query.JCR_SQL2;
+        if (index < size && tokens.getType(index) == QueryTokens.WORD && tokens.textEqualsIgnoreCase(index, "select")) {
+            // at least one token for the columns before FROM.
+            for (index += 2; index < size - 1; index++) {
+                if (tokens.getType(index) == QueryTokens.WORD && tokens.textEqualsIgnoreCase(index, "from")
+                        && tokens.getType(index + 1) == QueryTokens.BRACKETED_NAME
+                        && tokens.getEnd(index + 1) - tokens.getBegin(index + 1) > 2) {
+                    return Query.JCR_SQL2;
+                }
+            }
         }
 
         return DEFAULT_QUERY_LANGUAGE;
@@ -60,33 +89,169 @@ class SQLQueryUtils {
 
     static int convertParameterBindingSqlToVariableBindingQuery(final String parameterBindingSql,
             final StringBuilder variableBindingQueryBuilder) {
+        return convertParameterBindingSqlToVariableBindingQuery(QueryTokens.tokenize(parameterBindingSql),
+                variableBindingQueryBuilder);
+    }
+
+    /**
+     * Replaces each JDBC parameter marker (<code>?</code>) in the tokens by a bind variable reference,
+     * named by {@link #PARAM_VAR_REF_PREFIX} and the 1-based parameter index.
+     * @param tokens parameter binding SQL statement tokens
+     * @param variableBindingQueryBuilder builder to append the variable binding query statement to
+     * @return the number of the parameters
+     */
+    static int convertParameterBindingSqlToVariableBindingQuery(final QueryTokens tokens,
+            final StringBuilder variableBindingQueryBuilder) {
+        final String parameterBindingSql = tokens.getQuery();
+        final int size = tokens.size();
         int paramCount = 0;
+        int segmentBegin = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (tokens.getType(i) == QueryTokens.PARAMETER) {
+                ++paramCount;
+                variableBindingQueryBuilder.append(parameterBindingSql, segmentBegin, tokens.getBegin(i))
+                        .append(PARAM_VAR_REF_PREFIX).append(paramCount);
+                segmentBegin = tokens.getEnd(i);
+            }
+        }
+
+        variableBindingQueryBuilder.append(parameterBindingSql, segmentBegin, parameterBindingSql.length());
+
+        return paramCount;
+    }
+
+    /**
+     * Normalizes the given JCR-SQL2 query statement and extracts the literals compared by an operator
+     * (<code>=</code>, <code>&lt;&gt;</code>, <code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code>,
+     * <code>&gt;=</code> or <code>LIKE</code>) into bind variables, named by {@link #PARAM_VAR_PREFIX}
+     * and the 1-based literal index, so that structurally identical statements result in the same query.
+     * <p>
+     * Whitespaces outside literals and bracketed names are collapsed into a single space, and keywords and
+     * function names are upper-cased. String literals are extracted as {@link String}, integer literals as
+     * {@link Long} and decimal literals as {@link BigDecimal} into <code>literals</code>, in the same type as
+     * JCR-SQL2 parser would read the inline literals. Other literals are kept inline.
+     * <p>
+     * If the statement already contains a bind variable reference, the statement is returned as it is.
+     * @param query JCR-SQL2 query statement
+     * @param literals list to add the extracted literal values to
+     * @return normalized query statement with bind variable references in place of the extracted literals
+     */
+    static String normalizeAndParameterizeQuery(final String query, final List<Object> literals) {
+        return normalizeAndParameterizeQuery(QueryTokens.tokenize(query), literals);
+    }
 
-        CharSequence segment = new StringBuilder(parameterBindingSql);
-        Matcher matcher = null;
-        String paramVariable = null;
+    /**
+     * Normalizes the JCR-SQL2 query statement tokens and extracts the literals compared by an operator into
+     * bind variables, as {@link #normalizeAndParameterizeQuery(String, List)} does. Comments are dropped as
+     * whole tokens, so a quote, a <code>?</code> or a bind variable reference inside a comment is never read
+     * as a literal, a parameter marker or a variable, the same as in {@link #detectQueryLanguage(QueryTokens)}
+     * and {@link #convertParameterBindingSqlToVariableBindingQuery(QueryTokens, StringBuilder)}.
+     * @param tokens JCR-SQL2 query statement tokens
+     * @param literals list to add the extracted literal values to
+     * @return normalized query statement with bind variable references in place of the extracted literals
+     */
+    static String normalizeAndParameterizeQuery(final QueryTokens tokens, final List<Object> literals) {
+        final String query = tokens.getQuery();
+        final int size = tokens.size();
+        final StringBuilder sb = new StringBuilder(query.length());
+        boolean afterOperator = false;
+        boolean afterAs = false;
+        int type;
+        int begin;
+        int end;
 
-        for (matcher = SQL_BIND_PARAM_PATTERN.matcher(segment); matcher.find();) {
-            ++paramCount;
+        for (int i = 0; i < size; i++) {
+            type = tokens.getType(i);
 
-            variableBindingQueryBuilder.append(segment.subSequence(0, matcher.start())).append(matcher.group(1));
+            if (type == QueryTokens.COMMENT) {
+                continue;
+            } else if (type == QueryTokens.VARIABLE) {
+                literals.clear();
+                return query;
+            }
 
-            paramVariable = PARAM_VAR_REF_PREFIX + paramCount;
-            variableBindingQueryBuilder.append(paramVariable);
+            begin = tokens.getBegin(i);
+            end = tokens.getEnd(i);
 
-            variableBindingQueryBuilder.append(matcher.group(5));
+            if (sb.length() > 0 && tokens.isSeparatedFromPrevious(i)) {
+                sb.append(' ');
+            }
 
-            segment = segment.subSequence(matcher.end(), segment.length());
-            matcher.reset(segment);
+            if (afterOperator && type == QueryTokens.STRING && end - begin >= 2
+                    && query.charAt(end - 1) == query.charAt(begin)) {
+                final String quote = query.substring(begin, begin + 1);
+                literals.add(query.substring(begin + 1, end - 1).replace(quote + quote, quote));
+                sb.append(PARAM_VAR_REF_PREFIX).append(literals.size());
+                afterOperator = false;
+            } else if (afterOperator && isNumberLiteral(tokens, i)) {
+                addNumberLiteral(literals, query.substring(begin, end), sb);
+                afterOperator = false;
+            } else if (afterOperator && type == QueryTokens.PUNCTUATION && i + 1 < size
+                    && (query.charAt(begin) == '-' || query.charAt(begin) == '+')
+                    && !tokens.isSeparatedFromPrevious(i + 1) && isNumberLiteral(tokens, i + 1)) {
+                ++i;
+                final String number = query.substring(begin, tokens.getEnd(i));
+                addNumberLiteral(literals, number.charAt(0) == '+' ? number.substring(1) : number, sb);
+                afterOperator = false;
+            } else if (type == QueryTokens.WORD) {
+                final String word = query.substring(begin, end);
+                final String upperWord = word.toUpperCase(Locale.ENGLISH);
+                final boolean qualified = begin > 0 && query.charAt(begin - 1) == '.';
+
+                if (!qualified && !afterAs && (JCR_SQL2_KEYWORDS.contains(upperWord)
+                        || (JCR_SQL2_FUNCTIONS.contains(upperWord) && i + 1 < size
+                                && tokens.getType(i + 1) == QueryTokens.PUNCTUATION
+                                && query.charAt(tokens.getBegin(i + 1)) == '('))) {
+                    sb.append(upperWord);
+                    afterOperator = "LIKE".equals(upperWord);
+                    afterAs = "AS".equals(upperWord);
+                    continue;
+                }
+
+                sb.append(word);
+                afterOperator = false;
+            } else {
+                sb.append(query, begin, end);
+                afterOperator = type == QueryTokens.OPERATOR;
+            }
+
+            afterAs = false;
         }
 
-        if (paramCount > 0) {
-            variableBindingQueryBuilder.append(segment);
-        } else {
-            variableBindingQueryBuilder.append(parameterBindingSql);
+        return sb.toString();
+    }
+
+    private static boolean isNumberLiteral(final QueryTokens tokens, final int index) {
+        if (tokens.getType(index) != QueryTokens.NUMBER) {
+            return false;
         }
 
-        return paramCount;
+        // exponent or malformed numbers are kept inline.
+        final String query = tokens.getQuery();
+
+        for (int i = tokens.getBegin(index); i < tokens.getEnd(index); i++) {
+            if (query.charAt(i) == 'e' || query.charAt(i) == 'E') {
+                return false;
+            }
+        }
+
+        return index + 1 >= tokens.size() || tokens.isSeparatedFromPrevious(index + 1)
+                || tokens.getType(index + 1) != QueryTokens.WORD;
+    }
+
+    private static void addNumberLiteral(final List<Object> literals, final String number, final StringBuilder sb) {
+        if (number.indexOf('.') != -1) {
+            literals.add(new BigDecimal(number));
+            sb.append(PARAM_VAR_REF_PREFIX).append(literals.size());
+        } else {
+            try {
+                literals.add(Long.valueOf(number));
+                sb.append(PARAM_VAR_REF_PREFIX).append(literals.size());
+            } catch (NumberFormatException e) {
+                sb.append(number);
+            }
+        }
     }
 
 }
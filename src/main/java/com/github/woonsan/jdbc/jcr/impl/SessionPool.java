@@ -0,0 +1,401 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.jcr.Credentials;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+
+/**
+ * Bounded pool of read-only worker sessions shared by the statements of connections.
+ * <p>
+ * As a JCR session is not meant to be used by multiple threads concurrently, a statement borrows a session
+ * exclusively while its result set is open. At most <code>maxSessions</code> sessions are logged in lazily with
+ * the same credentials to the same workspace, and a borrower waits for a session to be released if all are busy,
+ * up to the given timeout. Each session has its own {@link JcrQueryCache} as queries are bound to the session
+ * creating them.
+ * <p>
+ * A pool acquired by {@link #share(Repository, Credentials, String, int)} is shared by all the connections of the
+ * same repository, workspace, maximum sessions and credentials (the same user ID and password, without attributes),
+ * so the connections of a connection pool do not log in <code>maxSessions</code> sessions each. All the sessions
+ * are logged out when the last connection sharing the pool closes it by {@link #close()}. The shared pools are
+ * keyed by a salted digest of the password, not to keep the password in the static registry.
+ */
+class SessionPool implements Closeable {
+
+    private static final Lock SHARED_POOLS_LOCK = new ReentrantLock();
+
+    private static final Map<List<Object>, SessionPool> SHARED_POOLS = new HashMap<>();
+
+    private static final byte [] SHARED_KEY_SALT = new byte[16];
+
+    static {
+        new SecureRandom().nextBytes(SHARED_KEY_SALT);
+    }
+
+    private final Repository repository;
+    private final Credentials credentials;
+    private final String workspaceName;
+    private final int maxSessions;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition sessionReleased = lock.newCondition();
+    private final Deque<Session> idleSessions = new ArrayDeque<>();
+    private final Map<Session, JcrQueryCache> queryCaches = new IdentityHashMap<>();
+    private int sessionCount;
+    private boolean closed;
+
+    private final List<Object> sharedKey;
+    private int references = 1;
+
+    SessionPool(final Repository repository, final Credentials credentials, final String workspaceName,
+            final int maxSessions) {
+        this(repository, credentials, workspaceName, maxSessions, null);
+    }
+
+    private SessionPool(final Repository repository, final Credentials credentials, final String workspaceName,
+            final int maxSessions, final List<Object> sharedKey) {
+        this.repository = repository;
+        this.credentials = credentials;
+        this.workspaceName = workspaceName;
+        this.maxSessions = Math.max(1, maxSessions);
+        this.sharedKey = sharedKey;
+    }
+
+    /**
+     * Returns the pool shared by the connections of the same repository, workspace, maximum sessions and
+     * credentials, or a new pool not shared if the credentials cannot be compared.
+     * Each acquired pool must be closed by {@link #close()} once.
+     * @param repository repository to log in to
+     * @param credentials credentials to log in with, or null for anonymous sessions
+     * @param workspaceName workspace name
+     * @param maxSessions maximum number of sessions
+     * @return the shared pool
+     */
+    static SessionPool share(final Repository repository, final Credentials credentials, final String workspaceName,
+            final int maxSessions) {
+        final List<Object> key = getSharedKey(repository, credentials, workspaceName, Math.max(1, maxSessions));
+
+        if (key == null) {
+            return new SessionPool(repository, credentials, workspaceName, maxSessions);
+        }
+
+        SHARED_POOLS_LOCK.lock();
+
+        try {
+            SessionPool pool = SHARED_POOLS.get(key);
+
+            if (pool == null) {
+                pool = new SessionPool(repository, credentials, workspaceName, maxSessions, key);
+                SHARED_POOLS.put(key, pool);
+            } else {
+                ++pool.references;
+            }
+
+            return pool;
+        } finally {
+            SHARED_POOLS_LOCK.unlock();
+        }
+    }
+
+    private static List<Object> getSharedKey(final Repository repository, final Credentials credentials,
+            final String workspaceName, final int maxSessions) {
+        if (credentials == null) {
+            return Arrays.<Object> asList(repository, workspaceName, maxSessions, null, null);
+        }
+
+        if (!(credentials instanceof SimpleCredentials)
+                || ((SimpleCredentials) credentials).getAttributeNames().length > 0) {
+            return null;
+        }
+
+        final SimpleCredentials simpleCredentials = (SimpleCredentials) credentials;
+        final String passwordDigest = digestPassword(simpleCredentials.getPassword());
+
+        if (passwordDigest == null) {
+            return null;
+        }
+
+        return Arrays.<Object> asList(repository, workspaceName, maxSessions, simpleCredentials.getUserID(),
+                passwordDigest);
+    }
+
+    /**
+     * Returns the SHA-256 digest of the password salted by a random salt of this class loader in hexadecimal,
+     * or null if the digest algorithm is not available.
+     */
+    private static String digestPassword(final char [] password) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(SHARED_KEY_SALT);
+
+            if (password != null) {
+                digest.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(password)));
+            }
+
+            return new BigInteger(1, digest.digest()).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Returns the number of the sessions logged in, either idle or borrowed.
+     */
+    int getSessionCount() {
+        lock.lock();
+
+        try {
+            return sessionCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Borrows an idle session, logs in a new session if fewer than <code>maxSessions</code> sessions are
+     * logged in, or waits until a session is released.
+     * <p>
+     * As a borrowed session is kept until the result set is closed, a thread holding all the sessions by open
+     * result sets would wait for itself forever, so the wait is bounded by the timeout.
+     * @param timeout maximum time in milliseconds to wait for a session to be released
+     * @return the borrowed session
+     * @throws RepositoryException if the pool was closed, interrupted or timed out while waiting or fails to log in
+     */
+    Session borrow(final long timeout) throws RepositoryException {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeout));
+
+        lock.lock();
+
+        try {
+            while (true) {
+                if (closed) {
+                    throw new RepositoryException("Session pool was already closed.");
+                }
+
+                final Session session = idleSessions.pollFirst();
+
+                if (session != null) {
+                    if (session.isLive()) {
+                        return session;
+                    }
+
+                    queryCaches.remove(session);
+                    --sessionCount;
+                    continue;
+                }
+
+                if (sessionCount < maxSessions) {
+                    // reserve the slot to log in outside the lock.
+                    ++sessionCount;
+                    break;
+                }
+
+                if (remainingNanos <= 0L) {
+                    throw new RepositoryException("Timed out after " + timeout + "ms waiting for one of the "
+                            + maxSessions + " read-only sessions, all borrowed by open result sets.");
+                }
+
+                try {
+                    remainingNanos = sessionReleased.awaitNanos(remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RepositoryException("Interrupted while waiting for a session.", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Session session = null;
+        boolean closedWhileLoggingIn = false;
+
+        try {
+            session = credentials == null ? repository.login(workspaceName)
+                    : repository.login(credentials, workspaceName);
+        } finally {
+            lock.lock();
+
+            try {
+                if (session == null) {
+                    if (!closed) {
+                        --sessionCount;
+                        sessionReleased.signal();
+                    }
+                } else if (closed) {
+                    closedWhileLoggingIn = true;
+                } else {
+                    queryCaches.put(session, new JcrQueryCache());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        if (closedWhileLoggingIn) {
+            session.logout();
+            throw new RepositoryException("Session pool was already closed.");
+        }
+
+        return session;
+    }
+
+    /**
+     * Releases the borrowed session back to the pool, or logs it out if the pool was closed.
+     * @param session the borrowed session
+     */
+    void release(final Session session) {
+        boolean logout = false;
+
+        lock.lock();
+
+        try {
+            if (!queryCaches.containsKey(session)) {
+                // logged out on close already.
+                return;
+            }
+
+            if (closed || !session.isLive()) {
+                queryCaches.remove(session);
+                --sessionCount;
+                logout = true;
+            } else {
+                idleSessions.offerFirst(session);
+            }
+
+            sessionReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (logout && session.isLive()) {
+            session.logout();
+        }
+    }
+
+    /**
+     * Returns the query cache of the pooled session.
+     * @param session pooled session
+     * @return the query cache of the pooled session, or a new one not to be cached if not a pooled session
+     */
+    JcrQueryCache getQueryCache(final Session session) {
+        lock.lock();
+
+        try {
+            final JcrQueryCache queryCache = queryCaches.get(session);
+            return queryCache != null ? queryCache : new JcrQueryCache();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the borrowed session from the pool and logs it out, not to be borrowed again
+     * (e.g, borrowed by a connection closed before the result set).
+     * @param session the borrowed session
+     */
+    void discard(final Session session) {
+        lock.lock();
+
+        try {
+            if (queryCaches.remove(session) == null) {
+                return;
+            }
+
+            --sessionCount;
+            sessionReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (session.isLive()) {
+            session.logout();
+        }
+    }
+
+    /**
+     * Releases this pool, logging out all the sessions if not shared by any other connection.
+     */
+    @Override
+    public void close() {
+        if (sharedKey != null) {
+            SHARED_POOLS_LOCK.lock();
+
+            try {
+                if (--references > 0) {
+                    return;
+                }
+
+                if (SHARED_POOLS.get(sharedKey) == this) {
+                    SHARED_POOLS.remove(sharedKey);
+                }
+            } finally {
+                SHARED_POOLS_LOCK.unlock();
+            }
+        }
+
+        final List<Session> closingSessions;
+
+        lock.lock();
+
+        try {
+            closed = true;
+            closingSessions = new ArrayList<>(queryCaches.keySet());
+            queryCaches.clear();
+            idleSessions.clear();
+            sessionCount = 0;
+            sessionReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Session session : closingSessions) {
+            if (session.isLive()) {
+                session.logout();
+            }
+        }
+    }
+
+}
@@ -21,22 +21,53 @@ package com.github.woonsan.jdbc.jcr;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.jcr.LoginException;
 import javax.jcr.NoSuchWorkspaceException;
-
+import javax.jcr.Repository;
+import javax.jcr.Session;
+
+import org.apache.jackrabbit.commons.JcrUtils;
+import org.apache.jackrabbit.spi.Name;
+import org.apache.jackrabbit.spi.Path;
+import org.apache.jackrabbit.spi.PathFactory;
+import org.apache.jackrabbit.spi.RepositoryService;
+import org.apache.jackrabbit.spi.commons.conversion.DefaultNamePathResolver;
+import org.apache.jackrabbit.spi.commons.conversion.NamePathResolver;
+import org.apache.jackrabbit.spi.commons.name.NameFactoryImpl;
+import org.apache.jackrabbit.spi.commons.name.PathFactoryImpl;
+import org.apache.jackrabbit.spi.commons.namespace.NamespaceMapping;
+import org.apache.jackrabbit.spi2davex.BatchReadConfig;
+import org.apache.jackrabbit.spi2davex.RepositoryServiceImpl;
+import org.apache.jackrabbit.spi2davex.Spi2davexRepositoryServiceFactory;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.github.woonsan.jdbc.jcr.impl.JcrJdbcConnection;
+
 public class DriverTest {
 
     private java.sql.Driver jdbcDriver;
@@ -104,6 +135,404 @@ public class DriverTest {
         assertEquals("repository2", props.get(Driver.REPO_HOME_PROPERTY));
     }
 
+    @Test
+    public void testReadConnectionConfig() throws Exception {
+        final Driver driver = (Driver) jdbcDriver;
+
+        String url = "jdbc:jcr:http://localhost:8080/server?username=admin&workspace=default";
+        ConnectionConfig config = driver.readConnectionConfig(url, new Properties());
+        assertSame(config, driver.readConnectionConfig(url, null));
+        assertEquals("http://localhost:8080/server", config.getLocation());
+        assertFalse(config.isTransient());
+        assertEquals("admin", config.getUsername());
+        assertEquals("", config.getPassword());
+        assertEquals("default", config.getWorkspace());
+        assertEquals(Driver.DEFAULT_REPO_IDLE_TIMEOUT, config.getRepositoryIdleTimeout());
+        assertEquals(JcrJdbcConnection.DEFAULT_VALIDATION_CACHE_TIME, config.getValidationCacheTime());
+        assertEquals(0, config.getReadOnlySessions());
+
+        Properties info = new Properties();
+        info.setProperty("user", "anonymous");
+        info.setProperty("Password", "secret");
+        info.setProperty("workspace", "other");
+        ConnectionConfig merged = driver.readConnectionConfig(url, info);
+        assertNotSame(config, merged);
+        assertEquals("admin", merged.getUsername());
+        assertEquals("secret", merged.getPassword());
+        assertEquals("default", merged.getWorkspace());
+        assertEquals("anonymous", merged.getProperty("user"));
+
+        // merging only credentials copies the parsed settings of the URL.
+        info = new Properties();
+        info.setProperty("password", "secret");
+        merged = driver.readConnectionConfig(url, info);
+        assertEquals("secret", merged.getPassword());
+        assertSame(config.getRepositoryKey(), merged.getRepositoryKey());
+        assertSame(config.getRepositoryWarmUpItems(), merged.getRepositoryWarmUpItems());
+        assertEquals("secret", merged.toProperties().getProperty("PASSWORD"));
+        assertEquals("admin", merged.toProperties().getProperty("USERNAME"));
+
+        info.setProperty("readOnlySessions", "2");
+        merged = driver.readConnectionConfig(url, info);
+        assertEquals("secret", merged.getPassword());
+        assertEquals(2, merged.getReadOnlySessions());
+        assertEquals(0, config.getReadOnlySessions());
+
+        // URLs carrying passwords are not cached.
+        String passwordUrl = "jdbc:jcr:http://localhost:8080/server?username=admin&password=admin";
+        assertNotSame(driver.readConnectionConfig(passwordUrl, null), driver.readConnectionConfig(passwordUrl, null));
+
+        // the least recently used URL is evicted first.
+        String evictedUrl = "jdbc:jcr:http://localhost:8080/server?workspace=evicted";
+        ConnectionConfig evictedConfig = driver.readConnectionConfig(evictedUrl, null);
+
+        for (int i = 0; i < 300; i++) {
+            assertSame(config, driver.readConnectionConfig(url, null));
+            driver.readConnectionConfig("jdbc:jcr:http://localhost:8080/server?workspace=ws" + i, null);
+        }
+
+        assertSame(config, driver.readConnectionConfig(url, null));
+        assertNotSame(evictedConfig, driver.readConnectionConfig(evictedUrl, null));
+
+        url = "jdbc:jcr:?repository.conf=repository2.xml&repository.home=repository2&repository.idleTimeout=1000"
+                + "&validationCacheTime=0&readOnlySessions=4";
+        config = driver.readConnectionConfig(url, null);
+        assertTrue(config.isTransient());
+        assertNull(config.getUsername());
+        assertNull(config.getWorkspace());
+        assertEquals("repository2.xml", config.getRepositoryConf());
+        assertEquals("repository2", config.getRepositoryHome());
+        assertEquals(1000L, config.getRepositoryIdleTimeout());
+        assertEquals(0L, config.getValidationCacheTime());
+        assertEquals(4, config.getReadOnlySessions());
+
+        try {
+            driver.readConnectionConfig("jdbc:jcr:?repository.idleTimeout=x", null);
+            fail("Invalid idle timeout should fail.");
+        } catch (SQLException expected) {
+        }
+    }
+
+    @Test
+    public void testRemoteRepositoryParameters() throws Exception {
+        final Driver driver = (Driver) jdbcDriver;
+
+        ConnectionConfig config = driver.readConnectionConfig("jdbc:jcr:http://localhost:8080/server", null);
+        assertTrue(config.isRemote());
+        Map<String, Object> params = Driver.getRemoteRepositoryParameters(config);
+        assertEquals(1, params.size());
+        assertEquals("http://localhost:8080/server", params.get(JcrUtils.REPOSITORY_URI));
+
+        config = driver.readConnectionConfig("jdbc:jcr:https://localhost:8443/server?remote.batchReadDepth=2"
+                + "&remote.itemInfoCacheSize=10000&remote.itemCacheSize=20000&remote.maxConnections=8", null);
+        assertTrue(config.isRemote());
+        params = Driver.getRemoteRepositoryParameters(config);
+        assertEquals(5, params.size());
+        assertEquals("10000", params.get("org.apache.jackrabbit.spi2davex.ItemInfoCacheSize"));
+        assertEquals("20000", params.get("org.apache.jackrabbit.jcr2spi.ItemCacheSize"));
+        assertEquals("8", params.get("org.apache.jackrabbit.spi2davex.MaxConnections"));
+
+        final Object batchReadConfig = params.get("org.apache.jackrabbit.spi2davex.BatchReadConfig");
+        final Class<?> batchReadConfigClass = Class.forName("org.apache.jackrabbit.spi2davex.BatchReadConfig");
+        assertTrue(batchReadConfigClass.isInstance(batchReadConfig));
+        assertEquals(2, batchReadConfigClass.getMethod("getDepth", Class.forName("org.apache.jackrabbit.spi.Path"),
+                Class.forName("org.apache.jackrabbit.spi.commons.conversion.PathResolver"))
+                .invoke(batchReadConfig, null, null));
+
+        assertFalse(driver.readConnectionConfig("jdbc:jcr:file:///var/repository", null).isRemote());
+    }
+
+    @Test
+    public void testRemoteRepositoryServiceBySpi2davexFactory() throws Exception {
+        final Driver driver = (Driver) jdbcDriver;
+        final ConnectionConfig config = driver.readConnectionConfig(
+                "jdbc:jcr:http://localhost:8080/server?remote.batchReadDepth=3&remote.itemInfoCacheSize=1000", null);
+        final Map<String, Object> params = new HashMap<>(Driver.getRemoteRepositoryParameters(config));
+        assertTrue(params.containsKey(Spi2davexRepositoryServiceFactory.PARAM_BATCHREAD_CONFIG));
+        assertEquals("1000", params.get(Spi2davexRepositoryServiceFactory.PARAM_ITEMINFO_CACHE_SIZE));
+
+        // as Jcr2davRepositoryFactory passes an http(s) repository URI to the SPI2DAVex factory.
+        params.put(Spi2davexRepositoryServiceFactory.PARAM_REPOSITORY_URI, params.remove(JcrUtils.REPOSITORY_URI));
+        final RepositoryService service = new Spi2davexRepositoryServiceFactory().createRepositoryService(params);
+        assertTrue(service instanceof RepositoryServiceImpl);
+
+        final BatchReadConfig batchReadConfig = (BatchReadConfig) readField(RepositoryServiceImpl.class, service,
+                "batchReadConfig");
+        assertSame(params.get(Spi2davexRepositoryServiceFactory.PARAM_BATCHREAD_CONFIG), batchReadConfig);
+        assertEquals(1000, readField(org.apache.jackrabbit.spi2dav.RepositoryServiceImpl.class, service,
+                "itemInfoCacheSize"));
+
+        final PathFactory pathFactory = PathFactoryImpl.getInstance();
+        final Path rootPath = pathFactory.getRootPath();
+        final Path dataPath = pathFactory.create(rootPath,
+                NameFactoryImpl.getInstance().create(Name.NS_DEFAULT_URI, "testdatafolder"), true);
+        final NamePathResolver resolver = new DefaultNamePathResolver(new NamespaceMapping());
+        assertEquals(3, batchReadConfig.getDepth(rootPath, resolver));
+        assertEquals(3, batchReadConfig.getDepth(dataPath, resolver));
+    }
+
+    @Test
+    public void testConnectLoadBalanced() throws Exception {
+        final List<String> connectedLocations = new ArrayList<>();
+        final Driver driver = new Driver() {
+            @Override
+            protected JcrJdbcConnection connect(final ConnectionConfig config) throws SQLException {
+                connectedLocations.add(config.getLocation());
+
+                if (config.getLocation().startsWith("down")) {
+                    throw new SQLException("Cannot connect to " + config.getLocation());
+                }
+
+                // every location is served by the test repository.
+                return super.connect(readConnectionConfig(TestConstants.DEFAULT_TEST_JDBC_URL, config.toProperties()));
+            }
+        };
+
+        final String url = "jdbc:jcr:loadbalance:primary,replica1,down1?username=admin&password=admin";
+        final ConnectionConfig config = driver.readConnectionConfig(url, null);
+        assertTrue(config.isLoadBalanced());
+        assertEquals(3, config.getLocations().size());
+        assertEquals("primary", config.getLocations().get(0));
+        assertEquals(Driver.DEFAULT_LOAD_BALANCE_RETRY_INTERVAL, config.getLoadBalanceRetryInterval());
+
+        final List<Connection> conns = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            conns.add(driver.connect(url, null));
+        }
+
+        // down1 failed over to replica1, and is not tried again for the retry interval.
+        assertEquals(4, connectedLocations.size());
+        assertEquals("replica1", connectedLocations.get(0));
+        assertEquals("down1", connectedLocations.get(1));
+        assertEquals("replica1", connectedLocations.get(2));
+        assertEquals("replica1", connectedLocations.get(3));
+
+        final LoadBalancer balancer = driver.getLoadBalancer(config);
+        assertFalse(balancer.isHealthy("down1"));
+        assertEquals(1L, balancer.getFailures("down1"));
+
+        final JcrJdbcConnection conn = (JcrJdbcConnection) conns.get(0);
+        final Session replicaSession = conn.getSession();
+        assertTrue(conn.isReadOnly());
+        conn.setReadOnly(false);
+        assertEquals("primary", connectedLocations.get(4));
+        assertNotSame(replicaSession, conn.getSession());
+
+        conn.getSession().getRootNode().addNode("loadbalanced");
+        conn.commit();
+        assertTrue(replicaSession.nodeExists("/loadbalanced"));
+        conn.getSession().getNode("/loadbalanced").remove();
+        conn.commit();
+
+        conn.setReadOnly(true);
+        assertSame(replicaSession, conn.getSession());
+
+        for (Connection c : conns) {
+            c.close();
+        }
+
+        assertEquals(0, driver.getRepositoryStats().get(0).getOpenConnections());
+
+        try {
+            driver.connect("jdbc:jcr:loadbalance:down1,down2", null);
+            fail("Should fail if no location is available.");
+        } catch (SQLException expected) {
+            assertNotNull(expected.getNextException());
+        }
+
+        driver.shutdownTransientRepositories();
+    }
+
+    @Test
+    public void testLoadBalancedWritableStatements() throws Exception {
+        final Driver driver = new Driver() {
+            @Override
+            protected JcrJdbcConnection connect(final ConnectionConfig config) throws SQLException {
+                // every location is served by the test repository.
+                return super.connect(readConnectionConfig(TestConstants.DEFAULT_TEST_JDBC_URL, config.toProperties()));
+            }
+        };
+
+        final String url = "jdbc:jcr:loadbalance:primary,replica1?username=admin&password=admin&readOnlySessions=2";
+        final JcrJdbcConnection conn = (JcrJdbcConnection) driver.connect(url, null);
+        final Session replicaSession = conn.getSession();
+        final String sql = "SELECT n.[title] AS title FROM [nt:unstructured] AS n "
+                + "WHERE ISSAMENODE(n, '/loadbalancedstatement')";
+
+        conn.setReadOnly(false);
+        final Session primarySession = conn.getSession();
+        assertNotSame(replicaSession, primarySession);
+
+        primarySession.getRootNode().addNode("loadbalancedstatement").setProperty("title", "written");
+        conn.commit();
+
+        Statement statement = conn.createStatement();
+        JcrResultSet rs = statement.executeQuery(sql).unwrap(JcrResultSet.class);
+        assertTrue(rs.next());
+        assertEquals("written", rs.getString("title"));
+        assertSame(primarySession, rs.getCurrentRow().getNode("n").getSession());
+        assertFalse(rs.next());
+        rs.close();
+        statement.close();
+
+        PreparedStatement pstmt = conn.prepareStatement(sql);
+        rs = pstmt.executeQuery().unwrap(JcrResultSet.class);
+        assertTrue(rs.next());
+        assertSame(primarySession, rs.getCurrentRow().getNode("n").getSession());
+        rs.close();
+        pstmt.close();
+
+        conn.setReadOnly(true);
+        statement = conn.createStatement();
+        rs = statement.executeQuery(sql).unwrap(JcrResultSet.class);
+        assertTrue(rs.next());
+        assertNotSame(primarySession, rs.getCurrentRow().getNode("n").getSession());
+        rs.close();
+        statement.close();
+
+        conn.setReadOnly(false);
+        primarySession.getNode("/loadbalancedstatement").remove();
+        conn.commit();
+
+        conn.close();
+        driver.shutdownTransientRepositories();
+    }
+
+    @Test
+    public void testRepositoryWarmUp() throws Exception {
+        Properties info = new Properties();
+        info.setProperty("username", "admin");
+        info.setProperty("password", "admin");
+        String url = TestConstants.DEFAULT_TEST_JDBC_URL
+                + "&repository.warmup=/|SELECT * FROM [nt:base]|/nonexistent";
+        Connection conn = jdbcDriver.connect(url, info);
+
+        RepositoryStats stats = ((Driver) jdbcDriver).getRepositoryStats().get(0);
+        assertEquals(3, stats.getWarmUpItems());
+        long deadline = System.currentTimeMillis() + 10000L;
+
+        while (!stats.isWarmUpDone() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50L);
+            stats = ((Driver) jdbcDriver).getRepositoryStats().get(0);
+        }
+
+        assertTrue(stats.isWarmUpDone());
+        assertEquals(2, stats.getWarmUpCompletedItems());
+        assertEquals(1, stats.getWarmUpFailedItems());
+        conn.close();
+
+        ((Driver) jdbcDriver).shutdownTransientRepositories();
+    }
+
+    @Test
+    public void testRepositoryCacheByIdentity() throws Exception {
+        Properties info = new Properties();
+        info.setProperty("username", "admin");
+        info.setProperty("password", "admin");
+        Connection conn1 = jdbcDriver.connect(TestConstants.DEFAULT_TEST_JDBC_URL, info);
+
+        info = new Properties();
+        info.setProperty("user", "anonymous");
+        info.setProperty("workspace", "default");
+        Connection conn2 = jdbcDriver.connect(TestConstants.DEFAULT_TEST_JDBC_URL, info);
+
+        List<RepositoryStats> statsList = ((Driver) jdbcDriver).getRepositoryStats();
+        assertEquals(1, statsList.size());
+        RepositoryStats stats = statsList.get(0);
+        assertEquals("", stats.getLocation());
+        assertEquals(TestConstants.TEST_REPOSITORY_CONF, stats.getConfiguration());
+        assertEquals(TestConstants.TEST_REPOSITORY_HOME, stats.getHome());
+        assertEquals(2, stats.getOpenConnections());
+        assertEquals(2, stats.getTotalConnections());
+        assertEquals(0L, stats.getIdleSince());
+
+        conn1.close();
+        conn1.close();
+        assertEquals(1, ((Driver) jdbcDriver).getRepositoryStats().get(0).getOpenConnections());
+
+        conn2.close();
+        stats = ((Driver) jdbcDriver).getRepositoryStats().get(0);
+        assertEquals(0, stats.getOpenConnections());
+        assertTrue(stats.getIdleSince() > 0L);
+
+        ((Driver) jdbcDriver).shutdownTransientRepositories();
+        assertTrue(((Driver) jdbcDriver).getRepositoryStats().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentConnectsShareRepositoryInitialization() throws Exception {
+        final int threadCount = 8;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Properties info = new Properties();
+        info.setProperty("username", "admin");
+        info.setProperty("password", "admin");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<Connection>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Callable<Connection>() {
+                    @Override
+                    public Connection call() throws Exception {
+                        startLatch.await();
+                        return jdbcDriver.connect(TestConstants.DEFAULT_TEST_JDBC_URL, info);
+                    }
+                }));
+            }
+
+            startLatch.countDown();
+
+            Repository repository = null;
+
+            for (Future<Connection> future : futures) {
+                Connection conn = future.get();
+                Repository connRepository = conn.unwrap(JcrConnection.class).getSession().getRepository();
+
+                if (repository == null) {
+                    repository = connRepository;
+                } else {
+                    assertSame(repository, connRepository);
+                }
+            }
+
+            List<RepositoryStats> statsList = ((Driver) jdbcDriver).getRepositoryStats();
+            assertEquals(1, statsList.size());
+            assertEquals(threadCount, statsList.get(0).getOpenConnections());
+        } finally {
+            for (Future<Connection> future : futures) {
+                future.get().close();
+            }
+
+            executor.shutdown();
+            ((Driver) jdbcDriver).shutdownTransientRepositories();
+        }
+    }
+
+    @Test
+    public void testIdleRepositoryEviction() throws Exception {
+        Properties info = new Properties();
+        info.setProperty("username", "admin");
+        info.setProperty("password", "admin");
+        Connection conn = jdbcDriver.connect(TestConstants.DEFAULT_TEST_JDBC_URL + "&repository.idleTimeout=10", info);
+        assertEquals(1, ((Driver) jdbcDriver).getRepositoryStats().size());
+
+        conn.close();
+
+        for (int i = 0; i < 100 && !((Driver) jdbcDriver).getRepositoryStats().isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(((Driver) jdbcDriver).getRepositoryStats().isEmpty());
+
+        try {
+            jdbcDriver.connect(TestConstants.DEFAULT_TEST_JDBC_URL + "&repository.idleTimeout=x", info);
+            fail();
+        } catch (SQLException ignore) {
+        }
+    }
+
     @Test
     public void testReadNullConnectionProperties() throws Exception {
         try {
@@ -251,4 +680,10 @@ public class DriverTest {
         assertTrue(conn.isClosed());
     }
 
+    private static Object readField(final Class<?> clazz, final Object target, final String name) throws Exception {
+        final Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
 }
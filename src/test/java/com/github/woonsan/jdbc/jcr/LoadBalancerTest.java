@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LoadBalancerTest {
+
+    @Test
+    public void testRoundRobinReadLocations() throws Exception {
+        final LoadBalancer balancer = new LoadBalancer(Arrays.asList("primary", "replica1", "replica2"), 60000L);
+        assertEquals("primary", balancer.getPrimaryLocation());
+        assertEquals(Arrays.asList("replica1", "replica2", "primary"), balancer.getReadLocations());
+        assertEquals(Arrays.asList("replica2", "replica1", "primary"), balancer.getReadLocations());
+        assertEquals(Arrays.asList("replica1", "replica2", "primary"), balancer.getReadLocations());
+    }
+
+    @Test
+    public void testFailover() throws Exception {
+        final LoadBalancer balancer = new LoadBalancer(Arrays.asList("primary", "replica1", "replica2"), 60000L);
+
+        balancer.markFailed("replica1");
+        assertFalse(balancer.isHealthy("replica1"));
+        assertEquals(1L, balancer.getFailures("replica1"));
+
+        List<String> locations = balancer.getReadLocations();
+        assertEquals(Arrays.asList("replica2", "primary", "replica1"), locations);
+        locations = balancer.getReadLocations();
+        assertEquals(Arrays.asList("replica2", "primary", "replica1"), locations);
+
+        balancer.markFailed("replica2");
+        assertEquals("primary", balancer.getReadLocations().get(0));
+
+        balancer.markSucceeded("replica1");
+        assertTrue(balancer.isHealthy("replica1"));
+        assertEquals(1L, balancer.getFailures("replica1"));
+        assertEquals(Arrays.asList("replica1", "primary", "replica2"), balancer.getReadLocations());
+    }
+
+    @Test
+    public void testRetryInterval() throws Exception {
+        final LoadBalancer balancer = new LoadBalancer(Arrays.asList("primary", "replica1"), 0L);
+        balancer.markFailed("replica1");
+        assertTrue(balancer.isHealthy("replica1"));
+        assertEquals(Arrays.asList("replica1", "primary"), balancer.getReadLocations());
+    }
+
+    @Test
+    public void testPrimaryOnly() throws Exception {
+        final LoadBalancer balancer = new LoadBalancer(Arrays.asList("primary"), 60000L);
+        assertEquals(Arrays.asList("primary"), balancer.getReadLocations());
+    }
+
+}
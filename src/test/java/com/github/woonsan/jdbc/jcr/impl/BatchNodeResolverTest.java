@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.jcr.Credentials;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+
+import org.junit.Test;
+
+public class BatchNodeResolverTest extends AbstractRepositoryEnabledTestCase {
+
+    private static final Credentials ADMIN_CREDENTIALS = new SimpleCredentials("admin", "admin".toCharArray());
+
+    @Test
+    public void testResolveByWorkers() throws Exception {
+        Session session = ((JcrJdbcConnection) getConnection()).getJcrSession();
+        List<String> identifiers = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        readIdentifiersAndPaths(session, identifiers, paths);
+
+        identifiers.add(null);
+        identifiers.add("00000000-0000-0000-0000-000000000000");
+
+        BatchNodeResolver resolver = new BatchNodeResolver(session.getRepository(), ADMIN_CREDENTIALS,
+                session.getWorkspace().getName(), 3, 7);
+
+        try {
+            for (int round = 0; round < 2; round++) {
+                List<Node> nodes = resolver.resolve(session, identifiers);
+                assertEquals(identifiers.size(), nodes.size());
+
+                for (int i = 0; i < paths.size(); i++) {
+                    assertSame(session, nodes.get(i).getSession());
+                    assertEquals(paths.get(i), nodes.get(i).getPath());
+                }
+
+                assertNull(nodes.get(paths.size()));
+                assertNull(nodes.get(paths.size() + 1));
+            }
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testResolveInCallingThread() throws Exception {
+        Session session = ((JcrJdbcConnection) getConnection()).getJcrSession();
+        List<String> identifiers = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        readIdentifiersAndPaths(session, identifiers, paths);
+
+        BatchNodeResolver resolver = new BatchNodeResolver(session.getRepository(), ADMIN_CREDENTIALS,
+                session.getWorkspace().getName(), 1, 7);
+
+        try {
+            List<Node> nodes = resolver.resolve(session, identifiers);
+
+            for (int i = 0; i < paths.size(); i++) {
+                assertSame(session, nodes.get(i).getSession());
+                assertEquals(paths.get(i), nodes.get(i).getPath());
+            }
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentResolve() throws Exception {
+        final Session session = ((JcrJdbcConnection) getConnection()).getJcrSession();
+        final List<String> identifiers = new ArrayList<>();
+        final List<String> paths = new ArrayList<>();
+        readIdentifiersAndPaths(session, identifiers, paths);
+
+        final BatchNodeResolver resolver = new BatchNodeResolver(session.getRepository(), ADMIN_CREDENTIALS,
+                session.getWorkspace().getName(), 4, 7);
+        final int threadCount = 32;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        // a session is not shared by the threads, so each thread resolves by its own session.
+                        Session threadSession = session.getRepository().login(ADMIN_CREDENTIALS,
+                                session.getWorkspace().getName());
+                        int resolved = 0;
+
+                        try {
+                            startLatch.await();
+
+                            for (int round = 0; round < 5; round++) {
+                                List<Node> nodes = resolver.resolve(threadSession, identifiers);
+
+                                for (int j = 0; j < paths.size(); j++) {
+                                    assertSame(threadSession, nodes.get(j).getSession());
+                                    assertEquals(paths.get(j), nodes.get(j).getPath());
+                                    resolved++;
+                                }
+                            }
+                        } finally {
+                            threadSession.logout();
+                        }
+
+                        return resolved;
+                    }
+                }));
+            }
+
+            startLatch.countDown();
+
+            for (Future<Integer> future : futures) {
+                assertEquals(5 * paths.size(), future.get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+            resolver.close();
+        }
+    }
+
+    private void readIdentifiersAndPaths(final Session session, final List<String> identifiers,
+            final List<String> paths) throws Exception {
+        for (NodeIterator it = session.getNode(TEST_DATE_NODE_PATH).getNodes(); it.hasNext(); ) {
+            Node node = it.nextNode();
+            identifiers.add(node.getIdentifier());
+            paths.add(node.getPath());
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.jcr.query.qom.Column;
+
+import org.junit.Test;
+
+public class ColumnProjectionTest {
+
+    @Test
+    public void testProjectionWithColumns() throws Exception {
+        final ColumnProjection projection = new ColumnProjection(new String [] { "e", "d" },
+                new String [] { "pay", "d.deptno", "e.jcr:uuid" },
+                new Column [] { createColumn("e", "salary", "pay"), createColumn("d", null, null) });
+
+        assertArrayEquals(new String [] { "e", "salary" }, projection.getSource("pay"));
+        assertArrayEquals(new String [] { "d", "deptno" }, projection.getSource("d.deptno"));
+        assertNull(projection.getSource("e.salary"));
+
+        assertTrue(projection.isProjected("pay"));
+        assertTrue(projection.isProjected("jcr:path"));
+        assertTrue(projection.isProjected("d.jcr:score"));
+        assertFalse(projection.isProjected("x.jcr:score"));
+        assertFalse(projection.isProjected("e.salary"));
+        assertFalse(projection.isProjected("ename"));
+
+        assertEquals("pay", projection.getColumnName("e", "salary"));
+        assertEquals("e.jcr:uuid", projection.getColumnName("e", "jcr:uuid"));
+        assertNull(projection.getColumnName("d", "jcr:uuid"));
+        assertEquals(1, projection.getSelectorIndex("d"));
+        assertEquals(-1, projection.getSelectorIndex("x"));
+    }
+
+    @Test
+    public void testProjectionWithoutColumns() throws Exception {
+        final ColumnProjection projection = new ColumnProjection(null,
+                new String [] { "empno", "jcr:path", "jcr:score" }, null);
+
+        assertArrayEquals(new String [] { null }, projection.getSelectorNames());
+        assertArrayEquals(new String [] { null, "empno" }, projection.getSource("empno"));
+        assertEquals("empno", projection.getColumnName(null, "empno"));
+        assertTrue(projection.isProjected("jcr:uuid"));
+        assertFalse(projection.isProjected("ename"));
+    }
+
+    private Column createColumn(final String selectorName, final String propertyName, final String columnName) {
+        final Column column = createMock(Column.class);
+        expect(column.getSelectorName()).andReturn(selectorName).anyTimes();
+        expect(column.getPropertyName()).andReturn(propertyName).anyTimes();
+        expect(column.getColumnName()).andReturn(columnName).anyTimes();
+        replay(column);
+        return column;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.apache.jackrabbit.util.ISO8601;
+import org.apache.jackrabbit.value.DateValue;
+import org.apache.jackrabbit.value.StringValue;
+import org.junit.Test;
+
+public class DateUtilsTest {
+
+    @Test
+    public void testParseISO8601() throws Exception {
+        String [] dates = {
+                "2016-02-29T23:59:59.999Z",
+                "1970-01-01T00:00:00.000Z",
+                "1969-12-31T23:59:59.999+00:00",
+                "2016-03-27T02:30:00.000+01:00",
+                "2015-12-31T18:45:12.345-09:30",
+                "1583-01-01T00:00:00.000+14:00",
+                "9999-12-31T23:59:59.999Z",
+        };
+
+        for (String date : dates) {
+            assertEquals(date, ISO8601.parse(date).getTimeInMillis(), DateUtils.parseISO8601(date));
+        }
+
+        assertEquals(ISO8601.parse("2016-01-02T03:04:05.600Z").getTimeInMillis(),
+                DateUtils.parseISO8601("2016-01-02T03:04:05.6Z"));
+        assertEquals(ISO8601.parse("2016-01-02T03:04:05.000Z").getTimeInMillis(),
+                DateUtils.parseISO8601("2016-01-02T03:04:05Z"));
+
+        String [] invalidDates = {
+                "", "2016-01-02", "2016-01-02T03:04:05.000", "2016-02-30T00:00:00.000Z",
+                "2016-13-01T00:00:00.000Z", "2016-01-01T24:00:00.000Z", "2016-01-01T00:00:00.000+01",
+                "2016-01-01T00:00:00.000Zx", "1582-10-15T00:00:00.000Z", "2016-01-01T00:00:00.Z",
+        };
+
+        for (String date : invalidDates) {
+            try {
+                DateUtils.parseISO8601(date);
+                fail("Invalid date parsed: " + date);
+            } catch (IllegalArgumentException ignore) {
+            }
+        }
+    }
+
+    @Test
+    public void testToEpochMillis() throws Exception {
+        Calendar now = Calendar.getInstance();
+        assertEquals(now.getTimeInMillis(), DateUtils.toEpochMillis(new DateValue(now)));
+        assertEquals(now.getTimeInMillis(), DateUtils.toEpochMillis(new StringValue(ISO8601.format(now))));
+
+        // falls back to the calendar for a date before the Gregorian cutover.
+        Calendar old = ISO8601.parse("1000-01-01T00:00:00.000Z");
+        assertEquals(old.getTimeInMillis(), DateUtils.toEpochMillis(new DateValue(old)));
+    }
+
+    @Test
+    public void testStartOfDayAndTimeOfDay() throws Exception {
+        TimeZone timeZone = TimeZone.getTimeZone("America/New_York");
+        long millis = ISO8601.parse("2016-07-04T01:02:03.456Z").getTimeInMillis();
+
+        assertEquals(ISO8601.parse("2016-07-03T00:00:00.000-04:00").getTimeInMillis(),
+                DateUtils.toStartOfDay(millis, timeZone));
+        assertEquals(ISO8601.parse("1970-01-01T21:02:03.456-05:00").getTimeInMillis(),
+                DateUtils.toTimeOfDay(millis, timeZone));
+
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        assertEquals(ISO8601.parse("2016-07-04T00:00:00.000Z").getTimeInMillis(),
+                DateUtils.toStartOfDay(millis, utc));
+        assertEquals(ISO8601.parse("1970-01-01T01:02:03.456Z").getTimeInMillis(),
+                DateUtils.toTimeOfDay(millis, utc));
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TimeZone;
+
+import javax.jcr.PropertyType;
+import javax.jcr.Value;
+import javax.jcr.ValueFactory;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class HashJoinQueryResultTest extends AbstractRepositoryEnabledTestCase {
+
+    @Test
+    public void testWriteAndReadValues() throws Exception {
+        final ValueFactory valueFactory = ((JcrJdbcConnection) getConnection()).getJcrSession().getValueFactory();
+
+        final byte [] bytes = new byte[20000];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        final Calendar date = Calendar.getInstance(TimeZone.getTimeZone("GMT+05:30"));
+        date.setTimeInMillis(1234567890123L);
+
+        final Value [] values = new Value [] {
+                valueFactory.createValue(valueFactory.createBinary(new ByteArrayInputStream(bytes))),
+                valueFactory.createValue(date),
+                valueFactory.createValue(new BigDecimal("12345678901234567890.0001200")),
+                valueFactory.createValue(Long.MIN_VALUE),
+                valueFactory.createValue(Double.MIN_VALUE),
+                valueFactory.createValue(true),
+                valueFactory.createValue("Name' 1"),
+                valueFactory.createValue("nt:unstructured", PropertyType.NAME),
+                null,
+        };
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try (DataOutputStream output = new DataOutputStream(baos)) {
+            for (Value value : values) {
+                HashJoinQueryResult.writeValue(output, value);
+            }
+        }
+
+        final Value [] readValues = new Value[values.length];
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            for (int i = 0; i < values.length; i++) {
+                readValues[i] = HashJoinQueryResult.readValue(input, valueFactory);
+            }
+        }
+
+        assertEquals(PropertyType.BINARY, readValues[0].getType());
+        assertArrayEquals(bytes, IOUtils.toByteArray(readValues[0].getBinary().getStream()));
+
+        assertEquals(PropertyType.DATE, readValues[1].getType());
+        assertEquals(date.getTimeInMillis(), readValues[1].getDate().getTimeInMillis());
+        assertEquals(date.getTimeZone().getRawOffset(), readValues[1].getDate().getTimeZone().getRawOffset());
+        assertEquals(values[1].getString(), readValues[1].getString());
+
+        assertEquals(PropertyType.DECIMAL, readValues[2].getType());
+        assertEquals(new BigDecimal("12345678901234567890.0001200"), readValues[2].getDecimal());
+
+        assertEquals(Long.MIN_VALUE, readValues[3].getLong());
+        assertEquals(Double.MIN_VALUE, readValues[4].getDouble(), 0.0);
+        assertTrue(readValues[5].getBoolean());
+        assertEquals("Name' 1", readValues[6].getString());
+        assertEquals(PropertyType.NAME, readValues[7].getType());
+        assertEquals("nt:unstructured", readValues[7].getString());
+        assertNull(readValues[8]);
+    }
+
+    @Test
+    public void testPartitionIndexByLevel() throws Exception {
+        final Set<Integer> subPartitionIndexes = new HashSet<>();
+        int partitionIndex = -1;
+
+        for (int i = 0; i < 10000; i++) {
+            final String key = Integer.toString(i);
+
+            if (HashJoinQueryResult.getPartitionIndex(key, 0) == 0) {
+                partitionIndex = 0;
+                subPartitionIndexes.add(HashJoinQueryResult.getPartitionIndex(key, 1));
+            }
+        }
+
+        // the keys in the same partition are spread again over the sub-partitions at the next level.
+        assertEquals(0, partitionIndex);
+        assertEquals(16, subPartitionIndexes.size());
+    }
+
+}
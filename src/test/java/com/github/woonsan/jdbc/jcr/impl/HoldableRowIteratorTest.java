@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.jcr.Session;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+import javax.jcr.query.qom.QueryObjectModel;
+
+import org.junit.Test;
+
+public class HoldableRowIteratorTest extends AbstractRepositoryEnabledTestCase {
+
+    @Test
+    public void testDetachWithAliasedColumns() throws Exception {
+        Session session = ((JcrJdbcConnection) getConnection()).getJcrSession();
+        Query query = session.getWorkspace().getQueryManager().createQuery(
+                "SELECT e.[empno] AS no, e.[salary] AS pay FROM [nt:unstructured] AS e "
+                + "WHERE ISDESCENDANTNODE('" + TEST_DATE_NODE_PATH + "') ORDER BY e.[empno]", Query.JCR_SQL2);
+        QueryResult result = query.execute();
+        RowIterator rowIterator = result.getRows();
+        rowIterator.nextRow();
+
+        HoldableRowIterator holdable = HoldableRowIterator.detach(session, rowIterator, new ColumnProjection(
+                result.getSelectorNames(), result.getColumnNames(), ((QueryObjectModel) query).getColumns()), 3);
+        assertFalse(rowIterator.hasNext());
+        assertEquals(1, holdable.getPosition());
+
+        session.getNode(TEST_DATE_NODE_PATH + "/testdata-2").remove();
+        session.save();
+
+        long empno = 2;
+        Row row;
+
+        while (holdable.hasNext()) {
+            row = holdable.nextRow();
+            ++empno;
+            assertEquals(empno, row.getValue("no").getLong());
+            assertEquals(100000.0 + empno, row.getValue("pay").getDouble(), 0.0);
+            assertEquals(TEST_DATE_NODE_PATH + "/testdata-" + empno, row.getPath("e"));
+            assertEquals(row.getPath(), row.getNode("e").getPath());
+            assertEquals(2, row.getValues().length);
+        }
+
+        assertEquals(getEmpRowCount(), empno);
+        assertEquals(getEmpRowCount() - 1, holdable.getPosition());
+    }
+
+    @Test
+    public void testDetachWithSQLMetaColumns() throws Exception {
+        Session session = ((JcrJdbcConnection) getConnection()).getJcrSession();
+        Query query = session.getWorkspace().getQueryManager().createQuery(
+                "SELECT empno FROM nt:unstructured WHERE jcr:path LIKE '" + TEST_DATE_NODE_PATH + "/%'", Query.SQL);
+        QueryResult result = query.execute();
+
+        HoldableRowIterator holdable = HoldableRowIterator.detach(session, result.getRows(),
+                new ColumnProjection(result.getSelectorNames(), result.getColumnNames(), null), 0);
+        int count = 0;
+        Row row;
+
+        while (holdable.hasNext()) {
+            row = holdable.nextRow();
+            assertTrue(row.getValue("jcr:path").getString().startsWith(TEST_DATE_NODE_PATH + "/testdata-"));
+            assertNotNull(row.getValue("jcr:score"));
+            assertEquals(row.getNode().getProperty("empno").getLong(), row.getValue("empno").getLong());
+            ++count;
+        }
+
+        assertEquals(getEmpRowCount(), count);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import javax.jcr.Credentials;
+import javax.jcr.Session;
+
+import org.junit.Test;
+
+public class ImpersonationCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        final Session session1 = createMock(Session.class);
+        expect(session1.isLive()).andReturn(true).anyTimes();
+        final Session session2 = createMock(Session.class);
+        expect(session2.isLive()).andReturn(true).anyTimes();
+        session2.logout();
+        expectLastCall().once();
+        final Session session3 = createMock(Session.class);
+        expect(session3.isLive()).andReturn(true).anyTimes();
+        replay(session1, session2, session3);
+
+        final Session baseSession = createMock(Session.class);
+        expect(baseSession.impersonate(anyObject(Credentials.class))).andReturn(session1);
+        expect(baseSession.impersonate(anyObject(Credentials.class))).andReturn(session2);
+        expect(baseSession.impersonate(anyObject(Credentials.class))).andReturn(session3);
+        replay(baseSession);
+
+        final ImpersonationCache cache = new ImpersonationCache(baseSession, 2);
+        final ImpersonationCache.ImpersonatedSession user1 = cache.get("user1");
+        assertSame(session1, user1.getSession());
+        assertSame(session2, cache.get("user2").getSession());
+        assertSame(user1, cache.get("user1"));
+        assertNotSame(user1.getQueryCache(), cache.get("user2").getQueryCache());
+
+        // user1 was used more recently than user2.
+        assertSame(session1, cache.get("user1").getSession());
+        assertSame(session3, cache.get("user3").getSession());
+        assertEquals(2, cache.size());
+
+        verify(baseSession, session2);
+    }
+
+    @Test
+    public void testKeepSessionsWithOpenResultSets() throws Exception {
+        final Session session1 = createMock(Session.class);
+        expect(session1.isLive()).andReturn(true).anyTimes();
+        session1.logout();
+        expectLastCall().once();
+        final Session session2 = createMock(Session.class);
+        expect(session2.isLive()).andReturn(true).anyTimes();
+        session2.logout();
+        expectLastCall().once();
+        final Session session3 = createMock(Session.class);
+        expect(session3.isLive()).andReturn(true).anyTimes();
+        session3.logout();
+        expectLastCall().once();
+        final Session session4 = createMock(Session.class);
+        expect(session4.isLive()).andReturn(true).anyTimes();
+        replay(session1, session2, session3, session4);
+
+        final Session baseSession = createMock(Session.class);
+        expect(baseSession.impersonate(anyObject(Credentials.class))).andReturn(session1);
+        expect(baseSession.impersonate(anyObject(Credentials.class))).andReturn(session2);
+        expect(baseSession.impersonate(anyObject(Credentials.class))).andReturn(session3);
+        expect(baseSession.impersonate(anyObject(Credentials.class))).andReturn(session4);
+        replay(baseSession);
+
+        final ImpersonationCache cache = new ImpersonationCache(baseSession, 1);
+        final ImpersonationCache.ImpersonatedSession user1 = cache.get("user1");
+        user1.resultSetOpened();
+
+        // user1 is kept over the maximum size while its result set is open, and user2 is evicted instead.
+        assertSame(session2, cache.get("user2").getSession());
+        assertEquals(2, cache.size());
+        assertSame(session3, cache.get("user3").getSession());
+        assertEquals(2, cache.size());
+        assertSame(user1, cache.get("user1"));
+
+        // both user3 and user1 are evicted once the result set is closed.
+        user1.resultSetClosed();
+        assertSame(session4, cache.get("user4").getSession());
+        assertEquals(1, cache.size());
+
+        verify(baseSession, session1, session2, session3);
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class InListExpansionTest {
+
+    private static final String PV = SQLQueryUtils.PARAM_VAR_REF_PREFIX;
+
+    @Test
+    public void testExpand() throws Exception {
+        InListExpansion expansion = InListExpansion.find("SELECT * FROM [nt:base] AS e WHERE e.[a] = " + PV + "1 "
+                + "AND e.[b] IN (" + PV + "2) AND [c] in ( " + PV + "3 ) ORDER BY e.[a]", 3);
+        assertFalse(expansion.isInListParameter(0));
+        assertTrue(expansion.isInListParameter(1));
+        assertTrue(expansion.isInListParameter(2));
+
+        Object [] params = { "a", new Object [] { "b1", "b2", "b3" }, "c" };
+        assertEquals("SELECT * FROM [nt:base] AS e WHERE e.[a] = " + PV + "1 "
+                + "AND (e.[b] = " + PV + "2_1 OR e.[b] = " + PV + "2_2 OR e.[b] = " + PV + "2_3 OR e.[b] = "
+                + PV + "2_4) AND ([c] = " + PV + "3_1) ORDER BY e.[a]", expansion.expand(params));
+    }
+
+    @Test
+    public void testFindNone() throws Exception {
+        assertNull(InListExpansion.find("SELECT * FROM [nt:base] AS e WHERE e.[a] = " + PV + "1", 1));
+        assertNull(InListExpansion.find("SELECT * FROM [nt:base] AS e WHERE e.[a] IN (" + PV + "1, 'x')", 1));
+    }
+
+    @Test
+    public void testBucketSize() throws Exception {
+        assertEquals(1, InListExpansion.getBucketSize(1));
+        assertEquals(2, InListExpansion.getBucketSize(2));
+        assertEquals(4, InListExpansion.getBucketSize(3));
+        assertEquals(8, InListExpansion.getBucketSize(5));
+        assertEquals(1024, InListExpansion.getBucketSize(1000));
+        assertEquals(1024, InListExpansion.getBucketSize(InListExpansion.MAX_VALUE_COUNT));
+        assertEquals(InListExpansion.MAX_VALUE_COUNT, InListExpansion.getBucketSize(1025));
+        assertEquals("_JDBC_JCR_PV_2_3", InListExpansion.getVariableName(1, 2));
+    }
+
+}
@@ -18,23 +18,42 @@
  */
 package com.github.woonsan.jdbc.jcr.impl;
 
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+import javax.jcr.Workspace;
 
+import org.easymock.IAnswer;
 import org.junit.Test;
 
 import com.github.woonsan.jdbc.jcr.JcrConnection;
+import com.github.woonsan.jdbc.jcr.JcrResultSet;
 
 public class JcrJdbcConnectionTest extends AbstractRepositoryEnabledTestCase {
 
@@ -66,6 +85,17 @@ public class JcrJdbcConnectionTest extends AbstractRepositoryEnabledTestCase {
         assertEquals(ResultSet.CLOSE_CURSORS_AT_COMMIT, conn.getHoldability());
         conn.setHoldability(ResultSet.HOLD_CURSORS_OVER_COMMIT);
 
+        JcrConnection jcrConn = conn.unwrap(JcrConnection.class);
+        assertEquals(BatchNodeResolver.DEFAULT_MAX_WORKERS, jcrConn.getNodeResolverMaxWorkers());
+        jcrConn.setNodeResolverMaxWorkers(2);
+        assertEquals(2, jcrConn.getNodeResolverMaxWorkers());
+
+        try {
+            jcrConn.setNodeResolverMaxWorkers(0);
+            fail("Should not allow zero workers.");
+        } catch (SQLException expected) {
+        }
+
         conn.commit();
         conn.rollback();
 
@@ -91,6 +121,338 @@ public class JcrJdbcConnectionTest extends AbstractRepositoryEnabledTestCase {
         assertTrue(conn.isClosed());
     }
 
+    @Test
+    public void testIsValid() throws Exception {
+        Connection conn = getConnection();
+        JcrConnection jcrConn = conn.unwrap(JcrConnection.class);
+
+        assertEquals(JcrJdbcConnection.DEFAULT_VALIDATION_CACHE_TIME, jcrConn.getValidationCacheTime());
+        assertTrue(conn.isValid(0));
+        assertTrue(conn.isValid(5));
+
+        jcrConn.setValidationCacheTime(0L);
+        assertEquals(0L, jcrConn.getValidationCacheTime());
+        assertTrue(conn.isValid(5));
+        assertTrue(conn.isValid(0));
+
+        try {
+            conn.isValid(-1);
+            fail("Should not allow a negative timeout.");
+        } catch (SQLException expected) {
+        }
+
+        conn.close();
+        assertFalse(conn.isValid(0));
+
+        try {
+            jcrConn.setValidationCacheTime(1000L);
+            fail("Should fail on a closed connection.");
+        } catch (SQLException expected) {
+        }
+    }
+
+    @Test
+    public void testIsValidByOneValidationAtATime() throws Exception {
+        final AtomicInteger validations = new AtomicInteger();
+        final CountDownLatch responding = new CountDownLatch(1);
+        final Workspace workspace = createMock(Workspace.class);
+        expect(workspace.getAccessibleWorkspaceNames()).andAnswer(new IAnswer<String []>() {
+            @Override
+            public String [] answer() throws Throwable {
+                if (validations.incrementAndGet() == 1) {
+                    responding.await();
+                    return new String [] { "default" };
+                }
+
+                throw new RepositoryException("The server is gone.");
+            }
+        }).anyTimes();
+        final Session session = createMock(Session.class);
+        expect(session.isLive()).andReturn(true).anyTimes();
+        expect(session.getWorkspace()).andReturn(workspace).anyTimes();
+        replay(workspace, session);
+
+        final JcrJdbcConnection conn = new JcrJdbcConnection(session);
+
+        // the unresponsive validation gives up by the timeout, but is waited for instead of being started again.
+        assertFalse(conn.isValid(1));
+        assertFalse(conn.isValid(1));
+        assertEquals(1, validations.get());
+
+        responding.countDown();
+        assertTrue(conn.isValid(1));
+        assertEquals(1, validations.get());
+
+        // a failed validation is reused for the validation cache time as well.
+        conn.setValidationCacheTime(60000L);
+        assertFalse(conn.isValid(0));
+        assertFalse(conn.isValid(1));
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    public void testReadOnlySessions() throws Exception {
+        final Connection conn = getConnection();
+        final JcrConnection jcrConn = conn.unwrap(JcrConnection.class);
+        final String sql = "SELECT e.[ename] AS ename FROM [nt:unstructured] AS e WHERE ISDESCENDANTNODE('"
+                + TEST_DATE_NODE_PATH + "')";
+
+        assertEquals(0, jcrConn.getReadOnlySessions());
+        jcrConn.setReadOnlySessions(2);
+        assertEquals(2, jcrConn.getReadOnlySessions());
+
+        try {
+            jcrConn.setReadOnlySessions(-1);
+            fail("Should not allow negative read-only sessions.");
+        } catch (SQLException expected) {
+        }
+
+        Statement statement1 = conn.createStatement();
+        ResultSet rs1 = statement1.executeQuery(sql);
+        assertTrue(rs1.next());
+        Session session1 = rs1.unwrap(JcrResultSet.class).getCurrentRow().getNode().getSession();
+        assertNotSame(jcrConn.getSession(), session1);
+
+        Statement statement2 = conn.createStatement();
+        ResultSet rs2 = statement2.executeQuery(sql);
+        assertTrue(rs2.next());
+        Session session2 = rs2.unwrap(JcrResultSet.class).getCurrentRow().getNode().getSession();
+        assertNotSame(session1, session2);
+        assertEquals(2, ((JcrJdbcConnection) conn).getReadOnlySessionCount());
+
+        rs1.close();
+        rs1 = statement1.executeQuery(sql);
+        assertTrue(rs1.next());
+        assertEquals(2, ((JcrJdbcConnection) conn).getReadOnlySessionCount());
+        statement1.close();
+        statement2.close();
+
+        final int threadCount = 8;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        startLatch.await();
+                        int count = 0;
+
+                        for (int round = 0; round < 5; round++) {
+                            Statement statement = conn.createStatement();
+                            ResultSet rs = statement.executeQuery(sql);
+
+                            while (rs.next()) {
+                                rs.getString("ename");
+                                count++;
+                            }
+
+                            rs.close();
+                            statement.close();
+                        }
+
+                        return count;
+                    }
+                }));
+            }
+
+            startLatch.countDown();
+
+            for (Future<Integer> future : futures) {
+                assertEquals(5 * getEmpRowCount(), future.get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, ((JcrJdbcConnection) conn).getReadOnlySessionCount());
+
+        jcrConn.setReadOnlySessions(0);
+        assertEquals(0, ((JcrJdbcConnection) conn).getReadOnlySessionCount());
+        Statement statement = conn.createStatement();
+        ResultSet rs = statement.executeQuery(sql);
+        assertTrue(rs.next());
+        assertSame(jcrConn.getSession(), rs.unwrap(JcrResultSet.class).getCurrentRow().getNode().getSession());
+        statement.close();
+    }
+
+    @Test
+    public void testReadOnlySessionTimeout() throws Exception {
+        final Connection conn = getConnection();
+        final JcrConnection jcrConn = conn.unwrap(JcrConnection.class);
+        final String sql = "SELECT e.[ename] AS ename FROM [nt:unstructured] AS e WHERE ISDESCENDANTNODE('"
+                + TEST_DATE_NODE_PATH + "')";
+
+        assertEquals(JcrJdbcConnection.DEFAULT_READ_ONLY_SESSION_TIMEOUT, jcrConn.getReadOnlySessionTimeout());
+        jcrConn.setReadOnlySessions(1);
+        jcrConn.setReadOnlySessionTimeout(200L);
+        assertEquals(200L, jcrConn.getReadOnlySessionTimeout());
+
+        // the only read-only session is kept by the open result set in the same thread.
+        Statement statement1 = conn.createStatement();
+        ResultSet rs1 = statement1.executeQuery(sql);
+        assertTrue(rs1.next());
+
+        Statement statement2 = conn.createStatement();
+        long begin = System.currentTimeMillis();
+
+        try {
+            statement2.executeQuery(sql);
+            fail("Should time out while the only read-only session is in use.");
+        } catch (SQLException expected) {
+            assertTrue(System.currentTimeMillis() - begin >= 150L);
+        }
+
+        rs1.close();
+        ResultSet rs2 = statement2.executeQuery(sql);
+        assertTrue(rs2.next());
+        assertEquals(1, ((JcrJdbcConnection) conn).getReadOnlySessionCount());
+
+        statement1.close();
+        statement2.close();
+    }
+
+    @Test
+    public void testSharedReadOnlySessions() throws Exception {
+        final Connection conn1 = getConnection();
+        final Session session = conn1.unwrap(JcrConnection.class).getSession();
+        final SimpleCredentials credentials = new SimpleCredentials("admin", "admin".toCharArray());
+        final JcrJdbcConnection conn2 = new JcrJdbcConnection(session.getRepository().login(credentials),
+                credentials);
+        final String sql = "SELECT e.[ename] AS ename FROM [nt:unstructured] AS e WHERE ISDESCENDANTNODE('"
+                + TEST_DATE_NODE_PATH + "')";
+
+        conn1.unwrap(JcrConnection.class).setReadOnlySessions(1);
+        conn2.setReadOnlySessions(1);
+
+        Statement statement1 = conn1.createStatement();
+        ResultSet rs1 = statement1.executeQuery(sql);
+        assertTrue(rs1.next());
+        Session readOnlySession = rs1.unwrap(JcrResultSet.class).getCurrentRow().getNode().getSession();
+        rs1.close();
+
+        // the connections of the same credentials share the read-only session.
+        Statement statement2 = conn2.createStatement();
+        ResultSet rs2 = statement2.executeQuery(sql);
+        assertTrue(rs2.next());
+        assertSame(readOnlySession, rs2.unwrap(JcrResultSet.class).getCurrentRow().getNode().getSession());
+        assertEquals(1, ((JcrJdbcConnection) conn1).getReadOnlySessionCount());
+        assertEquals(1, conn2.getReadOnlySessionCount());
+
+        // closing a connection discards the session still in use by its result set, but keeps the shared pool.
+        conn2.close();
+        assertFalse(readOnlySession.isLive());
+
+        rs1 = statement1.executeQuery(sql);
+        assertTrue(rs1.next());
+        Session newReadOnlySession = rs1.unwrap(JcrResultSet.class).getCurrentRow().getNode().getSession();
+        assertNotSame(readOnlySession, newReadOnlySession);
+        assertTrue(newReadOnlySession.isLive());
+        assertEquals(1, ((JcrJdbcConnection) conn1).getReadOnlySessionCount());
+        statement1.close();
+    }
+
+    @Test
+    public void testImpersonate() throws Exception {
+        Connection conn = getConnection();
+        JcrConnection jcrConn = conn.unwrap(JcrConnection.class);
+        Session adminSession = jcrConn.getSession();
+        String sql = "SELECT e.[ename] AS ename FROM [nt:unstructured] AS e WHERE ISDESCENDANTNODE('"
+                + TEST_DATE_NODE_PATH + "')";
+
+        assertNull(jcrConn.getImpersonatedUserId());
+
+        jcrConn.impersonate("anonymous");
+        Session anonymousSession = jcrConn.getSession();
+        assertNotSame(adminSession, anonymousSession);
+        assertEquals("anonymous", anonymousSession.getUserID());
+        assertEquals("anonymous", jcrConn.getImpersonatedUserId());
+
+        Statement statement = conn.createStatement();
+        ResultSet rs = statement.executeQuery(sql);
+        assertTrue(rs.next());
+        assertSame(anonymousSession, rs.unwrap(JcrResultSet.class).getCurrentRow().getNode().getSession());
+        statement.close();
+
+        try {
+            jcrConn.getSession("security");
+            fail("Should not log in to another workspace while impersonating.");
+        } catch (SQLException expected) {
+        }
+
+        jcrConn.impersonate(null);
+        assertSame(adminSession, jcrConn.getSession());
+        assertNull(jcrConn.getImpersonatedUserId());
+
+        conn.setClientInfo(JcrConnection.CLIENT_INFO_USER, "anonymous");
+        assertSame(anonymousSession, jcrConn.getSession());
+        assertEquals("anonymous", conn.getClientInfo(JcrConnection.CLIENT_INFO_USER));
+
+        jcrConn.impersonate("admin");
+        assertSame(adminSession, jcrConn.getSession());
+
+        try {
+            jcrConn.impersonate("nonexistent-user");
+            fail("Should not impersonate a nonexistent user.");
+        } catch (SQLException expected) {
+        }
+
+        assertSame(adminSession, jcrConn.getSession());
+
+        conn.close();
+        assertFalse(anonymousSession.isLive());
+        assertFalse(adminSession.isLive());
+    }
+
+    @Test
+    public void testHoldCursorsOverCommit() throws Exception {
+        Connection conn = getConnection();
+        Session session = conn.unwrap(JcrConnection.class).getSession();
+        Statement statement = conn.createStatement();
+        ResultSet rs = statement.executeQuery(
+                "SELECT e.[empno] AS no, e.[ename] AS ename FROM [nt:unstructured] AS e "
+                + "WHERE ISDESCENDANTNODE('" + TEST_DATE_NODE_PATH + "') ORDER BY e.[empno]");
+        rs.setFetchSize(7);
+        List<Long> empnos = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(rs.next());
+            empnos.add(rs.getLong("no"));
+        }
+
+        session.getNode(TEST_DATE_NODE_PATH + "/testdata-12").setProperty("ename", "Renamed");
+        session.getNode(TEST_DATE_NODE_PATH + "/testdata-15").remove();
+        conn.commit();
+
+        assertEquals(10L, rs.getLong("no"));
+
+        while (rs.next()) {
+            empnos.add(rs.getLong("no"));
+
+            if (rs.getLong("no") == 12L) {
+                assertEquals("Renamed", rs.getString("ename"));
+                assertEquals(TEST_DATE_NODE_PATH + "/testdata-12", rs.getString("jcr:path"));
+            }
+        }
+
+        assertEquals(getEmpRowCount() - 1, empnos.size());
+        assertFalse(empnos.contains(15L));
+        assertEquals(Long.valueOf(getEmpRowCount()), empnos.get(empnos.size() - 1));
+        rs.close();
+
+        conn.setHoldability(ResultSet.CLOSE_CURSORS_AT_COMMIT);
+        rs = statement.executeQuery("SELECT e.[empno] AS empno FROM [nt:unstructured] AS e "
+                + "WHERE ISDESCENDANTNODE('" + TEST_DATE_NODE_PATH + "')");
+        assertTrue(rs.next());
+        conn.commit();
+        assertTrue(rs.isClosed());
+
+        statement.close();
+    }
+
     @Test
     public void testConnectionWhenClosed() throws Exception {
         Connection conn = getConnection();
@@ -39,7 +39,10 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 
 import javax.jcr.PropertyType;
 import javax.jcr.Value;
@@ -176,6 +179,93 @@ public class JcrJdbcPreparedStatementTest extends AbstractRepositoryEnabledTestC
         assertTrue(pstmt.isClosed());
     }
 
+    @Test
+    public void testExecuteSQLQueryWithTypedParameters() throws Exception {
+        PreparedStatement pstmt = getConnection().prepareStatement(
+                "SELECT empno, ename FROM nt:unstructured "
+                + "WHERE jcr:path like ? AND salary > ? AND salary <= ? AND hiredate = ? AND ename <> ?");
+        pstmt.setString(1, TEST_DATE_NODE_PATH + "/%");
+        pstmt.setBigDecimal(2, new BigDecimal("100010.0"));
+        pstmt.setDouble(3, 100020.0);
+        pstmt.setTimestamp(4, new Timestamp(getEmpHireDate().getTimeInMillis()), getEmpHireDate());
+        pstmt.setString(5, "Name' 15");
+        ResultSet rs = pstmt.executeQuery();
+
+        int count = 0;
+
+        while (rs.next()) {
+            ++count;
+            assertTrue(rs.getLong("empno") > 10 && rs.getLong("empno") <= 20 && rs.getLong("empno") != 15);
+        }
+
+        assertEquals(9, count);
+        rs.close();
+
+        pstmt.close();
+    }
+
+    @Test
+    public void testExecuteJCR_SQL2QueryWithInListParameters() throws Exception {
+        PreparedStatement pstmt = getConnection().prepareStatement(
+                "SELECT e.[empno] AS empno FROM [nt:unstructured] AS e "
+                + "WHERE e.[jcr:primaryType] = ? AND e.[empno] IN (?) AND e.ename IN (?) "
+                + "ORDER BY e.[empno] ASC");
+        pstmt.setString(1, "nt:unstructured");
+        pstmt.setObject(2, Arrays.asList(3, 5, 7, 9, 11));
+        pstmt.setObject(3, new String [] { "Name' 5", "Name' 7", "Name' 8", "Name' 11" });
+        assertEquals(Arrays.asList(5L, 7L, 11L), readEmpnos(pstmt.executeQuery()));
+
+        pstmt.setObject(2, new long [] { 8 });
+        assertEquals(Arrays.asList(8L), readEmpnos(pstmt.executeQuery()));
+
+        pstmt.setLong(2, 7);
+        assertEquals(Arrays.asList(7L), readEmpnos(pstmt.executeQuery()));
+
+        // lists of 5 and 8 values, and of 1 value and a single value share the same query respectively.
+        assertEquals(2, ((JcrJdbcConnection) getConnection()).getQueryCache().size());
+
+        try {
+            pstmt.setObject(2, new Object[0]);
+            fail();
+        } catch (SQLException ignore) {}
+
+        try {
+            pstmt.setObject(2, Arrays.asList(new Object()));
+            fail();
+        } catch (SQLException ignore) {}
+
+        pstmt.setObject(1, Arrays.asList("nt:unstructured"));
+
+        try {
+            pstmt.executeQuery();
+            fail();
+        } catch (SQLException ignore) {}
+
+        pstmt.close();
+    }
+
+    @Test
+    public void testExecuteJCR_SQL2QueryWithMaxInListParameters() throws Exception {
+        PreparedStatement pstmt = getConnection().prepareStatement(
+                "SELECT e.[empno] AS empno FROM [nt:unstructured] AS e WHERE e.[empno] IN (?) "
+                + "ORDER BY e.[empno] ASC");
+        final long [] empnos = new long[InListExpansion.MAX_VALUE_COUNT];
+
+        for (int i = 0; i < empnos.length; i++) {
+            empnos[i] = i + 1;
+        }
+
+        pstmt.setObject(1, empnos);
+        assertEquals(getEmpRowCount(), readEmpnos(pstmt.executeQuery()).size());
+
+        try {
+            pstmt.setObject(1, new long[InListExpansion.MAX_VALUE_COUNT + 1]);
+            fail("Should fail if a list has more values than the maximum.");
+        } catch (SQLException ignore) {}
+
+        pstmt.close();
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     public void testSetParameters() throws Exception {
@@ -352,16 +442,6 @@ public class JcrJdbcPreparedStatementTest extends AbstractRepositoryEnabledTestC
             fail();
         } catch (SQLFeatureNotSupportedException ignore) {}
 
-        try {
-            pstmt.setObject(1, null, 1);
-            fail();
-        } catch (UnsupportedOperationException ignore) {}
-
-        try {
-            pstmt.setObject(1, null);
-            fail();
-        } catch (UnsupportedOperationException ignore) {}
-
         try {
             pstmt.addBatch();
             fail();
@@ -382,11 +462,6 @@ public class JcrJdbcPreparedStatementTest extends AbstractRepositoryEnabledTestC
             fail();
         } catch (SQLFeatureNotSupportedException ignore) {}
 
-        try {
-            pstmt.setArray(1, null);
-            fail();
-        } catch (SQLFeatureNotSupportedException ignore) {}
-
         try {
             pstmt.getMetaData();
             fail();
@@ -500,6 +575,17 @@ public class JcrJdbcPreparedStatementTest extends AbstractRepositoryEnabledTestC
         pstmt.close();
     }
 
+    private List<Long> readEmpnos(final ResultSet rs) throws Exception {
+        List<Long> empnos = new ArrayList<>();
+
+        while (rs.next()) {
+            empnos.add(rs.getLong("empno"));
+        }
+
+        rs.close();
+        return empnos;
+    }
+
     private int printResultSet(final ResultSet rs, final int offset) throws Exception {
         int count = 0;
         long empno;
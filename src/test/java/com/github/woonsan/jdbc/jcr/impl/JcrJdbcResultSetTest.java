@@ -18,13 +18,16 @@
  */
 package com.github.woonsan.jdbc.jcr.impl;
 
+import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -45,14 +48,17 @@ import java.sql.Statement;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Map;
+import java.util.TimeZone;
 
 import javax.jcr.Node;
 import javax.jcr.Value;
 import javax.jcr.query.QueryResult;
 import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.jackrabbit.value.BinaryValue;
+import org.apache.jackrabbit.value.LongValue;
 import org.junit.Test;
 
 import com.github.woonsan.jdbc.jcr.Constants;
@@ -66,6 +72,13 @@ public class JcrJdbcResultSetTest extends AbstractRepositoryEnabledTestCase {
             + "WHERE jcr:path like '" + TEST_DATE_NODE_PATH + "/%' "
             + "ORDER BY empno ASC";
 
+    private static final String JCR2_SQL_EMPS_JOIN_FOLDER =
+            "SELECT e.[empno] AS empno, e.[ename] AS ename, d.[jcr:primaryType] AS folderType "
+            + "FROM [nt:unstructured] AS e "
+            + "INNER JOIN [nt:unstructured] AS d ON ISCHILDNODE(e, d) "
+            + "WHERE ISSAMENODE(d, '" + TEST_DATE_NODE_PATH + "') "
+            + "ORDER BY e.[empno] ASC";
+
     private static final String REC_OUT_FORMAT = "%8d\t%s\t%8.2f\t%s\t%s";
 
     private static final String NODE_INFO_OUT_FORMAT = "\t--> %s, %s (%s), %f";
@@ -231,6 +244,54 @@ public class JcrJdbcResultSetTest extends AbstractRepositoryEnabledTestCase {
         assertEquals("Hello, World!", IOUtils.toString(rs.getCharacterStream("mock_binary_column")));
     }
 
+    @Test
+    public void testRowValueCacheAndWasNull() throws Exception {
+        final Statement statement = createNiceMock(Statement.class);
+        replay(statement);
+
+        final Row row1 = createMock(Row.class);
+        expect(row1.getValue("empno")).andReturn(new LongValue(1)).once();
+        expect(row1.getValue("ename")).andReturn(null).once();
+        replay(row1);
+
+        final Row row2 = createMock(Row.class);
+        expect(row2.getValue("empno")).andReturn(new LongValue(2)).once();
+        replay(row2);
+
+        final RowIterator rowIterator = createNiceMock(RowIterator.class);
+        expect(rowIterator.hasNext()).andReturn(true).times(2).andReturn(false);
+        expect(rowIterator.nextRow()).andReturn(row1).andReturn(row2);
+        replay(rowIterator);
+
+        final QueryResult result = createNiceMock(QueryResult.class);
+        expect(result.getColumnNames()).andReturn(new String [] { "empno", "ename" }).anyTimes();
+        expect(result.getRows()).andReturn(rowIterator).anyTimes();
+        replay(result);
+
+        final JcrJdbcResultSet rs = new JcrJdbcResultSet(statement, result);
+
+        assertTrue(rs.next());
+        assertEquals(1L, rs.getLong("empno"));
+        assertFalse(rs.wasNull());
+        assertEquals("1", rs.getString(1));
+        assertEquals(1.0, rs.getDouble("empno"), 0.0);
+        assertNull(rs.getString("ename"));
+        assertTrue(rs.wasNull());
+        assertEquals(0L, rs.getLong("ename"));
+        assertTrue(rs.wasNull());
+        assertNull(rs.getDate("ename"));
+        assertEquals(1, rs.getInt("empno"));
+        assertFalse(rs.wasNull());
+
+        assertTrue(rs.next());
+        assertEquals(2L, rs.getLong("empno"));
+        assertEquals("2", rs.getString("empno"));
+        assertFalse(rs.next());
+
+        // each cell is fetched from the row only once.
+        verify(row1, row2);
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     public void testResultSetWhenClosed() throws Exception {
@@ -557,6 +618,56 @@ public class JcrJdbcResultSetTest extends AbstractRepositoryEnabledTestCase {
         statement.close();
     }
 
+    @Test
+    public void testMultiSelectorResult() throws Exception {
+        Statement statement = getConnection().createStatement();
+        ResultSet rs = statement.executeQuery(JCR2_SQL_EMPS_JOIN_FOLDER);
+        ResultSetMetaData metaData = rs.getMetaData();
+
+        assertEquals(3 + Constants.META_COLUMNS.size() * 3, metaData.getColumnCount());
+        assertEquals("empno", metaData.getColumnName(1));
+        assertEquals("ename", metaData.getColumnName(2));
+        assertEquals("folderType", metaData.getColumnName(3));
+        assertTrue(rs.findColumn("e." + Constants.COLUMN_JCR_PATH) > 3);
+        assertTrue(rs.findColumn("d." + Constants.COLUMN_JCR_SCORE) > 3);
+
+        int count = 0;
+
+        while (rs.next()) {
+            ++count;
+
+            assertEquals(count, rs.getLong("empno"));
+            assertEquals("Name' " + count, rs.getString("ename"));
+            assertEquals("nt:unstructured", rs.getString("folderType"));
+
+            assertEquals(TEST_DATE_NODE_PATH + "/testdata-" + count, rs.getString("e." + Constants.COLUMN_JCR_PATH));
+            assertEquals("testdata-" + count, rs.getString("e." + Constants.COLUMN_JCR_NAME));
+            assertEquals(TEST_DATE_NODE_PATH, rs.getString("d." + Constants.COLUMN_JCR_PATH));
+            assertEquals(TEST_DATE_NODE_NAME, rs.getString("d." + Constants.COLUMN_JCR_NAME));
+
+            // unqualified meta-columns are resolved against the first selector.
+            assertEquals(rs.getString("e." + Constants.COLUMN_JCR_PATH), rs.getString(Constants.COLUMN_JCR_PATH));
+            assertEquals(rs.getString("e." + Constants.COLUMN_JCR_UUID), rs.getString(Constants.COLUMN_JCR_UUID));
+
+            String folderId = rs.getString("d." + Constants.COLUMN_JCR_UUID);
+            assertTrue(folderId != null && !folderId.isEmpty());
+            assertFalse(folderId.equals(rs.getString("e." + Constants.COLUMN_JCR_UUID)));
+
+            assertTrue(rs.getDouble("e." + Constants.COLUMN_JCR_SCORE) >= 0.0);
+            assertTrue(rs.getDouble("d." + Constants.COLUMN_JCR_SCORE) >= 0.0);
+
+            // selector qualified properties which are not projected in the query.
+            assertEquals(100000.0 + count, rs.getDouble("e.salary"), .1);
+            assertArrayEquals(new String [] { "Nickname' " + count + ".1", "Nickname' " + count + ".2" },
+                    (String []) rs.getArray("e.nicknames").getArray());
+        }
+
+        assertEquals(getEmpRowCount(), count);
+
+        rs.close();
+        statement.close();
+    }
+
     @Test
     public void testWrapper() throws Exception {
         Statement statement = getConnection().createStatement();
@@ -1367,6 +1478,14 @@ public class JcrJdbcResultSetTest extends AbstractRepositoryEnabledTestCase {
             hireDate = rs.getDate(4);
             hireDate2 = rs.getDate("hiredate");
             assertEquals(hireDate, hireDate2);
+            assertEquals(getEmpHireDate().getTimeInMillis(), rs.getTimestamp("hiredate").getTime());
+            Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            assertEquals(0L, rs.getDate("hiredate", utc).getTime() % (24L * 60L * 60L * 1000L));
+            assertEquals(getEmpHireDate().getTimeInMillis() % (24L * 60L * 60L * 1000L),
+                    rs.getTime(4, utc).getTime());
+            assertEquals(getEmpHireDate().getTimeInMillis(), rs.getTimestamp(4, utc).getTime());
+            assertEquals(rs.getTimestamp("hiredate", utc), rs.getTimestamp(4,
+                    Calendar.getInstance(TimeZone.getTimeZone("Asia/Seoul"))));
             nicknames = (String []) rs.getArray(5).getArray();
             nicknames2 = (String []) rs.getArray("nicknames").getArray();
             assertArrayEquals(nicknames, nicknames2);
@@ -24,14 +24,27 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import javax.jcr.Node;
+
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
+import com.github.woonsan.jdbc.jcr.HashJoin;
+import com.github.woonsan.jdbc.jcr.JcrConnection;
+import com.github.woonsan.jdbc.jcr.JcrResultSet;
+import com.github.woonsan.jdbc.jcr.JcrStatement;
+
 public class JcrJdbcStatementTest extends AbstractRepositoryEnabledTestCase {
 
     private static final String SQL_EMPS =
@@ -87,6 +100,7 @@ public class JcrJdbcStatementTest extends AbstractRepositoryEnabledTestCase {
 
         ResultSet rs = statement.executeQuery(SQL_EMPS);
         assertSame(rs, statement.getResultSet());
+        assertEquals(500, rs.getFetchSize());
         assertEquals(-1, statement.getUpdateCount());
         assertFalse(statement.getMoreResults());
         assertFalse(statement.getMoreResults(Statement.KEEP_CURRENT_RESULT));
@@ -128,6 +142,366 @@ public class JcrJdbcStatementTest extends AbstractRepositoryEnabledTestCase {
         assertTrue(statement.isClosed());
     }
 
+    @Test
+    public void testExecuteJCR_SQL2QueryWithLiterals() throws Exception {
+        Statement statement = getConnection().createStatement();
+        JcrQueryCache queryCache = ((JcrJdbcConnection) getConnection()).getQueryCache();
+        queryCache.clear();
+
+        for (int i = 1; i <= 5; i++) {
+            String sql = "SELECT e.[empno] AS empno FROM [nt:unstructured] AS e "
+                    + "WHERE ISDESCENDANTNODE('" + TEST_DATE_NODE_PATH + "') "
+                    + "AND e.[ename] = 'Name'' " + i + "' AND e.[empno] >= " + i;
+            ResultSet rs = statement.executeQuery(i % 2 == 0 ? sql.toLowerCase().replace("name'' ", "Name'' ") : sql);
+            assertTrue(rs.next());
+            assertEquals(i, rs.getLong("empno"));
+            assertFalse(rs.next());
+            rs.close();
+        }
+
+        assertEquals(1, queryCache.size());
+        assertEquals(4, queryCache.getHitCount());
+
+        statement.close();
+    }
+
+    @Test
+    public void testUnwrap() throws Exception {
+        Statement statement = getConnection().createStatement();
+        assertTrue(statement.isWrapperFor(JcrStatement.class));
+        assertFalse(statement.isWrapperFor(ResultSet.class));
+        assertSame(statement, statement.unwrap(JcrStatement.class));
+
+        try {
+            statement.unwrap(ResultSet.class);
+            fail();
+        } catch (SQLException ignore) {}
+
+        statement.close();
+    }
+
+    @Test
+    public void testExecuteHashJoin() throws Exception {
+        JcrStatement statement = getConnection().createStatement().unwrap(JcrStatement.class);
+        HashJoin hashJoin = new HashJoin("l", JCR2_SQL_EMPS, "jcr:path", "r", SQL_EMPS, "jcr:path");
+        ResultSet rs = statement.executeHashJoin(hashJoin);
+        assertSame(rs, statement.getResultSet());
+
+        int count = 0;
+        Set<Long> empnos = new HashSet<>();
+
+        while (rs.next()) {
+            ++count;
+            assertEquals(rs.getLong("l.empno"), rs.getLong("r.empno"));
+            assertEquals(rs.getString("l.ename"), rs.getString("r.ename"));
+            assertEquals(rs.getString("l.jcr:path"), rs.getString("r.jcr:path"));
+            assertEquals("testdata-" + rs.getLong("l.empno"), rs.getString("l.jcr:name"));
+            assertEquals(rs.getString("l.jcr:uuid"), rs.getString("r.jcr:uuid"));
+            empnos.add(rs.getLong("l.empno"));
+        }
+
+        assertEquals(getEmpRowCount(), count);
+        assertEquals(getEmpRowCount(), empnos.size());
+        rs.close();
+
+        statement.setMaxRows(10);
+        rs = statement.executeHashJoin(hashJoin);
+        count = 0;
+
+        while (rs.next()) {
+            ++count;
+        }
+
+        assertEquals(10, count);
+        rs.close();
+
+        statement.close();
+    }
+
+    @Test
+    public void testExecuteHashJoinWithSpill() throws Exception {
+        File spillDir = new File("target/hashjoin-spill");
+        FileUtils.forceMkdir(spillDir);
+
+        try {
+            JcrStatement statement = getConnection().createStatement().unwrap(JcrStatement.class);
+            HashJoin hashJoin = new HashJoin("l", JCR2_SQL_EMPS, "empno", "r", JCR2_SQL_EMPS, "empno");
+            hashJoin.setMaxInMemoryRows(10);
+            hashJoin.setSpillDirectory(spillDir);
+            ResultSet rs = statement.executeHashJoin(hashJoin);
+            assertEquals(1, spillDir.list().length);
+
+            int count = 0;
+            Set<Long> empnos = new HashSet<>();
+
+            while (rs.next()) {
+                ++count;
+                assertEquals(rs.getLong("l.empno"), rs.getLong("r.empno"));
+                assertEquals(rs.getDouble("l.salary"), rs.getDouble("r.salary"), .1);
+                assertEquals(rs.getDate("l.hiredate"), rs.getDate("r.hiredate"));
+                assertEquals(rs.getString("l.jcr:path"), rs.getString("r.jcr:path"));
+                empnos.add(rs.getLong("l.empno"));
+            }
+
+            assertEquals(getEmpRowCount(), count);
+            assertEquals(getEmpRowCount(), empnos.size());
+            rs.close();
+            assertEquals(0, spillDir.list().length);
+
+            statement.close();
+        } finally {
+            FileUtils.deleteDirectory(spillDir);
+        }
+    }
+
+    @Test
+    public void testExecuteHashJoinWithSkewedKeySpill() throws Exception {
+        File spillDir = new File("target/hashjoin-spill");
+        FileUtils.forceMkdir(spillDir);
+
+        try {
+            JcrStatement statement = getConnection().createStatement().unwrap(JcrStatement.class);
+            // every row has the same hire date, which cannot be re-partitioned into smaller partitions.
+            HashJoin hashJoin = new HashJoin("l", JCR2_SQL_EMPS, "hiredate", "r", JCR2_SQL_EMPS, "hiredate");
+            hashJoin.setMaxInMemoryRows(10);
+            hashJoin.setSpillDirectory(spillDir);
+            ResultSet rs = statement.executeHashJoin(hashJoin);
+
+            int count = 0;
+
+            while (rs.next()) {
+                ++count;
+                assertEquals(rs.getDate("l.hiredate"), rs.getDate("r.hiredate"));
+            }
+
+            assertEquals(getEmpRowCount() * getEmpRowCount(), count);
+            rs.close();
+            assertEquals(0, spillDir.list().length);
+
+            statement.close();
+        } finally {
+            FileUtils.deleteDirectory(spillDir);
+        }
+    }
+
+    @Test
+    public void testExecuteHashJoinWithRepartitionedSpill() throws Exception {
+        File spillDir = new File("target/hashjoin-spill");
+        FileUtils.forceMkdir(spillDir);
+
+        try {
+            JcrStatement statement = getConnection().createStatement().unwrap(JcrStatement.class);
+            HashJoin hashJoin = new HashJoin("l", JCR2_SQL_EMPS, "empno", "r", JCR2_SQL_EMPS, "empno");
+            // smaller than the rows in most of the spilled partitions, to be re-partitioned.
+            hashJoin.setMaxInMemoryRows(1);
+            hashJoin.setSpillDirectory(spillDir);
+            ResultSet rs = statement.executeHashJoin(hashJoin);
+
+            Set<Long> empnos = new HashSet<>();
+
+            while (rs.next()) {
+                assertEquals(rs.getLong("l.empno"), rs.getLong("r.empno"));
+                assertTrue(empnos.add(rs.getLong("l.empno")));
+            }
+
+            assertEquals(getEmpRowCount(), empnos.size());
+            rs.close();
+            assertEquals(0, spillDir.list().length);
+
+            statement.close();
+        } finally {
+            FileUtils.deleteDirectory(spillDir);
+        }
+    }
+
+    @Test
+    public void testExecuteHashJoinWithLostSpillFiles() throws Exception {
+        File spillDir = new File("target/hashjoin-spill");
+        FileUtils.forceMkdir(spillDir);
+
+        try {
+            JcrStatement statement = getConnection().createStatement().unwrap(JcrStatement.class);
+            HashJoin hashJoin = new HashJoin("l", JCR2_SQL_EMPS, "empno", "r", JCR2_SQL_EMPS, "empno");
+            hashJoin.setMaxInMemoryRows(10);
+            hashJoin.setSpillDirectory(spillDir);
+            ResultSet rs = statement.executeHashJoin(hashJoin);
+            assertTrue(rs.next());
+
+            for (File dir : spillDir.listFiles()) {
+                FileUtils.cleanDirectory(dir);
+            }
+
+            try {
+                while (rs.next()) {
+                }
+
+                fail("Should fail to read the lost spill files.");
+            } catch (SQLException expected) {
+            }
+
+            statement.close();
+        } finally {
+            FileUtils.deleteDirectory(spillDir);
+        }
+    }
+
+    @Test
+    public void testExecuteQueryAfter() throws Exception {
+        JcrStatement statement = (JcrStatement) getConnection().createStatement();
+        statement.setMaxRows(7);
+        Set<Long> empnos = new HashSet<>();
+        long lastEmpno = 0;
+        int pages = 0;
+        String cursorToken = null;
+
+        do {
+            JcrResultSet rs = statement.executeQueryAfter(JCR2_SQL_EMPS, cursorToken);
+            int count = 0;
+
+            while (rs.next()) {
+                long empno = rs.getLong("empno");
+                assertTrue(empno > lastEmpno);
+                assertTrue(empnos.add(empno));
+                lastEmpno = empno;
+                ++count;
+            }
+
+            assertTrue(count <= 7);
+            cursorToken = rs.getCursorToken();
+            rs.close();
+            ++pages;
+        } while (cursorToken != null);
+
+        assertEquals(getEmpRowCount(), empnos.size());
+        // 8 pages of the rows, followed by an empty page ending the iteration.
+        assertEquals(9, pages);
+
+        statement.close();
+    }
+
+    @Test
+    public void testExecuteQueryAfterWithTies() throws Exception {
+        JcrStatement statement = (JcrStatement) getConnection().createStatement();
+        statement.setMaxRows(12);
+        Set<Long> empnos = new HashSet<>();
+        String cursorToken = null;
+        String sql = "SELECT e.[empno] AS empno FROM [nt:unstructured] AS e "
+                + "WHERE ISDESCENDANTNODE('" + TEST_DATE_NODE_PATH + "') "
+                + "ORDER BY e.[hiredate] DESC";
+
+        do {
+            JcrResultSet rs = statement.executeQueryAfter(sql, cursorToken);
+
+            while (rs.next()) {
+                assertTrue(empnos.add(rs.getLong("empno")));
+            }
+
+            cursorToken = rs.getCursorToken();
+            rs.close();
+        } while (cursorToken != null);
+
+        assertEquals(getEmpRowCount(), empnos.size());
+
+        try {
+            statement.executeQueryAfter(JCR2_SQL_EMPS.replace("ORDER BY e.[empno] ASC", ""), null);
+            fail("Should not allow a query without ordering.");
+        } catch (SQLException expected) {
+        }
+
+        try {
+            statement.executeQueryAfter(SQL_EMPS, null);
+            fail("Should not allow a legacy SQL query.");
+        } catch (SQLException expected) {
+        }
+
+        try {
+            statement.executeQueryAfter(JCR2_SQL_EMPS, "invalid");
+            fail("Should not allow an invalid cursor token.");
+        } catch (SQLException expected) {
+        }
+
+        try {
+            statement.executeQuery(JCR2_SQL_EMPS).unwrap(JcrResultSet.class).getCursorToken();
+            fail("Should not provide a cursor token for a non-paginated query.");
+        } catch (SQLException expected) {
+        }
+
+        statement.close();
+    }
+
+    @Test
+    public void testIdentifierOnlyScan() throws Exception {
+        JcrStatement statement = (JcrStatement) getConnection().createStatement();
+        assertFalse(statement.isIdentifierOnlyScan());
+        statement.setIdentifierOnlyScan(true);
+        assertTrue(statement.isIdentifierOnlyScan());
+
+        ResultSet rs = statement.executeQuery(JCR2_SQL_EMPS);
+        assertEquals(4, rs.getMetaData().getColumnCount());
+        List<String> identifiers = new ArrayList<>();
+
+        while (rs.next()) {
+            assertTrue(rs.getString("jcr:path").startsWith(TEST_DATE_NODE_PATH + "/testdata-"));
+            identifiers.add(rs.getString("jcr:uuid"));
+
+            try {
+                rs.getLong("empno");
+                fail("Should not read a property value in an identifier-only scan.");
+            } catch (SQLException expected) {
+            }
+        }
+
+        rs.close();
+        assertEquals(getEmpRowCount(), identifiers.size());
+
+        List<Node> nodes = getConnection().unwrap(JcrConnection.class).getNodesByIdentifier(identifiers);
+        assertEquals(getEmpRowCount(), nodes.size());
+
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(i + 1, nodes.get(i).getProperty("empno").getLong());
+        }
+
+        statement.close();
+    }
+
+    @Test
+    public void testStrictProjection() throws Exception {
+        JcrStatement statement = (JcrStatement) getConnection().createStatement();
+        String sql = "SELECT e.[empno] AS no, e.[nicknames] AS nicks FROM [nt:unstructured] AS e "
+                + "WHERE ISDESCENDANTNODE('" + TEST_DATE_NODE_PATH + "') ORDER BY e.[empno]";
+
+        ResultSet rs = statement.executeQuery(sql);
+        assertTrue(rs.next());
+        assertEquals("Nickname' 1.1", ((Object []) rs.getArray("nicks").getArray())[0]);
+        assertEquals("Name' 1", rs.getString("e.ename"));
+        rs.close();
+
+        assertFalse(statement.isStrictProjection());
+        statement.setStrictProjection(true);
+        assertTrue(statement.isStrictProjection());
+
+        rs = statement.executeQuery(sql);
+        assertTrue(rs.next());
+        assertEquals(1L, rs.getLong("no"));
+        assertEquals("Nickname' 1.2", ((Object []) rs.getArray("nicks").getArray())[1]);
+        assertEquals(TEST_DATE_NODE_PATH + "/testdata-1", rs.getString("e.jcr:path"));
+
+        try {
+            rs.getString("e.ename");
+            fail("Should not read a property not projected in strict projection.");
+        } catch (SQLException expected) {
+        }
+
+        try {
+            rs.getArray("e.nicknames");
+            fail("Should not read a property not projected in strict projection.");
+        } catch (SQLException expected) {
+        }
+
+        rs.close();
+        statement.close();
+    }
+
     @Test
     public void testStatementWhenClosed() throws Exception {
         Statement statement = getConnection().createStatement();
@@ -284,16 +658,6 @@ public class JcrJdbcStatementTest extends AbstractRepositoryEnabledTestCase {
     public void testUnsupportedOperations() throws Exception {
         Statement statement = getConnection().createStatement();
 
-        try {
-            statement.isWrapperFor(null);
-            fail();
-        } catch (UnsupportedOperationException ignore) {}
-
-        try {
-            statement.unwrap(null);
-            fail();
-        } catch (UnsupportedOperationException ignore) {}
-
         try {
             statement.executeUpdate(null);
             fail();
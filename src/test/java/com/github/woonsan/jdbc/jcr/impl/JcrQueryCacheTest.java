@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+
+import org.junit.Test;
+
+public class JcrQueryCacheTest {
+
+    @Test
+    public void testGetQuery() throws Exception {
+        final Query query1 = createMock(Query.class);
+        query1.setLimit(10);
+        expectLastCall().once();
+        final Query query2 = createMock(Query.class);
+        final Query query3 = createMock(Query.class);
+        replay(query1, query2, query3);
+
+        final QueryManager queryManager = createMock(QueryManager.class);
+        expect(queryManager.createQuery("q1", Query.JCR_SQL2)).andReturn(query1).once();
+        expect(queryManager.createQuery("q2", Query.JCR_SQL2)).andReturn(query2).once();
+        expect(queryManager.createQuery("q1", Query.JCR_SQL2)).andReturn(query3).once();
+        replay(queryManager);
+
+        final Workspace workspace = createMock(Workspace.class);
+        expect(workspace.getQueryManager()).andReturn(queryManager).anyTimes();
+        replay(workspace);
+
+        final Session session = createMock(Session.class);
+        expect(session.getWorkspace()).andReturn(workspace).anyTimes();
+        replay(session);
+
+        final JcrQueryCache cache = new JcrQueryCache(1);
+
+        assertSame(query1, cache.getQuery(session, "q1", Query.JCR_SQL2, 10));
+        assertSame(query1, cache.getQuery(session, "q1", Query.JCR_SQL2, 10));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // the least recently used one is evicted.
+        assertSame(query2, cache.getQuery(session, "q2", Query.JCR_SQL2, 0));
+        assertEquals(1, cache.size());
+        final Query query = cache.getQuery(session, "q1", Query.JCR_SQL2, 0);
+        assertSame(query3, query);
+        assertNotSame(query1, query);
+        assertEquals(3, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+
+        verify(query1, query2, query3, queryManager);
+    }
+
+}
@@ -23,17 +23,26 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.Calendar;
 
 import javax.jcr.Property;
 import javax.jcr.PropertyType;
 import javax.jcr.Value;
 
+import org.apache.jackrabbit.util.ISO8601;
 import org.apache.jackrabbit.value.BooleanValue;
+import org.apache.jackrabbit.value.DateValue;
 import org.apache.jackrabbit.value.DecimalValue;
 import org.apache.jackrabbit.value.DoubleValue;
 import org.apache.jackrabbit.value.LongValue;
@@ -327,6 +336,101 @@ public class JcrValuesArrayTest {
         assertArrayEquals(uriValuesArray, (String[]) array.getArray(1, uriValuesArray.length, null));
     }
 
+    @Test
+    public void testSlicesAndBuffers() throws Exception {
+        final int length = 10000;
+        final Value [] hugeValues = new Value[length];
+        // not convertible to a long, so converting all the values fails.
+        hugeValues[0] = new StringValue("not-a-number");
+        for (int i = 1; i < length; i++) {
+            hugeValues[i] = new LongValue(i);
+        }
+
+        Property hugeLongProp = createNiceMock(Property.class);
+        expect(hugeLongProp.getType()).andReturn(PropertyType.LONG).anyTimes();
+        expect(hugeLongProp.isMultiple()).andReturn(true).anyTimes();
+        expect(hugeLongProp.getValues()).andReturn(hugeValues).anyTimes();
+        replay(hugeLongProp);
+
+        JcrValuesArray array = new JcrValuesArray(hugeLongProp);
+        assertEquals(length, array.getLength());
+        assertArrayEquals(new long[] { 5000, 5001, 5002 }, (long[]) array.getArray(5001, 3));
+        assertArrayEquals(new long[] { length - 1 }, (long[]) array.getArray(length, 1));
+        assertEquals(0, ((long[]) array.getArray(length + 1, 0)).length);
+
+        LongBuffer buffer = array.getLongBuffer(2, 10);
+        assertEquals(10, buffer.remaining());
+        assertEquals(1L, buffer.get(0));
+        assertEquals(10L, buffer.get(9));
+        assertTrue(buffer.isReadOnly());
+
+        try {
+            array.getArray(length, 2);
+            fail();
+        } catch (SQLException ignore) { }
+
+        try {
+            array.getArray(0, 1);
+            fail();
+        } catch (SQLException ignore) { }
+
+        try {
+            array.getArray(1, -1);
+            fail();
+        } catch (SQLException ignore) { }
+
+        try {
+            array.getDoubleBuffer(1, 1);
+            fail();
+        } catch (SQLException ignore) { }
+
+        try {
+            array.getArray();
+            fail();
+        } catch (SQLException ignore) { }
+
+        array = new JcrValuesArray(mvDoubleProp);
+        DoubleBuffer doubleBuffer = array.getDoubleBuffer(2, 1);
+        assertEquals(1, doubleBuffer.remaining());
+        assertEquals(doubleValuesArray[1], doubleBuffer.get(0), 0.01);
+        assertArrayEquals(doubleValuesArray, (double[]) array.getArray(), 0.01);
+
+        try {
+            array.getLongBuffer(1, 1);
+            fail();
+        } catch (SQLException ignore) { }
+    }
+
+    @Test
+    public void testDateValues() throws Exception {
+        Calendar first = ISO8601.parse("2016-01-02T03:04:05.678+09:00");
+        Calendar second = Calendar.getInstance();
+        Value [] dateValues = new Value[] { new DateValue(first), new DateValue(second) };
+
+        Property mvDateProp = createNiceMock(Property.class);
+        expect(mvDateProp.getType()).andReturn(PropertyType.DATE).anyTimes();
+        expect(mvDateProp.isMultiple()).andReturn(true).anyTimes();
+        expect(mvDateProp.getValues()).andReturn(dateValues).anyTimes();
+        replay(mvDateProp);
+
+        JcrValuesArray array = new JcrValuesArray(mvDateProp);
+        assertEquals(Types.TIMESTAMP, array.getBaseType());
+        assertEquals("TIMESTAMP", array.getBaseTypeName());
+        assertEquals(new Timestamp(second.getTimeInMillis()), ((Timestamp[]) array.getArray(2, 1))[0]);
+        assertEquals(first.getTimeInMillis(), array.getLongBuffer(1, 2).get(0));
+
+        Timestamp [] timestamps = (Timestamp[]) array.getArray();
+        assertEquals(2, timestamps.length);
+        assertEquals(first.getTimeInMillis(), timestamps[0].getTime());
+        assertEquals(second.getTimeInMillis(), timestamps[1].getTime());
+
+        ResultSet rs = array.getResultSet(1, 1);
+        assertTrue(rs.next());
+        assertEquals(new Timestamp(first.getTimeInMillis()), rs.getObject("VALUE"));
+        assertEquals(first.getTimeInMillis(), rs.getTimestamp(2).getTime());
+        assertFalse(rs.next());
+    }
+
     @Test
     public void testFree() throws Exception {
         JcrValuesArray array = new JcrValuesArray(mvStringProp);
@@ -341,28 +445,71 @@ public class JcrValuesArrayTest {
     }
 
     @Test
-    public void testUnsupportedOperations() throws Exception {
-        JcrValuesArray array = new JcrValuesArray(mvStringProp);
+    public void testResultSet() throws Exception {
+        JcrValuesArray array = new JcrValuesArray(mvLongProp);
+        ResultSet rs = array.getResultSet();
+        assertEquals(2, rs.getMetaData().getColumnCount());
+        assertEquals("INDEX", rs.getMetaData().getColumnName(1));
+        assertEquals("VALUE", rs.getMetaData().getColumnName(2));
+        assertTrue(rs.isBeforeFirst());
+
+        for (int i = 0; i < longValuesArray.length; i++) {
+            assertTrue(rs.next());
+            assertEquals(i + 1, rs.getInt(1));
+            assertEquals(i + 1, rs.getLong("INDEX"));
+            assertEquals(longValuesArray[i], rs.getLong(2));
+            assertEquals(Long.valueOf(longValuesArray[i]), rs.getObject("VALUE"));
+            assertEquals(Long.toString(longValuesArray[i]), rs.getString("value"));
+            assertFalse(rs.wasNull());
+        }
+
+        assertFalse(rs.next());
+        assertTrue(rs.isAfterLast());
 
         try {
-            array.getResultSet();
+            rs.getLong(2);
             fail();
-        } catch (UnsupportedOperationException ignore) { }
+        } catch (SQLException ignore) { }
+
+        rs.close();
 
         try {
-            array.getResultSet(null);
+            rs.next();
             fail();
-        } catch (UnsupportedOperationException ignore) { }
+        } catch (SQLException ignore) { }
+
+        array = new JcrValuesArray(mvStringProp);
+        rs = array.getResultSet(2, 1);
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt("INDEX"));
+        assertEquals(strValuesArray[1], rs.getString("VALUE"));
+        assertFalse(rs.next());
+
+        // streams the values even after all the values are converted.
+        assertArrayEquals(strValuesArray, (String[]) array.getArray());
+        rs = array.getResultSet(1, 2, null);
+        assertTrue(rs.next());
+        assertEquals(strValuesArray[0], rs.getObject(2));
+        assertTrue(rs.next());
+        assertFalse(rs.next());
+
+        rs = array.getResultSet(3, 0);
+        assertFalse(rs.next());
 
         try {
             array.getResultSet(0, 2);
             fail();
-        } catch (UnsupportedOperationException ignore) { }
+        } catch (SQLException ignore) { }
+
+        try {
+            array.getResultSet(2, 2);
+            fail();
+        } catch (SQLException ignore) { }
 
         try {
-            array.getResultSet(0, 2, null);
+            rs.getString("NO_SUCH_COLUMN");
             fail();
-        } catch (UnsupportedOperationException ignore) { }
+        } catch (SQLException ignore) { }
     }
 
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.query.Row;
+
+import org.junit.Test;
+
+public class MetaColumnResolverTest {
+
+    @Test
+    public void testGetNodeName() throws Exception {
+        assertNull(MetaColumnResolver.getNodeName(null));
+        assertEquals("", MetaColumnResolver.getNodeName("/"));
+        assertEquals("testdatafolder", MetaColumnResolver.getNodeName("/testdatafolder"));
+        assertEquals("testdata-1", MetaColumnResolver.getNodeName("/testdatafolder/testdata-1"));
+        assertEquals("testdata-1", MetaColumnResolver.getNodeName("/testdatafolder/testdata-1[2]"));
+        assertEquals("ns1:news", MetaColumnResolver.getNodeName("/content/ns1:news"));
+    }
+
+    @Test
+    public void testResolveWithoutNodeLoading() throws Exception {
+        final Row row = createMock(Row.class);
+        expect(row.getPath()).andReturn("/testdatafolder/testdata-1").once();
+        expect(row.getScore()).andReturn(1.0).once();
+        replay(row);
+
+        final MetaColumnResolver resolver = new MetaColumnResolver();
+        resolver.reset(row);
+
+        assertEquals("/testdatafolder/testdata-1", resolver.getPath());
+        assertEquals("testdata-1", resolver.getName());
+        assertEquals("testdata-1", resolver.getName());
+        assertEquals(1.0, resolver.getScore(), 0.0);
+
+        verify(row);
+    }
+
+    @Test
+    public void testResolveIdentifier() throws Exception {
+        final Node node = createMock(Node.class);
+        expect(node.getIdentifier()).andReturn("id-1").times(2);
+        replay(node);
+
+        final Row row = createMock(Row.class);
+        expect(row.getPath()).andReturn("/testdatafolder/testdata-1").once();
+        expect(row.getNode()).andReturn(node).once();
+        replay(row);
+
+        final Row sameNodeRow = createMock(Row.class);
+        expect(sameNodeRow.getPath()).andReturn("/testdatafolder/testdata-1").once();
+        expect(sameNodeRow.getNode()).andReturn(node).once();
+        replay(sameNodeRow);
+
+        final MetaColumnResolver resolver = new MetaColumnResolver();
+        resolver.reset(row);
+        assertEquals("id-1", resolver.getIdentifier());
+        assertEquals("id-1", resolver.getIdentifier());
+        assertSame(node, resolver.getNode());
+
+        // resolved again for the next row, even if it is of the same node.
+        resolver.reset(sameNodeRow);
+        assertEquals("id-1", resolver.getIdentifier());
+
+        verify(node);
+        verify(row);
+        verify(sameNodeRow);
+    }
+
+    @Test
+    public void testResolveWithoutRow() throws Exception {
+        final MetaColumnResolver resolver = new MetaColumnResolver();
+
+        try {
+            resolver.getPath();
+            fail();
+        } catch (RepositoryException ignore) {
+        }
+    }
+
+    @Test
+    public void testResolveIdentifierFromProjectedColumn() throws Exception {
+        final Value uuidValue = createMock(Value.class);
+        expect(uuidValue.getString()).andReturn("uuid-1").once();
+        replay(uuidValue);
+
+        final Row row = createMock(Row.class);
+        expect(row.getPath("e")).andReturn("/testdatafolder/testdata-1").once();
+        expect(row.getValue("e.jcr:uuid")).andReturn(uuidValue).once();
+        replay(row);
+
+        final MetaColumnResolver resolver = new MetaColumnResolver("e");
+        resolver.setIdentifierColumnName("e.jcr:uuid");
+        resolver.reset(row);
+
+        assertEquals("uuid-1", resolver.getIdentifier());
+        assertEquals("uuid-1", resolver.getIdentifier());
+        verify(row);
+    }
+
+}
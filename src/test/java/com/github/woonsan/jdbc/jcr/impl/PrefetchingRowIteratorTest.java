@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jcr.Node;
+import javax.jcr.Session;
+import javax.jcr.query.Row;
+
+import org.apache.jackrabbit.commons.iterator.RowIteratorAdapter;
+import org.easymock.IAnswer;
+import org.junit.Test;
+
+public class PrefetchingRowIteratorTest {
+
+    private static final int ROW_COUNT = 1000;
+
+    private static final int WINDOW_SIZE = 100;
+
+    @Test
+    public void testPrefetchByWindow() throws Exception {
+        final AtomicInteger nodeLoads = new AtomicInteger();
+        final AtomicInteger parentNodeLoads = new AtomicInteger();
+        final IAnswer<Node> nodeLoadAnswer = new IAnswer<Node>() {
+            @Override
+            public Node answer() throws Throwable {
+                nodeLoads.incrementAndGet();
+                return null;
+            }
+        };
+
+        final List<Row> rows = new ArrayList<>();
+        Row row;
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            row = createMock(Row.class);
+            expect(row.getPath()).andReturn("/testdatafolder/testdata-" + i).anyTimes();
+            expect(row.getNode()).andAnswer(nodeLoadAnswer).anyTimes();
+            replay(row);
+            rows.add(row);
+        }
+
+        final Session session = createMock(Session.class);
+        expect(session.getNode("/testdatafolder")).andAnswer(new IAnswer<Node>() {
+            @Override
+            public Node answer() throws Throwable {
+                parentNodeLoads.incrementAndGet();
+                return null;
+            }
+        }).anyTimes();
+        replay(session);
+
+        final PrefetchingRowIterator rowIterator = new PrefetchingRowIterator(new RowIteratorAdapter(rows), session,
+                new String[] { "e" }, WINDOW_SIZE);
+        assertEquals(ROW_COUNT, rowIterator.getSize());
+        assertEquals(0, nodeLoads.get());
+
+        assertSame(rows.get(0), rowIterator.nextRow());
+        assertEquals(WINDOW_SIZE, nodeLoads.get());
+        assertEquals(1, parentNodeLoads.get());
+        assertEquals(1, rowIterator.getPosition());
+
+        for (int i = 1; i < WINDOW_SIZE; i++) {
+            assertSame(rows.get(i), rowIterator.nextRow());
+        }
+
+        // the whole window was read without loading any more node.
+        assertEquals(WINDOW_SIZE, nodeLoads.get());
+        assertEquals(1, parentNodeLoads.get());
+
+        rowIterator.skip(WINDOW_SIZE + 10);
+        int index = 2 * WINDOW_SIZE + 10;
+
+        while (rowIterator.hasNext()) {
+            assertSame(rows.get(index++), rowIterator.nextRow());
+        }
+
+        assertEquals(ROW_COUNT, index);
+        assertEquals(ROW_COUNT, rowIterator.getPosition());
+        // the skipped rows were not loaded.
+        assertEquals(ROW_COUNT - WINDOW_SIZE - 10, nodeLoads.get());
+        assertEquals(ROW_COUNT / WINDOW_SIZE - 1, parentNodeLoads.get());
+        assertFalse(rowIterator.hasNext());
+    }
+
+    @Test
+    public void testGetParentPath() throws Exception {
+        assertNull(PrefetchingRowIterator.getParentPath(null));
+        assertNull(PrefetchingRowIterator.getParentPath("/"));
+        assertNull(PrefetchingRowIterator.getParentPath("relative"));
+        assertEquals("/", PrefetchingRowIterator.getParentPath("/testdatafolder"));
+        assertEquals("/testdatafolder", PrefetchingRowIterator.getParentPath("/testdatafolder/testdata-1"));
+    }
+
+}
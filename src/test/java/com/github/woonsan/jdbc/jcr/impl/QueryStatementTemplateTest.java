@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class QueryStatementTemplateTest {
+
+    private static final String PV = SQLQueryUtils.PARAM_VAR_REF_PREFIX;
+
+    @Test
+    public void testBind() throws Exception {
+        QueryStatementTemplate template = new QueryStatementTemplate(
+                "select * from nt:base where a = " + PV + "1 and b > " + PV + "2 and c like " + PV + "10", 10);
+        assertEquals(3, template.getParameterSlotCount());
+
+        Object [] params = new Object[10];
+        params[0] = "it's";
+        params[1] = Long.valueOf(3L);
+        params[9] = "x%";
+        assertEquals("select * from nt:base where a = 'it''s' and b > 3 and c like 'x%'", template.bind(params));
+
+        params[0] = Boolean.TRUE;
+        params[1] = new BigDecimal("1E+3");
+        params[9] = Double.valueOf(1.5);
+        assertEquals("select * from nt:base where a = 'true' and b > 1000 and c like 1.5", template.bind(params));
+    }
+
+    @Test
+    public void testBindWithoutParameters() throws Exception {
+        QueryStatementTemplate template = new QueryStatementTemplate("select * from nt:base", 0);
+        assertEquals(0, template.getParameterSlotCount());
+        assertEquals("select * from nt:base", template.bind(new Object[0]));
+    }
+
+    @Test
+    public void testToLiteral() throws Exception {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.setTimeInMillis(0L);
+        assertEquals("TIMESTAMP '1970-01-01T00:00:00.000Z'", QueryStatementTemplate.toLiteral(cal, 1));
+        assertEquals("'false'", QueryStatementTemplate.toLiteral(Boolean.FALSE, 1));
+        assertEquals("''''", QueryStatementTemplate.toLiteral("'", 1));
+
+        try {
+            QueryStatementTemplate.toLiteral(Double.valueOf(Double.NaN), 1);
+            fail();
+        } catch (SQLException ignore) {}
+
+        try {
+            QueryStatementTemplate.toLiteral(new Object(), 1);
+            fail();
+        } catch (SQLException ignore) {}
+    }
+
+}
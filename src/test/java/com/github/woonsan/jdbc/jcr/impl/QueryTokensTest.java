@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QueryTokensTest {
+
+    @Test
+    public void testTokenize() throws Exception {
+        QueryTokens tokens = QueryTokens.tokenize(
+                "SELECT e.[jcr:title] FROM [nt:base] AS e WHERE e.[a]>=? AND e.b <> 'it''s ?' -- ?\n"
+                + "AND e.c IN (?,?) /* ? */ AND e.d = $var AND e.f = 1.5e3");
+
+        int [] expectedTypes = {
+            QueryTokens.WORD, QueryTokens.WORD, QueryTokens.PUNCTUATION, QueryTokens.BRACKETED_NAME,
+            QueryTokens.WORD, QueryTokens.BRACKETED_NAME, QueryTokens.WORD, QueryTokens.WORD, QueryTokens.WORD,
+            QueryTokens.WORD, QueryTokens.PUNCTUATION, QueryTokens.BRACKETED_NAME, QueryTokens.OPERATOR,
+            QueryTokens.PARAMETER, QueryTokens.WORD, QueryTokens.WORD, QueryTokens.PUNCTUATION, QueryTokens.WORD,
+            QueryTokens.OPERATOR, QueryTokens.STRING, QueryTokens.COMMENT, QueryTokens.WORD, QueryTokens.WORD,
+            QueryTokens.PUNCTUATION, QueryTokens.WORD, QueryTokens.WORD, QueryTokens.PUNCTUATION,
+            QueryTokens.PARAMETER, QueryTokens.PUNCTUATION, QueryTokens.PARAMETER, QueryTokens.PUNCTUATION,
+            QueryTokens.COMMENT, QueryTokens.WORD, QueryTokens.WORD, QueryTokens.PUNCTUATION, QueryTokens.WORD,
+            QueryTokens.OPERATOR, QueryTokens.VARIABLE, QueryTokens.WORD, QueryTokens.WORD,
+            QueryTokens.PUNCTUATION, QueryTokens.WORD, QueryTokens.OPERATOR, QueryTokens.NUMBER
+        };
+
+        assertEquals(expectedTypes.length, tokens.size());
+
+        for (int i = 0; i < expectedTypes.length; i++) {
+            assertEquals("token " + i + ": " + tokens.getText(i), expectedTypes[i], tokens.getType(i));
+        }
+
+        assertEquals("[jcr:title]", tokens.getText(3));
+        assertEquals(">=", tokens.getText(12));
+        assertEquals("'it''s ?'", tokens.getText(19));
+        assertEquals("-- ?", tokens.getText(20));
+        assertEquals("$var", tokens.getText(37));
+        assertEquals("1.5e3", tokens.getText(43));
+
+        assertTrue(tokens.textEqualsIgnoreCase(0, "select"));
+        assertFalse(tokens.textEqualsIgnoreCase(0, "selec"));
+        assertTrue(tokens.isSeparatedFromPrevious(0));
+        assertFalse(tokens.isSeparatedFromPrevious(2));
+        assertTrue(tokens.isSeparatedFromPrevious(4));
+    }
+
+    @Test
+    public void testTokenizeUnterminated() throws Exception {
+        QueryTokens tokens = QueryTokens.tokenize("select * from [nt:base where a = 'x");
+        assertEquals(4, tokens.size());
+        assertEquals(QueryTokens.BRACKETED_NAME, tokens.getType(3));
+
+        tokens = QueryTokens.tokenize("select * from nt:base where a = 'x");
+        assertEquals(QueryTokens.STRING, tokens.getType(tokens.size() - 1));
+        assertEquals("'x", tokens.getText(tokens.size() - 1));
+    }
+
+    @Test
+    public void testTokenizeManyTokens() throws Exception {
+        StringBuilder sb = new StringBuilder("select * from nt:base where a in (?");
+
+        for (int i = 0; i < 200; i++) {
+            sb.append(",?");
+        }
+
+        QueryTokens tokens = QueryTokens.tokenize(sb.append(')').toString());
+        assertEquals(8 + 1 + 200 * 2 + 1, tokens.size());
+    }
+
+}
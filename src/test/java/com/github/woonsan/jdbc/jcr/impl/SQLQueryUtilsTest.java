@@ -19,6 +19,12 @@
 package com.github.woonsan.jdbc.jcr.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.jcr.query.Query;
 
@@ -61,6 +67,9 @@ public class SQLQueryUtilsTest {
 
         query = "SelEct * from ns1:news where ns1:title like '%News%'";
         assertEquals(Query.SQL, SQLQueryUtils.detectQueryLanguage(query));
+
+        query = "select * from ns1:news where ns1:title = ' from [ns1:news]'";
+        assertEquals(Query.SQL, SQLQueryUtils.detectQueryLanguage(query));
     }
 
     @Test
@@ -74,6 +83,9 @@ public class SQLQueryUtilsTest {
         query = "seLeCt t.* from [ns1:news] AS t where ns1:title like '%News%'";
         assertEquals(Query.JCR_SQL2, SQLQueryUtils.detectQueryLanguage(query));
 
+        query = "/* news */ select\n*\nfrom\n[ns1:news]";
+        assertEquals(Query.JCR_SQL2, SQLQueryUtils.detectQueryLanguage(query));
+
         query = "selECT e.[empno] AS empno, e.[ename] AS ename, e.[salary] AS salary, e.[hiredate] AS hiredate "
                 + "FROM [nt:unstructured] AS e "
                 + "WHERE ISDESCENDANTNODE('/testdatafolder') "
@@ -107,4 +119,76 @@ public class SQLQueryUtilsTest {
         assertEquals(query, jcrSqlBuilder.toString());
     }
 
+    @Test
+    public void testConvertParameterBindingSqlWithLiteralsAndComments() throws Exception {
+        String pv = SQLQueryUtils.PARAM_VAR_REF_PREFIX;
+        StringBuilder jcrSqlBuilder = new StringBuilder();
+        String query = "select * from [nt:base] as s where s.[a?] = 'what?' -- why?\n"
+                + "and s.[b] in (?, ?,?) /* ? */ and s.[c]=? and s.[d] like \"?\"";
+        int paramCount = SQLQueryUtils.convertParameterBindingSqlToVariableBindingQuery(query, jcrSqlBuilder);
+        assertEquals(4, paramCount);
+        assertEquals("select * from [nt:base] as s where s.[a?] = 'what?' -- why?\n"
+                + "and s.[b] in (" + pv + "1, " + pv + "2," + pv + "3) /* ? */ and s.[c]=" + pv + "4 "
+                + "and s.[d] like \"?\"", jcrSqlBuilder.toString());
+    }
+
+    @Test
+    public void testNormalizeAndParameterizeQuery() throws Exception {
+        List<Object> literals = new ArrayList<>();
+        String query = "select  e.[empno] as empno, e.[ename]\n"
+                + "from [nt:unstructured] as e where isdescendantnode('/testdatafolder')\n"
+                + "  and e.[ename] = 'Name'' 1' and e.[salary]>100001.5 and e.[empno] <> -3 "
+                + "and e.[ename] like \"Name%\" and e.[nicknames] is not null order by e.[empno] desc";
+        String normalized = SQLQueryUtils.normalizeAndParameterizeQuery(query, literals);
+        String paramRef = SQLQueryUtils.PARAM_VAR_REF_PREFIX;
+        assertEquals("SELECT e.[empno] AS empno, e.[ename] "
+                + "FROM [nt:unstructured] AS e WHERE ISDESCENDANTNODE('/testdatafolder') "
+                + "AND e.[ename] = " + paramRef + "1 AND e.[salary]>" + paramRef + "2 AND e.[empno] <> "
+                + paramRef + "3 AND e.[ename] LIKE " + paramRef + "4 AND e.[nicknames] IS NOT NULL "
+                + "ORDER BY e.[empno] DESC", normalized);
+        assertEquals(Arrays.asList("Name' 1", new BigDecimal("100001.5"), Long.valueOf(-3L), "Name%"), literals);
+
+        // structurally identical statements are normalized into the same one.
+        literals.clear();
+        String another = "SELECT e.[empno] AS empno, e.[ename] FROM [nt:unstructured] AS e "
+                + "WHERE ISDESCENDANTNODE('/testdatafolder') AND e.[ename] = 'Other' AND e.[salary]>1.0 "
+                + "AND e.[empno] <> 7 AND e.[ename] LIKE 'O%' AND e.[nicknames] IS NOT NULL "
+                + "ORDER BY e.[empno] DESC";
+        assertEquals(normalized, SQLQueryUtils.normalizeAndParameterizeQuery(another, literals));
+        assertEquals(Arrays.asList("Other", new BigDecimal("1.0"), Long.valueOf(7L), "O%"), literals);
+
+        // names, aliases and non-comparison literals are kept as they are.
+        literals.clear();
+        query = "SELECT s.name AS name FROM [nt:base] AS s WHERE CONTAINS(s.*, 'news') "
+                + "AND s.[jcr:created] > CAST('2016-01-01T00:00:00.000Z' AS DATE) AND NAME(s) = 'a'";
+        assertEquals(query, SQLQueryUtils.normalizeAndParameterizeQuery(query, literals).replace(paramRef + "1",
+                "'a'"));
+        assertEquals(Arrays.<Object>asList("a"), literals);
+
+        // statements with bind variables are not touched.
+        literals.clear();
+        query = "select * from [nt:base] as s where s.[a] = $a and s.[b] = 'b'";
+        assertEquals(query, SQLQueryUtils.normalizeAndParameterizeQuery(query, literals));
+        assertTrue(literals.isEmpty());
+    }
+
+    @Test
+    public void testNormalizeAndParameterizeQueryWithComments() throws Exception {
+        List<Object> literals = new ArrayList<>();
+        String query = "select * from [nt:base] as s /* where s.[a] = 'it''s' or s.[b] = ? */\n"
+                + "where s.[c] = 'c' -- and s.[d] = $d and s.[e] = 'e\n"
+                + "and s.[f] > 1";
+        QueryTokens tokens = QueryTokens.tokenize(query);
+        String paramRef = SQLQueryUtils.PARAM_VAR_REF_PREFIX;
+
+        assertEquals(Query.JCR_SQL2, SQLQueryUtils.detectQueryLanguage(tokens));
+        assertEquals("SELECT * FROM [nt:base] AS s WHERE s.[c] = " + paramRef + "1 AND s.[f] > " + paramRef + "2",
+                SQLQueryUtils.normalizeAndParameterizeQuery(tokens, literals));
+        assertEquals(Arrays.<Object>asList("c", Long.valueOf(1L)), literals);
+
+        StringBuilder jcrSqlBuilder = new StringBuilder();
+        assertEquals(0, SQLQueryUtils.convertParameterBindingSqlToVariableBindingQuery(tokens, jcrSqlBuilder));
+        assertEquals(query, jcrSqlBuilder.toString());
+    }
+
 }
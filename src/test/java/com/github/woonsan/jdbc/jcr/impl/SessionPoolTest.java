@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import javax.jcr.Repository;
+import javax.jcr.SimpleCredentials;
+
+import org.junit.Test;
+
+public class SessionPoolTest {
+
+    @Test
+    public void testShareByCredentials() throws Exception {
+        final Repository repository = createMock(Repository.class);
+        replay(repository);
+
+        final SessionPool pool1 = SessionPool.share(repository,
+                new SimpleCredentials("admin", "admin".toCharArray()), "default", 2);
+        final SessionPool pool2 = SessionPool.share(repository,
+                new SimpleCredentials("admin", "admin".toCharArray()), "default", 2);
+        final SessionPool pool3 = SessionPool.share(repository,
+                new SimpleCredentials("admin", "secret".toCharArray()), "default", 2);
+        final SessionPool pool4 = SessionPool.share(repository, null, "default", 2);
+
+        assertSame(pool1, pool2);
+        assertNotSame(pool1, pool3);
+        assertNotSame(pool1, pool4);
+        assertSame(pool4, SessionPool.share(repository, null, "default", 2));
+
+        pool1.close();
+        pool2.close();
+        pool3.close();
+        pool4.close();
+        pool4.close();
+
+        // a new pool is shared once all the connections sharing the pool closed it.
+        final SessionPool pool5 = SessionPool.share(repository,
+                new SimpleCredentials("admin", "admin".toCharArray()), "default", 2);
+        assertNotSame(pool1, pool5);
+        pool5.close();
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Woonsan Ko
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.woonsan.jdbc.jcr.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.github.woonsan.jdbc.jcr.JcrConnection;
+
+/**
+ * Runs thousands of queries from virtual threads on a connection sharing read-only sessions, and checks that
+ * no virtual thread is reported pinned to its carrier thread by <code>-Djdk.tracePinnedThreads=full</code>.
+ * Compiled and run only by the <code>jdk21-test</code> profile.
+ */
+public class VirtualThreadPinningTest extends AbstractRepositoryEnabledTestCase {
+
+    private static final int QUERY_COUNT = 5000;
+
+    private static final int READ_ONLY_SESSIONS = 4;
+
+    @Test(timeout = 300000)
+    public void testQueriesFromVirtualThreads() throws Exception {
+        assertEquals("full", System.getProperty("jdk.tracePinnedThreads"));
+
+        final JcrConnection conn = getConnection().unwrap(JcrConnection.class);
+        conn.setReadOnlySessions(READ_ONLY_SESSIONS);
+
+        final PrintStream stdout = System.out;
+        final ByteArrayOutputStream traces = new ByteArrayOutputStream();
+        final List<Future<Integer>> futures = new ArrayList<>(QUERY_COUNT);
+
+        // the pinned virtual threads are traced to System.out.
+        System.setOut(new PrintStream(traces, true, "UTF-8"));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < QUERY_COUNT; i++) {
+                final int empno = i % getEmpRowCount() + 1;
+
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int count = 0;
+
+                        try (Statement stmt = getConnection().createStatement();
+                                ResultSet rs = stmt.executeQuery("SELECT e.[empno] FROM [nt:unstructured] AS e "
+                                        + "WHERE ISCHILDNODE(e, '" + TEST_DATE_NODE_PATH + "') "
+                                        + "AND e.[empno] = " + empno)) {
+                            while (rs.next()) {
+                                assertEquals(empno, rs.getLong(1));
+                                ++count;
+                            }
+                        }
+
+                        return count;
+                    }
+                }));
+            }
+
+            for (Future<Integer> future : futures) {
+                assertEquals(1, future.get().intValue());
+            }
+        } finally {
+            System.setOut(stdout);
+        }
+
+        final String output = traces.toString("UTF-8");
+        assertTrue("Virtual threads pinned:\n" + output, output.isEmpty());
+        assertTrue(((JcrJdbcConnection) getConnection()).getReadOnlySessionCount() <= READ_ONLY_SESSIONS);
+    }
+
+}